@@ -2,6 +2,9 @@ package org.bebraradar;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 public class BebraRadarApplication {
@@ -10,4 +13,13 @@ public class BebraRadarApplication {
         SpringApplication.run(BebraRadarApplication.class, args);
     }
 
+    /**
+     * Background jobs belong to the server only, not to one-off commands such as {@link BulkLoadCli}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @EnableScheduling
+    @Profile("!" + BulkLoadCli.PROFILE)
+    static class SchedulingConfiguration {
+    }
+
 }
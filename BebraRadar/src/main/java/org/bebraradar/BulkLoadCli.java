@@ -0,0 +1,81 @@
+package org.bebraradar;
+
+import org.bebraradar.service.EventCopyLoader;
+import org.bebraradar.service.EventTable;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Command line entry point for bulk loading event dumps with PostgreSQL COPY. Runs under the {@code cli} profile:
+ * no web server, no scheduled jobs and no start-up work such as cache warm-ups or removing stale inferred vehicles;
+ * the other beans are created but stay idle.
+ * <p>
+ * Usage: {@code BulkLoadCli <geolocation|timetable|anomaly> <file|-> [--binary] [--no-header] [--columns=a,b,c]}
+ */
+public class BulkLoadCli {
+
+    static final String PROFILE = "cli";
+
+    public static void main(String[] args) throws Exception {
+        List<String> positional = new ArrayList<>();
+        EventCopyLoader.Format format = EventCopyLoader.Format.CSV;
+        boolean header = true;
+        List<String> columns = null;
+        for (String arg : args) {
+            if (arg.equals("--binary")) {
+                format = EventCopyLoader.Format.BINARY;
+            } else if (arg.equals("--no-header")) {
+                header = false;
+            } else if (arg.startsWith("--columns=")) {
+                columns = Arrays.asList(arg.substring("--columns=".length()).split(","));
+            } else if (arg.startsWith("--")) {
+                continue;
+            } else {
+                positional.add(arg);
+            }
+        }
+        if (positional.size() != 2) {
+            System.err.println("Usage: BulkLoadCli <geolocation|timetable|anomaly> <file|-> "
+                + "[--binary] [--no-header] [--columns=a,b,c] [--spring.property=value ...]");
+            System.exit(2);
+        }
+        EventTable table = EventTable.fromPathName(positional.get(0))
+            .orElseThrow(() -> new IllegalArgumentException("Unknown event type: " + positional.get(0)));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(BebraRadarApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles(PROFILE)
+            .run(args);
+        int exitCode = 0;
+        try (InputStream input = open(positional.get(1))) {
+            long start = System.currentTimeMillis();
+            long rows = context.getBean(EventCopyLoader.class).load(table, format, header, columns, input);
+            System.out.printf("Loaded %d rows into %s in %d ms%n",
+                rows, table.tableName(), System.currentTimeMillis() - start);
+        } catch (Exception ex) {
+            System.err.println("Bulk load failed: " + ex.getMessage());
+            exitCode = 1;
+        } finally {
+            context.close();
+        }
+        System.exit(exitCode);
+    }
+
+    private static InputStream open(String source) throws Exception {
+        if (source.equals("-")) {
+            return new BufferedInputStream(System.in);
+        }
+        InputStream input = new BufferedInputStream(Files.newInputStream(Path.of(source)));
+        return source.endsWith(".gz") ? new GZIPInputStream(input) : input;
+    }
+}
@@ -1,107 +1,147 @@
 package org.bebraradar;
 
-import org.bebraradar.dto.AnomalyResponse;
-import org.bebraradar.dto.GeoEventResponse;
-import org.bebraradar.dto.TimetableEventResponse;
-import org.bebraradar.repository.ExactTripAnomalyRepository;
-import org.bebraradar.repository.ExactTripEventGeoLocationRepository;
-import org.bebraradar.repository.ExactTripEventTimetableRepository;
-import org.springframework.data.domain.Sort;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.bebraradar.service.EventCursor;
+import org.bebraradar.service.EventFeedReader;
+import org.bebraradar.service.EventStreamHub;
+import org.bebraradar.service.EventTable;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.OffsetDateTime;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/events")
 public class EventsController {
 
-    private static final Sort TIMESTAMP_DESC = Sort.by(Sort.Direction.DESC, "timestamp");
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
 
-    private final ExactTripEventGeoLocationRepository geoLocationRepository;
-    private final ExactTripEventTimetableRepository timetableRepository;
-    private final ExactTripAnomalyRepository anomalyRepository;
+    private static final int STREAM_FLUSH_EVERY = 500;
 
-    public EventsController(ExactTripEventGeoLocationRepository geoLocationRepository,
-                            ExactTripEventTimetableRepository timetableRepository,
-                            ExactTripAnomalyRepository anomalyRepository) {
-        this.geoLocationRepository = geoLocationRepository;
-        this.timetableRepository = timetableRepository;
-        this.anomalyRepository = anomalyRepository;
+    private final EventFeedReader feedReader;
+    private final EventStreamHub streamHub;
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter streamWriter;
+    private final int defaultLimit;
+    private final int maxLimit;
+
+    public EventsController(EventFeedReader feedReader,
+                            EventStreamHub streamHub,
+                            ObjectMapper objectMapper,
+                            @Value("${bebraradar.events.page.default-limit:500}") int defaultLimit,
+                            @Value("${bebraradar.events.page.max-limit:5000}") int maxLimit) {
+        this.feedReader = feedReader;
+        this.streamHub = streamHub;
+        this.objectMapper = objectMapper;
+        this.streamWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
     }
 
     @GetMapping("/{type}")
     public ResponseEntity<?> getEvents(@PathVariable String type,
                                        @RequestParam(required = false)
                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
-                                       OffsetDateTime since) {
-        return switch (type.toLowerCase()) {
-            case "geolocation" -> ResponseEntity.ok(fetchGeoEvents(since));
-            case "timetable" -> ResponseEntity.ok(fetchTimetableEvents(since));
-            case "anomaly" -> ResponseEntity.ok(fetchAnomalies(since));
-            default -> ResponseEntity.notFound().build();
+                                       OffsetDateTime since,
+                                       @RequestParam(required = false) String cursor,
+                                       @RequestParam(required = false) Integer limit) {
+        EventTable table = EventTable.fromPathName(type).orElse(null);
+        if (table == null) {
+            return ResponseEntity.notFound().build();
+        }
+        EventFeedReader.Page page = feedReader.page(table, since, decodeCursor(cursor),
+            Math.min(limit == null ? defaultLimit : checkLimit(limit), maxLimit));
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.next() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.next().encode());
+        }
+        return response.body(page.items());
+    }
+
+    @GetMapping(path = "/{type}", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamEvents(@PathVariable String type,
+                                                              @RequestParam(required = false)
+                                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                              OffsetDateTime since,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) Integer limit) {
+        EventTable table = EventTable.fromPathName(type).orElse(null);
+        if (table == null) {
+            return ResponseEntity.notFound().build();
+        }
+        EventCursor after = decodeCursor(cursor);
+        Integer checkedLimit = limit == null ? null : checkLimit(limit);
+        StreamingResponseBody body = output -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.writeStartArray();
+                int[] written = {0};
+                feedReader.stream(table, since, after, checkedLimit, event -> {
+                    try {
+                        streamWriter.writeValue(generator, event);
+                        if (++written[0] % STREAM_FLUSH_EVERY == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+                generator.writeEndArray();
+            }
         };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
     }
 
-    private List<GeoEventResponse> fetchGeoEvents(OffsetDateTime since) {
-        return (since == null
-            ? geoLocationRepository.findAll(TIMESTAMP_DESC)
-            : geoLocationRepository.findByTimestampGreaterThanEqualOrderByTimestampDesc(since))
-            .stream()
-            .map(event -> new GeoEventResponse(
-                event.getId(),
-                event.getTrip().getId(),
-                event.getVehicle() == null ? null : event.getVehicle().getVehicleNo(),
-                event.getUser() == null ? null : event.getUser().getId(),
-                event.getTimestamp(),
-                event.getLatitude(),
-                event.getLongitude(),
-                event.getGpsAccuracyMeters(),
-                event.getType()))
-            .toList();
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@RequestParam(required = false) Long tripId,
+                                @RequestParam(required = false) List<String> type,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        Set<EventTable> tables = EnumSet.noneOf(EventTable.class);
+        if (type == null || type.isEmpty()) {
+            tables.addAll(EnumSet.allOf(EventTable.class));
+        } else {
+            for (String name : type) {
+                tables.add(EventTable.fromPathName(name).orElseThrow(() ->
+                    new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown event type: " + name)));
+            }
+        }
+        return streamHub.subscribe(tripId, tables, lastEventId);
     }
 
-    private List<TimetableEventResponse> fetchTimetableEvents(OffsetDateTime since) {
-        return (since == null
-            ? timetableRepository.findAll(TIMESTAMP_DESC)
-            : timetableRepository.findByTimestampGreaterThanEqualOrderByTimestampDesc(since))
-            .stream()
-            .map(event -> new TimetableEventResponse(
-                event.getId(),
-                event.getTrip().getId(),
-                event.getVehicle() == null ? null : event.getVehicle().getVehicleNo(),
-                event.getUser() == null ? null : event.getUser().getId(),
-                event.getTimestamp(),
-                event.getLatitude(),
-                event.getLongitude(),
-                event.getGpsAccuracyMeters(),
-                event.getType(),
-                event.getReportedTime()))
-            .toList();
+    private static int checkLimit(int limit) {
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        }
+        return limit;
     }
 
-    private List<AnomalyResponse> fetchAnomalies(OffsetDateTime since) {
-        return (since == null
-            ? anomalyRepository.findAll(TIMESTAMP_DESC)
-            : anomalyRepository.findByTimestampGreaterThanEqualOrderByTimestampDesc(since))
-            .stream()
-            .map(event -> new AnomalyResponse(
-                event.getId(),
-                event.getTrip().getId(),
-                event.getVehicle() == null ? null : event.getVehicle().getVehicleNo(),
-                event.getUser() == null ? null : event.getUser().getId(),
-                event.getTimestamp(),
-                event.getLatitude(),
-                event.getLongitude(),
-                event.getGpsAccuracyMeters(),
-                event.getType(),
-                event.getEstimatedDelay()))
-            .toList();
+    private static EventCursor decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return EventCursor.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", ex);
+        }
     }
 }
@@ -4,9 +4,16 @@ import org.bebraradar.dto.AnomalyRequest;
 import org.bebraradar.dto.AnomalyResponse;
 import org.bebraradar.entity.ExactTripAnomaly;
 import org.bebraradar.repository.ExactTripAnomalyRepository;
+import org.bebraradar.service.EventDeduplicator;
+import org.bebraradar.service.EventTable;
+import org.bebraradar.service.EventsAcceptedEvent;
+import org.bebraradar.service.EventWriteBehindService;
 import org.bebraradar.service.ReferenceResolver;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -26,30 +33,44 @@ public class AnomalyController {
 
     private final ExactTripAnomalyRepository repository;
     private final ReferenceResolver referenceResolver;
+    private final EventWriteBehindService writeBehind;
+    private final EventDeduplicator deduplicator;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public AnomalyController(ExactTripAnomalyRepository repository, ReferenceResolver referenceResolver) {
+    public AnomalyController(ExactTripAnomalyRepository repository,
+                             ReferenceResolver referenceResolver,
+                             EventWriteBehindService writeBehind,
+                             EventDeduplicator deduplicator,
+                             ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.referenceResolver = referenceResolver;
+        this.writeBehind = writeBehind;
+        this.deduplicator = deduplicator;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
     public List<AnomalyResponse> getAll() {
-        return repository.findAll().stream()
-            .map(AnomalyController::toDto)
-            .toList();
+        return repository.findAllResponses();
     }
 
     @GetMapping("/{id}")
     public AnomalyResponse getById(@PathVariable Long id) {
-        return repository.findById(id)
-            .map(AnomalyController::toDto)
+        return repository.findResponseById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Anomaly not found: " + id));
     }
 
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public AnomalyResponse create(@RequestBody AnomalyRequest request) {
+    public ResponseEntity<AnomalyResponse> create(@RequestBody AnomalyRequest request) {
         validate(request);
+        if (writeBehind.isEnabled()) {
+            writeBehind.enqueueAnomaly(request);
+            return ResponseEntity.accepted().build();
+        }
+        String eventKey = EventDeduplicator.keyOf(request);
+        if (deduplicator.isDuplicate(EventTable.ANOMALY, eventKey)) {
+            return ResponseEntity.ok().build();
+        }
         ExactTripAnomaly entity = new ExactTripAnomaly(
             referenceResolver.requireTrip(request.tripId()),
             referenceResolver.resolveUserNullable(request.userId()),
@@ -61,7 +82,19 @@ public class AnomalyController {
             request.estimatedDelay()
         );
         entity.setVehicle(referenceResolver.resolveVehicleNullable(request.vehicleNo()));
-        return toDto(repository.save(entity));
+        entity.setEventKey(eventKey);
+        try {
+            entity = repository.save(entity);
+        } catch (DataIntegrityViolationException ex) {
+            if (repository.existsByEventKeyAndTimestamp(eventKey, request.timestamp())) {
+                return ResponseEntity.ok().build();
+            }
+            throw ex;
+        }
+        deduplicator.recordAfterCommit(EventTable.ANOMALY, List.of(eventKey));
+        AnomalyResponse response = toDto(entity);
+        eventPublisher.publishEvent(new EventsAcceptedEvent(EventTable.ANOMALY, List.of(response)));
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @PutMapping("/{id}")
@@ -112,6 +145,10 @@ public class AnomalyController {
         if (request.tripId() == null || request.timestamp() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Trip id and timestamp are required");
         }
+        if (request.eventKey() != null && request.eventKey().length() > EventDeduplicator.MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "eventKey must not exceed " + EventDeduplicator.MAX_KEY_LENGTH + " characters");
+        }
         if (request.estimatedDelay() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "estimatedDelay is required");
         }
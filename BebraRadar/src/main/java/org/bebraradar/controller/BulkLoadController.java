@@ -0,0 +1,57 @@
+package org.bebraradar.controller;
+
+import org.bebraradar.dto.BulkLoadResponse;
+import org.bebraradar.service.EventCopyLoader;
+import org.bebraradar.service.EventTable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.List;
+
+@RestController
+@RequestMapping("/admin/bulk-load")
+public class BulkLoadController {
+
+    private final EventCopyLoader copyLoader;
+
+    public BulkLoadController(EventCopyLoader copyLoader) {
+        this.copyLoader = copyLoader;
+    }
+
+    // POST /admin/bulk-load/{geolocation|timetable|anomaly}?header=true&columns=trip_id,ts,...
+    // Content-Type: text/csv for CSV, application/octet-stream for PostgreSQL binary COPY format
+    @PostMapping(path = "/{type}", consumes = {"text/csv", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public BulkLoadResponse load(@PathVariable String type,
+                                 @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                 @RequestParam(defaultValue = "true") boolean header,
+                                 @RequestParam(required = false) List<String> columns,
+                                 InputStream body) {
+        EventTable table = EventTable.fromPathName(type)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown event type: " + type));
+        EventCopyLoader.Format format = MediaType.APPLICATION_OCTET_STREAM.includes(contentType)
+            ? EventCopyLoader.Format.BINARY
+            : EventCopyLoader.Format.CSV;
+        long start = System.currentTimeMillis();
+        try {
+            long rows = copyLoader.load(table, format, header, columns, body);
+            return new BulkLoadResponse(table.tableName(), rows, System.currentTimeMillis() - start);
+        } catch (IllegalArgumentException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage(), ex);
+        } catch (SQLException ex) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage(), ex);
+        } catch (IOException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Failed to read request body", ex);
+        }
+    }
+}
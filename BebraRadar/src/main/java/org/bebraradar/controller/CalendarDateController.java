@@ -0,0 +1,132 @@
+package org.bebraradar.controller;
+
+import org.bebraradar.dto.CalendarDateDto;
+import org.bebraradar.entity.CalendarDate;
+import org.bebraradar.entity.CalendarDateId;
+import org.bebraradar.repository.CalendarDateRepository;
+import org.bebraradar.service.EntityChangedEvent;
+import org.bebraradar.service.ReferenceResolver;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/calendar-dates")
+public class CalendarDateController {
+
+    private final CalendarDateRepository calendarDateRepository;
+    private final ReferenceResolver referenceResolver;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public CalendarDateController(CalendarDateRepository calendarDateRepository,
+                                  ReferenceResolver referenceResolver,
+                                  ApplicationEventPublisher eventPublisher) {
+        this.calendarDateRepository = calendarDateRepository;
+        this.referenceResolver = referenceResolver;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @GetMapping
+    public List<CalendarDateDto> getAll() {
+        return calendarDateRepository.findAll().stream()
+            .map(CalendarDateController::toDto)
+            .toList();
+    }
+
+    @GetMapping("/{serviceId}/{date}")
+    public CalendarDateDto getById(@PathVariable String serviceId,
+                                   @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        return calendarDateRepository.findById(new CalendarDateId(serviceId, date))
+            .map(CalendarDateController::toDto)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
+                "Calendar date not found: " + serviceId + "/" + date));
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public CalendarDateDto create(@RequestBody CalendarDateDto request) {
+        validate(request);
+        CalendarDateId id = new CalendarDateId(request.serviceId(), request.date());
+        if (calendarDateRepository.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Calendar date already exists for provided id");
+        }
+        CalendarDate entity = new CalendarDate(
+            id,
+            referenceResolver.requireCalendar(request.serviceId()),
+            request.exceptionType().shortValue()
+        );
+        return toDto(save(entity));
+    }
+
+    @PutMapping("/{serviceId}/{date}")
+    public CalendarDateDto replace(@PathVariable String serviceId,
+                                   @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+                                   @RequestBody CalendarDateDto request) {
+        if (!serviceId.equals(request.serviceId()) || !date.equals(request.date())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Calendar date id mismatch");
+        }
+        validate(request);
+        CalendarDateId id = new CalendarDateId(serviceId, date);
+        CalendarDate entity = calendarDateRepository.findById(id).orElse(null);
+        if (entity == null) {
+            entity = new CalendarDate(id, referenceResolver.requireCalendar(serviceId),
+                request.exceptionType().shortValue());
+        } else {
+            entity.setExceptionType(request.exceptionType().shortValue());
+        }
+        return toDto(save(entity));
+    }
+
+    @DeleteMapping("/{serviceId}/{date}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void delete(@PathVariable String serviceId,
+                       @PathVariable @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        try {
+            calendarDateRepository.deleteById(new CalendarDateId(serviceId, date));
+            eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.CALENDAR_DATE, serviceId));
+        } catch (EmptyResultDataAccessException ex) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+                "Calendar date not found: " + serviceId + "/" + date, ex);
+        }
+    }
+
+    private CalendarDate save(CalendarDate entity) {
+        CalendarDate saved = calendarDateRepository.save(entity);
+        eventPublisher.publishEvent(
+            new EntityChangedEvent(EntityChangedEvent.Kind.CALENDAR_DATE, saved.getId().getServiceId()));
+        return saved;
+    }
+
+    private static CalendarDateDto toDto(CalendarDate entity) {
+        return new CalendarDateDto(
+            entity.getId().getServiceId(),
+            entity.getId().getDate(),
+            entity.getExceptionType().intValue()
+        );
+    }
+
+    private static void validate(CalendarDateDto request) {
+        if (request.serviceId() == null || request.serviceId().isBlank() || request.date() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Service id and date are required");
+        }
+        if (request.exceptionType() == null
+            || (request.exceptionType() != CalendarDate.SERVICE_ADDED
+            && request.exceptionType() != CalendarDate.SERVICE_REMOVED)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "exceptionType must be 1 (added) or 2 (removed)");
+        }
+    }
+}
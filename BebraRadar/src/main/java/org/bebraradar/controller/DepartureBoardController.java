@@ -0,0 +1,48 @@
+package org.bebraradar.controller;
+
+import org.bebraradar.dto.DepartureDto;
+import org.bebraradar.service.TimetableService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/stops")
+public class DepartureBoardController {
+
+    private final TimetableService timetableService;
+    private final int maxLimit;
+
+    public DepartureBoardController(TimetableService timetableService,
+                                    @Value("${bebraradar.timetable.departures.max-limit:100}") int maxLimit) {
+        this.timetableService = timetableService;
+        this.maxLimit = maxLimit;
+    }
+
+    // GET /stops/{stopId}/departures?from=YYYY-MM-DDTHH:MM:SS&limit=10
+    @GetMapping("/{stopId}/departures")
+    public List<DepartureDto> getDepartures(
+        @PathVariable String stopId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+        @RequestParam(defaultValue = "10") int limit
+    ) {
+        if (limit < 1 || limit > maxLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + maxLimit);
+        }
+        LocalDateTime start = from != null ? from : LocalDateTime.now(timetableService.zone());
+        List<DepartureDto> departures = timetableService.getDepartures(stopId, start, limit);
+        if (departures == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Stop not found: " + stopId);
+        }
+        return departures;
+    }
+}
@@ -1,12 +1,25 @@
 package org.bebraradar.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.bebraradar.dto.BatchIngestResponse;
 import org.bebraradar.dto.GeoEventRequest;
 import org.bebraradar.dto.GeoEventResponse;
 import org.bebraradar.entity.ExactTripEventGeoLocation;
 import org.bebraradar.repository.ExactTripEventGeoLocationRepository;
+import org.bebraradar.service.EventDeduplicator;
+import org.bebraradar.service.EventIngestService;
+import org.bebraradar.service.EventTable;
+import org.bebraradar.service.EventsAcceptedEvent;
+import org.bebraradar.service.EventWriteBehindService;
 import org.bebraradar.service.ReferenceResolver;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -18,6 +31,12 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -26,31 +45,53 @@ public class GeoEventController {
 
     private final ExactTripEventGeoLocationRepository repository;
     private final ReferenceResolver referenceResolver;
+    private final EventIngestService ingestService;
+    private final EventWriteBehindService writeBehind;
+    private final EventDeduplicator deduplicator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectReader requestReader;
+    private final int maxBatchSize;
 
     public GeoEventController(ExactTripEventGeoLocationRepository repository,
-                              ReferenceResolver referenceResolver) {
+                              ReferenceResolver referenceResolver,
+                              EventIngestService ingestService,
+                              EventWriteBehindService writeBehind,
+                              EventDeduplicator deduplicator,
+                              ApplicationEventPublisher eventPublisher,
+                              ObjectMapper objectMapper,
+                              @Value("${bebraradar.ingest.batch.max-size:5000}") int maxBatchSize) {
         this.repository = repository;
         this.referenceResolver = referenceResolver;
+        this.ingestService = ingestService;
+        this.writeBehind = writeBehind;
+        this.deduplicator = deduplicator;
+        this.eventPublisher = eventPublisher;
+        this.requestReader = objectMapper.readerFor(GeoEventRequest.class);
+        this.maxBatchSize = maxBatchSize;
     }
 
     @GetMapping
     public List<GeoEventResponse> getAll() {
-        return repository.findAll().stream()
-            .map(GeoEventController::toDto)
-            .toList();
+        return repository.findAllResponses();
     }
 
     @GetMapping("/{id}")
     public GeoEventResponse getById(@PathVariable Long id) {
-        return repository.findById(id)
-            .map(GeoEventController::toDto)
+        return repository.findResponseById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Geo event not found: " + id));
     }
 
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public GeoEventResponse create(@RequestBody GeoEventRequest request) {
+    public ResponseEntity<GeoEventResponse> create(@RequestBody GeoEventRequest request) {
         validate(request);
+        if (writeBehind.isEnabled()) {
+            writeBehind.enqueueGeoEvent(request);
+            return ResponseEntity.accepted().build();
+        }
+        String eventKey = EventDeduplicator.keyOf(request);
+        if (deduplicator.isDuplicate(EventTable.GEOLOCATION, eventKey)) {
+            return ResponseEntity.ok().build();
+        }
         ExactTripEventGeoLocation entity = new ExactTripEventGeoLocation(
             referenceResolver.requireTrip(request.tripId()),
             referenceResolver.resolveUserNullable(request.userId()),
@@ -61,7 +102,40 @@ public class GeoEventController {
             request.type()
         );
         entity.setVehicle(referenceResolver.resolveVehicleNullable(request.vehicleNo()));
-        return toDto(repository.save(entity));
+        entity.setEventKey(eventKey);
+        try {
+            entity = repository.save(entity);
+        } catch (DataIntegrityViolationException ex) {
+            if (repository.existsByEventKeyAndTimestamp(eventKey, request.timestamp())) {
+                return ResponseEntity.ok().build();
+            }
+            throw ex;
+        }
+        deduplicator.recordAfterCommit(EventTable.GEOLOCATION, List.of(eventKey));
+        GeoEventResponse response = toDto(entity);
+        eventPublisher.publishEvent(new EventsAcceptedEvent(EventTable.GEOLOCATION, List.of(response)));
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchIngestResponse createBatch(@RequestBody List<GeoEventRequest> requests) {
+        checkBatchSize(requests.size());
+        return ingestService.ingestGeoEvents(requests);
+    }
+
+    @PostMapping(path = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BatchIngestResponse createBatchNdjson(InputStream body) throws IOException {
+        List<GeoEventRequest> requests = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            checkBatchSize(requests.size() + 1);
+            requests.add(parseLine(line));
+        }
+        return ingestService.ingestGeoEvents(requests);
     }
 
     @PutMapping("/{id}")
@@ -106,9 +180,28 @@ public class GeoEventController {
         );
     }
 
+    private GeoEventRequest parseLine(String line) {
+        try {
+            return requestReader.readValue(line);
+        } catch (IOException ex) {
+            return null;
+        }
+    }
+
+    private void checkBatchSize(int size) {
+        if (size > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                "Batch exceeds the maximum of " + maxBatchSize + " events");
+        }
+    }
+
     private static void validate(GeoEventRequest request) {
         if (request.tripId() == null || request.timestamp() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Trip id and timestamp are required");
         }
+        if (request.eventKey() != null && request.eventKey().length() > EventDeduplicator.MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "eventKey must not exceed " + EventDeduplicator.MAX_KEY_LENGTH + " characters");
+        }
     }
 }
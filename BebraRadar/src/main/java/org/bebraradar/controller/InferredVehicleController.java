@@ -0,0 +1,34 @@
+package org.bebraradar.controller;
+
+import org.bebraradar.dto.InferredVehicleDto;
+import org.bebraradar.service.VehicleInferenceService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/trips")
+public class InferredVehicleController {
+
+    private final VehicleInferenceService inferenceService;
+
+    public InferredVehicleController(VehicleInferenceService inferenceService) {
+        this.inferenceService = inferenceService;
+    }
+
+    // GET /trips/{tripId}/inferred-vehicles?at=2024-01-15T08:03:00Z
+    @GetMapping("/{tripId}/inferred-vehicles")
+    public List<InferredVehicleDto> getInferredVehicles(
+        @PathVariable Long tripId,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) OffsetDateTime at
+    ) {
+        return inferenceService.estimates(tripId, at != null ? at.toInstant() : Instant.now());
+    }
+}
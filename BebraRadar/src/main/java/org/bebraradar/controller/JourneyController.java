@@ -0,0 +1,43 @@
+package org.bebraradar.controller;
+
+import org.bebraradar.dto.JourneyDto;
+import org.bebraradar.service.JourneyPlanner;
+import org.bebraradar.service.TimetableService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/journeys")
+public class JourneyController {
+
+    private final JourneyPlanner journeyPlanner;
+    private final TimetableService timetableService;
+
+    public JourneyController(JourneyPlanner journeyPlanner, TimetableService timetableService) {
+        this.journeyPlanner = journeyPlanner;
+        this.timetableService = timetableService;
+    }
+
+    // GET /journeys?from=STOP_A&to=STOP_B&departAfter=YYYY-MM-DDTHH:MM:SS
+    @GetMapping
+    public List<JourneyDto> plan(
+        @RequestParam String from,
+        @RequestParam String to,
+        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime departAfter
+    ) {
+        LocalDateTime start = departAfter != null ? departAfter : LocalDateTime.now(timetableService.zone());
+        List<JourneyDto> journeys = journeyPlanner.plan(from, to, start);
+        if (journeys == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Unknown stop: " + from + " or " + to);
+        }
+        return journeys;
+    }
+}
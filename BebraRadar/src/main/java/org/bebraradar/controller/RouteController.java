@@ -3,6 +3,8 @@ package org.bebraradar.controller;
 import org.bebraradar.dto.RouteDto;
 import org.bebraradar.entity.Route;
 import org.bebraradar.repository.RouteRepository;
+import org.bebraradar.service.EntityChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
@@ -24,9 +26,11 @@ import java.util.List;
 public class RouteController {
 
     private final RouteRepository routeRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public RouteController(RouteRepository routeRepository) {
+    public RouteController(RouteRepository routeRepository, ApplicationEventPublisher eventPublisher) {
         this.routeRepository = routeRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
@@ -53,7 +57,7 @@ public class RouteController {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Route already exists: " + request.id());
         }
         Route route = new Route(request.id());
-        return toDto(routeRepository.save(route));
+        return toDto(save(route));
     }
 
     @PutMapping("/{id}")
@@ -65,7 +69,7 @@ public class RouteController {
         if (route == null) {
             route = new Route(id);
         }
-        return toDto(routeRepository.save(route));
+        return toDto(save(route));
     }
 
     @DeleteMapping("/{id}")
@@ -73,6 +77,7 @@ public class RouteController {
     public void delete(@PathVariable String id) {
         try {
             routeRepository.deleteById(id);
+            eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.ROUTE, id));
         } catch (EmptyResultDataAccessException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Route not found: " + id, ex);
         } catch (DataIntegrityViolationException ex) {
@@ -80,6 +85,12 @@ public class RouteController {
         }
     }
 
+    private Route save(Route entity) {
+        Route saved = routeRepository.save(entity);
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.ROUTE, saved.getId()));
+        return saved;
+    }
+
     private static RouteDto toDto(Route route) {
         return new RouteDto(route.getId());
     }
@@ -3,6 +3,8 @@ package org.bebraradar.controller;
 import org.bebraradar.dto.ServiceCalendarDto;
 import org.bebraradar.entity.ServiceCalendar;
 import org.bebraradar.repository.ServiceCalendarRepository;
+import org.bebraradar.service.EntityChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -23,9 +25,12 @@ import java.util.List;
 public class ServiceCalendarController {
 
     private final ServiceCalendarRepository serviceCalendarRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ServiceCalendarController(ServiceCalendarRepository serviceCalendarRepository) {
+    public ServiceCalendarController(ServiceCalendarRepository serviceCalendarRepository,
+                                     ApplicationEventPublisher eventPublisher) {
         this.serviceCalendarRepository = serviceCalendarRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
@@ -63,7 +68,7 @@ public class ServiceCalendarController {
             request.startDate(),
             request.endDate()
         );
-        return toDto(serviceCalendarRepository.save(calendar));
+        return toDto(save(calendar));
     }
 
     @PutMapping("/{id}")
@@ -85,10 +90,10 @@ public class ServiceCalendarController {
                 request.startDate(),
                 request.endDate()
             );
-            return toDto(serviceCalendarRepository.save(created));
+            return toDto(save(created));
         }
         apply(calendar, request);
-        return toDto(serviceCalendarRepository.save(calendar));
+        return toDto(save(calendar));
     }
 
     @DeleteMapping("/{id}")
@@ -96,11 +101,18 @@ public class ServiceCalendarController {
     public void delete(@PathVariable String id) {
         try {
             serviceCalendarRepository.deleteById(id);
+            eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.CALENDAR, id));
         } catch (EmptyResultDataAccessException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Service calendar not found: " + id, ex);
         }
     }
 
+    private ServiceCalendar save(ServiceCalendar entity) {
+        ServiceCalendar saved = serviceCalendarRepository.save(entity);
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.CALENDAR, saved.getId()));
+        return saved;
+    }
+
     private static ServiceCalendarDto toDto(ServiceCalendar entity) {
         return new ServiceCalendarDto(
             entity.getId(),
@@ -0,0 +1,89 @@
+package org.bebraradar.controller;
+
+import org.bebraradar.dto.ShapeGeometryDto;
+import org.bebraradar.dto.ShapeMatchDto;
+import org.bebraradar.dto.ShapeMatchRequest;
+import org.bebraradar.service.ShapeGeometry;
+import org.bebraradar.service.ShapeGeometryService;
+import org.bebraradar.service.ShapeMatcher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RestController
+@RequestMapping("/shapes")
+public class ShapeGeometryController {
+
+    private final ShapeGeometryService shapeGeometryService;
+    private final int maxMatchPoints;
+
+    public ShapeGeometryController(ShapeGeometryService shapeGeometryService,
+                                   @Value("${bebraradar.shapes.match.max-points:10000}") int maxMatchPoints) {
+        this.shapeGeometryService = shapeGeometryService;
+        this.maxMatchPoints = maxMatchPoints;
+    }
+
+    // GET /shapes/{shapeId}/geometry?zoom=0..22
+    @GetMapping("/{shapeId}/geometry")
+    public ShapeGeometryDto getGeometry(@PathVariable String shapeId,
+                                        @RequestParam(required = false) Integer zoom) {
+        if (zoom != null && (zoom < 0 || zoom > ShapeGeometry.MAX_ZOOM)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "zoom must be between 0 and " + ShapeGeometry.MAX_ZOOM);
+        }
+        ShapeGeometry geometry = shapeGeometryService.geometry(shapeId);
+        if (geometry == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shape not found: " + shapeId);
+        }
+        if (zoom == null) {
+            return new ShapeGeometryDto(shapeId, null, geometry.pointCount(), geometry.pointCount(),
+                geometry.fullPolyline());
+        }
+        return new ShapeGeometryDto(shapeId, zoom, geometry.pointCount(zoom), geometry.pointCount(),
+            geometry.polyline(zoom));
+    }
+
+    // POST /shapes/{shapeId}/match
+    @PostMapping("/{shapeId}/match")
+    public List<ShapeMatchDto> match(@PathVariable String shapeId, @RequestBody List<ShapeMatchRequest> positions) {
+        if (positions.size() > maxMatchPoints) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "At most " + maxMatchPoints + " positions per request");
+        }
+        double[] latitudes = new double[positions.size()];
+        double[] longitudes = new double[positions.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            ShapeMatchRequest position = positions.get(i);
+            if (position == null || position.latitude() == null || position.longitude() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "latitude and longitude are required (position " + i + ")");
+            }
+            latitudes[i] = position.latitude();
+            longitudes[i] = position.longitude();
+        }
+        ShapeMatcher matcher = shapeGeometryService.matcher(shapeId);
+        if (matcher == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shape not found: " + shapeId);
+        }
+        double[] distanceAlong = new double[positions.size()];
+        double[] crossTrack = new double[positions.size()];
+        int[] segment = new int[positions.size()];
+        matcher.matchAll(latitudes, longitudes, positions.size(), distanceAlong, crossTrack, segment);
+        List<ShapeMatchDto> result = new ArrayList<>(positions.size());
+        for (int i = 0; i < positions.size(); i++) {
+            result.add(segment[i] < 0 ? new ShapeMatchDto(distanceAlong[i], null, null)
+                : new ShapeMatchDto(distanceAlong[i], crossTrack[i], segment[i]));
+        }
+        return result;
+    }
+}
@@ -3,6 +3,8 @@ package org.bebraradar.controller;
 import org.bebraradar.dto.ShapeIdDto;
 import org.bebraradar.entity.ShapeIdEntity;
 import org.bebraradar.repository.ShapeIdRepository;
+import org.bebraradar.service.EntityChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
@@ -24,9 +26,11 @@ import java.util.List;
 public class ShapeIdController {
 
     private final ShapeIdRepository shapeIdRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ShapeIdController(ShapeIdRepository shapeIdRepository) {
+    public ShapeIdController(ShapeIdRepository shapeIdRepository, ApplicationEventPublisher eventPublisher) {
         this.shapeIdRepository = shapeIdRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
@@ -53,7 +57,7 @@ public class ShapeIdController {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Shape id already exists: " + request.id());
         }
         ShapeIdEntity entity = new ShapeIdEntity(request.id());
-        return new ShapeIdDto(shapeIdRepository.save(entity).getId());
+        return new ShapeIdDto(save(entity).getId());
     }
 
     @PutMapping("/{id}")
@@ -65,7 +69,7 @@ public class ShapeIdController {
         if (entity == null) {
             entity = new ShapeIdEntity(id);
         }
-        return new ShapeIdDto(shapeIdRepository.save(entity).getId());
+        return new ShapeIdDto(save(entity).getId());
     }
 
     @DeleteMapping("/{id}")
@@ -73,10 +77,17 @@ public class ShapeIdController {
     public void delete(@PathVariable String id) {
         try {
             shapeIdRepository.deleteById(id);
+            eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.SHAPE, id));
         } catch (EmptyResultDataAccessException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Shape id not found: " + id, ex);
         } catch (DataIntegrityViolationException ex) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Shape id is referenced and cannot be removed", ex);
         }
     }
+
+    private ShapeIdEntity save(ShapeIdEntity entity) {
+        ShapeIdEntity saved = shapeIdRepository.save(entity);
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.SHAPE, saved.getId()));
+        return saved;
+    }
 }
@@ -5,7 +5,9 @@ import org.bebraradar.dto.ShapePointResponse;
 import org.bebraradar.entity.ShapePoint;
 import org.bebraradar.entity.ShapePointId;
 import org.bebraradar.repository.ShapePointRepository;
+import org.bebraradar.service.EntityChangedEvent;
 import org.bebraradar.service.ReferenceResolver;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -27,10 +29,13 @@ public class ShapePointController {
 
     private final ShapePointRepository shapePointRepository;
     private final ReferenceResolver referenceResolver;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ShapePointController(ShapePointRepository shapePointRepository, ReferenceResolver referenceResolver) {
+    public ShapePointController(ShapePointRepository shapePointRepository, ReferenceResolver referenceResolver,
+                                ApplicationEventPublisher eventPublisher) {
         this.shapePointRepository = shapePointRepository;
         this.referenceResolver = referenceResolver;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
@@ -64,7 +69,7 @@ public class ShapePointController {
             request.longitude(),
             request.distanceTraveled()
         );
-        return toDto(shapePointRepository.save(entity));
+        return toDto(save(entity));
     }
 
     @PutMapping("/{shapeId}/{sequence}")
@@ -83,7 +88,7 @@ public class ShapePointController {
         entity.setLatitude(request.latitude());
         entity.setLongitude(request.longitude());
         entity.setDistanceTraveled(request.distanceTraveled());
-        return toDto(shapePointRepository.save(entity));
+        return toDto(save(entity));
     }
 
     @DeleteMapping("/{shapeId}/{sequence}")
@@ -92,12 +97,20 @@ public class ShapePointController {
         ShapePointId id = new ShapePointId(shapeId, sequence);
         try {
             shapePointRepository.deleteById(id);
+            eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.SHAPE_POINT, shapeId));
         } catch (EmptyResultDataAccessException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                 "Shape point not found: " + shapeId + "/" + sequence, ex);
         }
     }
 
+    private ShapePoint save(ShapePoint entity) {
+        ShapePoint saved = shapePointRepository.save(entity);
+        eventPublisher.publishEvent(
+            new EntityChangedEvent(EntityChangedEvent.Kind.SHAPE_POINT, saved.getId().getShapeId()));
+        return saved;
+    }
+
     private static ShapePointResponse toDto(ShapePoint entity) {
         return new ShapePointResponse(
             entity.getId().getShapeId(),
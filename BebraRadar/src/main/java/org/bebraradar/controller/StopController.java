@@ -1,8 +1,13 @@
 package org.bebraradar.controller;
 
+import org.bebraradar.dto.NearbyStopDto;
 import org.bebraradar.dto.StopDto;
 import org.bebraradar.entity.Stop;
 import org.bebraradar.repository.StopRepository;
+import org.bebraradar.service.EntityChangedEvent;
+import org.bebraradar.service.StopSpatialIndex;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
@@ -13,6 +18,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
@@ -24,18 +30,57 @@ import java.util.List;
 public class StopController {
 
     private final StopRepository stopRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StopSpatialIndex spatialIndex;
+    private final double maxNearRadius;
+    private final int maxNearLimit;
 
-    public StopController(StopRepository stopRepository) {
+    public StopController(StopRepository stopRepository,
+                          ApplicationEventPublisher eventPublisher,
+                          StopSpatialIndex spatialIndex,
+                          @Value("${bebraradar.stops.near.max-radius:50000}") double maxNearRadius,
+                          @Value("${bebraradar.stops.near.max-limit:100}") int maxNearLimit) {
         this.stopRepository = stopRepository;
+        this.eventPublisher = eventPublisher;
+        this.spatialIndex = spatialIndex;
+        this.maxNearRadius = maxNearRadius;
+        this.maxNearLimit = maxNearLimit;
     }
 
+    // GET /stops
+    // GET /stops?bbox=minLon,minLat,maxLon,maxLat
     @GetMapping
-    public List<StopDto> getAll() {
+    public List<StopDto> getAll(@RequestParam(required = false) String bbox) {
+        if (bbox != null) {
+            double[] box = parseBbox(bbox);
+            return spatialIndex.withinBox(box[1], box[0], box[3], box[2]);
+        }
         return stopRepository.findAll().stream()
             .map(StopController::toDto)
             .toList();
     }
 
+    // GET /stops/near?lat=..&lon=..&radius=1000&limit=10
+    @GetMapping("/near")
+    public List<NearbyStopDto> getNear(
+        @RequestParam double lat,
+        @RequestParam double lon,
+        @RequestParam(defaultValue = "1000") double radius,
+        @RequestParam(defaultValue = "10") int limit
+    ) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lat/lon out of range");
+        }
+        if (!(radius > 0 && radius <= maxNearRadius)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "radius must be positive and at most " + maxNearRadius);
+        }
+        if (limit < 1 || limit > maxNearLimit) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + maxNearLimit);
+        }
+        return spatialIndex.nearest(lat, lon, radius, limit);
+    }
+
     @GetMapping("/{id}")
     public StopDto getById(@PathVariable String id) {
         return stopRepository.findById(id)
@@ -52,7 +97,7 @@ public class StopController {
         }
         Stop stop = new Stop(request.id(), request.name(), request.latitude(), request.longitude());
         apply(stop, request);
-        return toDto(stopRepository.save(stop));
+        return toDto(save(stop));
     }
 
     @PutMapping("/{id}")
@@ -64,10 +109,10 @@ public class StopController {
         if (stop == null) {
             Stop created = new Stop(id, request.name(), request.latitude(), request.longitude());
             apply(created, request);
-            return toDto(stopRepository.save(created));
+            return toDto(save(created));
         }
         apply(stop, request);
-        return toDto(stopRepository.save(stop));
+        return toDto(save(stop));
     }
 
     @DeleteMapping("/{id}")
@@ -75,6 +120,7 @@ public class StopController {
     public void delete(@PathVariable String id) {
         try {
             stopRepository.deleteById(id);
+            eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.STOP, id));
         } catch (EmptyResultDataAccessException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Stop not found: " + id, ex);
         } catch (DataIntegrityViolationException ex) {
@@ -82,6 +128,12 @@ public class StopController {
         }
     }
 
+    private Stop save(Stop entity) {
+        Stop saved = stopRepository.save(entity);
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.STOP, saved.getId()));
+        return saved;
+    }
+
     private static StopDto toDto(Stop stop) {
         return new StopDto(stop.getId(), stop.getName(), stop.getLatitude(), stop.getLongitude());
     }
@@ -95,6 +147,25 @@ public class StopController {
         stop.setLongitude(request.longitude());
     }
 
+    private static double[] parseBbox(String bbox) {
+        String[] parts = bbox.split(",");
+        if (parts.length != 4) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bbox must be minLon,minLat,maxLon,maxLat");
+        }
+        double[] box = new double[4];
+        try {
+            for (int i = 0; i < 4; i++) {
+                box[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException ex) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bbox must contain numbers", ex);
+        }
+        if (box[1] > box[3] || box[1] < -90 || box[3] > 90 || box[0] < -180 || box[2] > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bbox is out of range");
+        }
+        return box;
+    }
+
     private static void validateRequest(StopDto request) {
         if (request.id() == null || request.id().isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Stop id is required");
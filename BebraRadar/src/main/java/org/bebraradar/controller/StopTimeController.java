@@ -5,7 +5,9 @@ import org.bebraradar.dto.StopTimeResponse;
 import org.bebraradar.entity.StopTime;
 import org.bebraradar.entity.StopTimeId;
 import org.bebraradar.repository.StopTimeRepository;
+import org.bebraradar.service.EntityChangedEvent;
 import org.bebraradar.service.ReferenceResolver;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -27,24 +29,23 @@ public class StopTimeController {
 
     private final StopTimeRepository stopTimeRepository;
     private final ReferenceResolver referenceResolver;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public StopTimeController(StopTimeRepository stopTimeRepository, ReferenceResolver referenceResolver) {
+    public StopTimeController(StopTimeRepository stopTimeRepository, ReferenceResolver referenceResolver,
+                              ApplicationEventPublisher eventPublisher) {
         this.stopTimeRepository = stopTimeRepository;
         this.referenceResolver = referenceResolver;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
     public List<StopTimeResponse> getAll() {
-        return stopTimeRepository.findAll().stream()
-            .map(StopTimeController::toDto)
-            .toList();
+        return stopTimeRepository.findAllResponses();
     }
 
     @GetMapping("/{tripId}/{stopSequence}")
     public StopTimeResponse getById(@PathVariable Long tripId, @PathVariable Integer stopSequence) {
-        StopTimeId id = new StopTimeId(tripId, stopSequence);
-        return stopTimeRepository.findById(id)
-            .map(StopTimeController::toDto)
+        return stopTimeRepository.findResponseById(tripId, stopSequence)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND,
                 "Stop time not found: " + tripId + "/" + stopSequence));
     }
@@ -64,7 +65,7 @@ public class StopTimeController {
             request.arrivalTime(),
             request.departureTime()
         );
-        return toDto(stopTimeRepository.save(stopTime));
+        return toDto(save(stopTime));
     }
 
     @PutMapping("/{tripId}/{stopSequence}")
@@ -83,7 +84,7 @@ public class StopTimeController {
         stopTime.setStop(referenceResolver.requireStop(request.stopId()));
         stopTime.setArrivalTime(request.arrivalTime());
         stopTime.setDepartureTime(request.departureTime());
-        return toDto(stopTimeRepository.save(stopTime));
+        return toDto(save(stopTime));
     }
 
     @DeleteMapping("/{tripId}/{stopSequence}")
@@ -92,12 +93,19 @@ public class StopTimeController {
         StopTimeId id = new StopTimeId(tripId, stopSequence);
         try {
             stopTimeRepository.deleteById(id);
+            eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.STOP_TIME, tripId));
         } catch (EmptyResultDataAccessException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND,
                 "Stop time not found: " + tripId + "/" + stopSequence, ex);
         }
     }
 
+    private StopTime save(StopTime entity) {
+        StopTime saved = stopTimeRepository.save(entity);
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.STOP_TIME, saved.getId().getTripId()));
+        return saved;
+    }
+
     private static StopTimeResponse toDto(StopTime stopTime) {
         return new StopTimeResponse(
             stopTime.getId().getTripId(),
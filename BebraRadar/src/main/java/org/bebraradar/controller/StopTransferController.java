@@ -0,0 +1,39 @@
+package org.bebraradar.controller;
+
+import org.bebraradar.dto.StopTransferDto;
+import org.bebraradar.repository.StopRepository;
+import org.bebraradar.service.TransferGraph;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/stops")
+public class StopTransferController {
+
+    private final TransferGraph transferGraph;
+    private final StopRepository stopRepository;
+
+    public StopTransferController(TransferGraph transferGraph, StopRepository stopRepository) {
+        this.transferGraph = transferGraph;
+        this.stopRepository = stopRepository;
+    }
+
+    // GET /stops/{stopId}/transfers
+    @GetMapping("/{stopId}/transfers")
+    public List<StopTransferDto> getTransfers(@PathVariable String stopId) {
+        List<TransferGraph.Transfer> transfers = transferGraph.transfersFrom(stopId);
+        if (transfers.isEmpty() && !stopRepository.existsById(stopId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Stop not found: " + stopId);
+        }
+        return transfers.stream()
+            .map(transfer -> new StopTransferDto(stopId, transfer.toStopId(), transfer.distanceMeters(),
+                transfer.walkSeconds()))
+            .toList();
+    }
+}
@@ -4,9 +4,16 @@ import org.bebraradar.dto.TimetableEventRequest;
 import org.bebraradar.dto.TimetableEventResponse;
 import org.bebraradar.entity.ExactTripEventTimetable;
 import org.bebraradar.repository.ExactTripEventTimetableRepository;
+import org.bebraradar.service.EventDeduplicator;
+import org.bebraradar.service.EventTable;
+import org.bebraradar.service.EventsAcceptedEvent;
+import org.bebraradar.service.EventWriteBehindService;
 import org.bebraradar.service.ReferenceResolver;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -26,31 +33,44 @@ public class TimetableEventController {
 
     private final ExactTripEventTimetableRepository repository;
     private final ReferenceResolver referenceResolver;
+    private final EventWriteBehindService writeBehind;
+    private final EventDeduplicator deduplicator;
+    private final ApplicationEventPublisher eventPublisher;
 
     public TimetableEventController(ExactTripEventTimetableRepository repository,
-                                    ReferenceResolver referenceResolver) {
+                                    ReferenceResolver referenceResolver,
+                                    EventWriteBehindService writeBehind,
+                                    EventDeduplicator deduplicator,
+                                    ApplicationEventPublisher eventPublisher) {
         this.repository = repository;
         this.referenceResolver = referenceResolver;
+        this.writeBehind = writeBehind;
+        this.deduplicator = deduplicator;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
     public List<TimetableEventResponse> getAll() {
-        return repository.findAll().stream()
-            .map(TimetableEventController::toDto)
-            .toList();
+        return repository.findAllResponses();
     }
 
     @GetMapping("/{id}")
     public TimetableEventResponse getById(@PathVariable Long id) {
-        return repository.findById(id)
-            .map(TimetableEventController::toDto)
+        return repository.findResponseById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Timetable event not found: " + id));
     }
 
     @PostMapping
-    @ResponseStatus(HttpStatus.CREATED)
-    public TimetableEventResponse create(@RequestBody TimetableEventRequest request) {
+    public ResponseEntity<TimetableEventResponse> create(@RequestBody TimetableEventRequest request) {
         validate(request);
+        if (writeBehind.isEnabled()) {
+            writeBehind.enqueueTimetableEvent(request);
+            return ResponseEntity.accepted().build();
+        }
+        String eventKey = EventDeduplicator.keyOf(request);
+        if (deduplicator.isDuplicate(EventTable.TIMETABLE, eventKey)) {
+            return ResponseEntity.ok().build();
+        }
         ExactTripEventTimetable entity = new ExactTripEventTimetable(
             referenceResolver.requireTrip(request.tripId()),
             referenceResolver.resolveUserNullable(request.userId()),
@@ -62,7 +82,19 @@ public class TimetableEventController {
             request.reportedTime()
         );
         entity.setVehicle(referenceResolver.resolveVehicleNullable(request.vehicleNo()));
-        return toDto(repository.save(entity));
+        entity.setEventKey(eventKey);
+        try {
+            entity = repository.save(entity);
+        } catch (DataIntegrityViolationException ex) {
+            if (repository.existsByEventKeyAndTimestamp(eventKey, request.timestamp())) {
+                return ResponseEntity.ok().build();
+            }
+            throw ex;
+        }
+        deduplicator.recordAfterCommit(EventTable.TIMETABLE, List.of(eventKey));
+        TimetableEventResponse response = toDto(entity);
+        eventPublisher.publishEvent(new EventsAcceptedEvent(EventTable.TIMETABLE, List.of(response)));
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
     @PutMapping("/{id}")
@@ -113,6 +145,10 @@ public class TimetableEventController {
         if (request.tripId() == null || request.timestamp() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Trip id and timestamp are required");
         }
+        if (request.eventKey() != null && request.eventKey().length() > EventDeduplicator.MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "eventKey must not exceed " + EventDeduplicator.MAX_KEY_LENGTH + " characters");
+        }
         if (request.reportedTime() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "reportedTime is required");
         }
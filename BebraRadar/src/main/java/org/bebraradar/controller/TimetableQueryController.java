@@ -1,35 +1,44 @@
 package org.bebraradar.controller;
 
-import org.bebraradar.dto.RouteDto;
-import org.bebraradar.dto.TripScheduleDto;
-import org.bebraradar.service.TimetableService;
+import org.bebraradar.service.TimetableResponseCache;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.time.LocalDate;
-import java.util.List;
 
+/**
+ * Timetable responses carry a strong ETag and Cache-Control; a matching If-None-Match is answered with 304.
+ */
 @RestController
 @RequestMapping("/timetable")
 public class TimetableQueryController {
 
-    private final TimetableService timetableService;
+    private final TimetableResponseCache responseCache;
+    private final CacheControl cacheControl;
 
-    public TimetableQueryController(TimetableService timetableService) {
-        this.timetableService = timetableService;
+    public TimetableQueryController(TimetableResponseCache responseCache,
+                                    @Value("${bebraradar.timetable.http.max-age:60s}") Duration maxAge) {
+        this.responseCache = responseCache;
+        this.cacheControl = maxAge.isZero()
+            ? CacheControl.noCache()
+            : CacheControl.maxAge(maxAge).cachePublic();
     }
 
     // GET /timetable/routes?date=YYYY-MM-DD
     // GET /timetable/routes?weekday=Mon|Tue|...
     @GetMapping("/routes")
-    public List<RouteDto> getRoutesForDay(
+    public ResponseEntity<byte[]> getRoutesForDay(
         @RequestParam(required = false)
         @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
         LocalDate date,
@@ -39,10 +48,10 @@ public class TimetableQueryController {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Provide either date or weekday");
         }
         if (date != null) {
-            return timetableService.getRoutesForDate(date);
+            return cached(responseCache.routesForDate(date));
         }
         try {
-            return timetableService.getRoutesForWeekday(weekday);
+            return cached(responseCache.routesForWeekday(weekday));
         } catch (IllegalArgumentException ex) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, ex.getMessage());
         }
@@ -50,14 +59,21 @@ public class TimetableQueryController {
 
     // GET /timetable/routes/{routeId}/trips?date=YYYY-MM-DD
     @GetMapping("/routes/{routeId}/trips")
-    public List<TripScheduleDto> getRouteTripsForDate(
+    public ResponseEntity<byte[]> getRouteTripsForDate(
         @PathVariable String routeId,
         @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date
     ) {
         if (date == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "date is required");
         }
-        return timetableService.getRouteScheduleForDate(routeId, date);
+        return cached(responseCache.routeSchedule(routeId, date));
     }
-}
 
+    private ResponseEntity<byte[]> cached(TimetableResponseCache.CachedResponse response) {
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .eTag(response.etag())
+            .cacheControl(cacheControl)
+            .body(response.body());
+    }
+}
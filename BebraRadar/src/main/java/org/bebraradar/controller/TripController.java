@@ -5,7 +5,9 @@ import org.bebraradar.dto.TripResponse;
 import org.bebraradar.entity.ShapeIdEntity;
 import org.bebraradar.entity.Trip;
 import org.bebraradar.repository.TripRepository;
+import org.bebraradar.service.EntityChangedEvent;
 import org.bebraradar.service.ReferenceResolver;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
@@ -28,23 +30,24 @@ public class TripController {
 
     private final TripRepository tripRepository;
     private final ReferenceResolver referenceResolver;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public TripController(TripRepository tripRepository, ReferenceResolver referenceResolver) {
+    public TripController(TripRepository tripRepository,
+                          ReferenceResolver referenceResolver,
+                          ApplicationEventPublisher eventPublisher) {
         this.tripRepository = tripRepository;
         this.referenceResolver = referenceResolver;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
     public List<TripResponse> getAll() {
-        return tripRepository.findAll().stream()
-            .map(TripController::toDto)
-            .toList();
+        return tripRepository.findAllResponses();
     }
 
     @GetMapping("/{id}")
     public TripResponse getById(@PathVariable Long id) {
-        return tripRepository.findById(id)
-            .map(TripController::toDto)
+        return tripRepository.findResponseById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Trip not found: " + id));
     }
 
@@ -58,7 +61,7 @@ public class TripController {
             referenceResolver.requireCalendar(request.serviceId()),
             referenceResolver.resolveShapeNullable(request.shapeId())
         );
-        return toDto(tripRepository.save(trip));
+        return toDto(save(trip));
     }
 
     @PutMapping("/{id}")
@@ -66,7 +69,7 @@ public class TripController {
         Trip trip = tripRepository.findById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Trip not found: " + id));
         apply(trip, request);
-        return toDto(tripRepository.save(trip));
+        return toDto(save(trip));
     }
 
     @DeleteMapping("/{id}")
@@ -74,6 +77,7 @@ public class TripController {
     public void delete(@PathVariable Long id) {
         try {
             tripRepository.deleteById(id);
+            eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.TRIP, id));
         } catch (EmptyResultDataAccessException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Trip not found: " + id, ex);
         } catch (DataIntegrityViolationException ex) {
@@ -81,6 +85,12 @@ public class TripController {
         }
     }
 
+    private Trip save(Trip entity) {
+        Trip saved = tripRepository.save(entity);
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.TRIP, saved.getId()));
+        return saved;
+    }
+
     private void apply(Trip trip, TripRequest request) {
         validate(request);
         trip.setRoute(referenceResolver.requireRoute(request.routeId()));
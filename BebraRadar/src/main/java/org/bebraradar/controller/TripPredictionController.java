@@ -0,0 +1,31 @@
+package org.bebraradar.controller;
+
+import org.bebraradar.dto.TripPredictionDto;
+import org.bebraradar.service.TripPredictionService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+@RestController
+@RequestMapping("/trips")
+public class TripPredictionController {
+
+    private final TripPredictionService predictionService;
+
+    public TripPredictionController(TripPredictionService predictionService) {
+        this.predictionService = predictionService;
+    }
+
+    // GET /trips/{tripId}/predictions
+    @GetMapping("/{tripId}/predictions")
+    public TripPredictionDto getPredictions(@PathVariable Long tripId) {
+        TripPredictionDto predictions = predictionService.predictions(tripId);
+        if (predictions == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No predictions for trip: " + tripId);
+        }
+        return predictions;
+    }
+}
@@ -4,6 +4,8 @@ import org.bebraradar.dto.UserRequest;
 import org.bebraradar.dto.UserResponse;
 import org.bebraradar.entity.UserAccount;
 import org.bebraradar.repository.UserAccountRepository;
+import org.bebraradar.service.EntityChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.EmptyResultDataAccessException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -24,9 +26,12 @@ import java.util.List;
 public class UserAccountController {
 
     private final UserAccountRepository userAccountRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserAccountController(UserAccountRepository userAccountRepository) {
+    public UserAccountController(UserAccountRepository userAccountRepository,
+                                 ApplicationEventPublisher eventPublisher) {
         this.userAccountRepository = userAccountRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @GetMapping
@@ -48,7 +53,7 @@ public class UserAccountController {
     public UserResponse create(@RequestBody UserRequest request) {
         validate(request);
         UserAccount entity = new UserAccount(request.trustLevel());
-        return toDto(userAccountRepository.save(entity));
+        return toDto(save(entity));
     }
 
     @PutMapping("/{id}")
@@ -57,7 +62,7 @@ public class UserAccountController {
         UserAccount entity = userAccountRepository.findById(id)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found: " + id));
         entity.setTrustLevel(request.trustLevel());
-        return toDto(userAccountRepository.save(entity));
+        return toDto(save(entity));
     }
 
     @DeleteMapping("/{id}")
@@ -65,11 +70,18 @@ public class UserAccountController {
     public void delete(@PathVariable Long id) {
         try {
             userAccountRepository.deleteById(id);
+            eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.USER, id));
         } catch (EmptyResultDataAccessException ex) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found: " + id, ex);
         }
     }
 
+    private UserAccount save(UserAccount entity) {
+        UserAccount saved = userAccountRepository.save(entity);
+        eventPublisher.publishEvent(new EntityChangedEvent(EntityChangedEvent.Kind.USER, saved.getId()));
+        return saved;
+    }
+
     private static void validate(UserRequest request) {
         if (request.trustLevel() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "trustLevel is required");
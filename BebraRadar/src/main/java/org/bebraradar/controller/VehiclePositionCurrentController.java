@@ -2,36 +2,40 @@ package org.bebraradar.controller;
 
 import org.bebraradar.dto.VehiclePositionRequest;
 import org.bebraradar.dto.VehiclePositionResponse;
-import org.bebraradar.entity.VehiclePositionCurrent;
-import org.bebraradar.repository.VehiclePositionCurrentRepository;
+import org.bebraradar.service.LiveVehicleState;
+import org.bebraradar.service.LiveVehicleStore;
 import org.bebraradar.service.ReferenceResolver;
-import org.springframework.dao.EmptyResultDataAccessException;
+import org.bebraradar.service.Timestamps;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.util.Comparator;
 import java.util.List;
 
 @RestController
 @RequestMapping("/vehicle-positions")
 public class VehiclePositionCurrentController {
 
-    private final VehiclePositionCurrentRepository repository;
+    private final LiveVehicleStore store;
     private final ReferenceResolver resolver;
 
-    public VehiclePositionCurrentController(VehiclePositionCurrentRepository repository, ReferenceResolver resolver) {
-        this.repository = repository;
+    public VehiclePositionCurrentController(LiveVehicleStore store, ReferenceResolver resolver) {
+        this.store = store;
         this.resolver = resolver;
     }
 
     @GetMapping
     public List<VehiclePositionResponse> getAll() {
-        return repository.findAll().stream().map(VehiclePositionCurrentController::toDto).toList();
+        return store.all().stream()
+            .sorted(Comparator.comparing(LiveVehicleState::vehicleNo))
+            .map(VehiclePositionCurrentController::toDto)
+            .toList();
     }
 
     @GetMapping("/{vehicleNo}")
     public VehiclePositionResponse getById(@PathVariable String vehicleNo) {
-        return repository.findById(vehicleNo)
+        return store.get(vehicleNo)
             .map(VehiclePositionCurrentController::toDto)
             .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Vehicle not found: " + vehicleNo));
     }
@@ -40,11 +44,13 @@ public class VehiclePositionCurrentController {
     @ResponseStatus(HttpStatus.CREATED)
     public VehiclePositionResponse create(@RequestBody VehiclePositionRequest request) {
         validate(request);
-        if (repository.existsById(request.vehicleNo())) {
+        if (store.contains(request.vehicleNo())) {
             throw new ResponseStatusException(HttpStatus.CONFLICT, "Vehicle already exists: " + request.vehicleNo());
         }
-        VehiclePositionCurrent entity = apply(new VehiclePositionCurrent(), request);
-        return toDto(repository.save(entity));
+        resolver.requireTrip(request.tripId());
+        LiveVehicleState state = toState(request.vehicleNo(), request);
+        store.insert(state);
+        return toDto(state);
     }
 
     @PutMapping("/{vehicleNo}")
@@ -52,56 +58,65 @@ public class VehiclePositionCurrentController {
         if (request.vehicleNo() != null && !vehicleNo.equals(request.vehicleNo())) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Vehicle number mismatch");
         }
-        VehiclePositionCurrent entity = repository.findById(vehicleNo).orElse(new VehiclePositionCurrent());
-        entity.setVehicleNo(vehicleNo);
-        entity = apply(entity, request);
-        return toDto(repository.save(entity));
+        validateFields(request);
+        LiveVehicleState current = store.get(vehicleNo).orElse(null);
+        if (current == null || current.tripId() != request.tripId()) {
+            resolver.requireTrip(request.tripId());
+        }
+        LiveVehicleState state = toState(vehicleNo, request);
+        if (current == null || !store.update(state)) {
+            store.insert(state);
+        }
+        return toDto(state);
     }
 
     @DeleteMapping("/{vehicleNo}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void delete(@PathVariable String vehicleNo) {
-        try {
-            repository.deleteById(vehicleNo);
-        } catch (EmptyResultDataAccessException ex) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Vehicle not found: " + vehicleNo, ex);
+        if (!store.contains(vehicleNo)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Vehicle not found: " + vehicleNo);
         }
+        store.delete(vehicleNo);
     }
 
-    private VehiclePositionCurrent apply(VehiclePositionCurrent entity, VehiclePositionRequest request) {
-        entity.setVehicleNo(request.vehicleNo());
-        entity.setTrip(resolver.requireTrip(request.tripId()));
-        entity.setTimestamp(request.timestamp());
-        entity.setLastStopTimestamp(request.lastStopTimestamp());
-        entity.setLatitude(request.latitude());
-        entity.setLongitude(request.longitude());
-        entity.setSpeedMps(request.speedMps());
-        entity.setBearingDeg(request.bearingDeg());
-        entity.setGpsAccuracyMeters(request.gpsAccuracyMeters());
-        return entity;
+    private static LiveVehicleState toState(String vehicleNo, VehiclePositionRequest request) {
+        return new LiveVehicleState(
+            vehicleNo,
+            request.tripId(),
+            Timestamps.toMicros(request.timestamp()),
+            Timestamps.toMicros(request.lastStopTimestamp()),
+            LiveVehicleState.toPrimitive(request.latitude()),
+            LiveVehicleState.toPrimitive(request.longitude()),
+            LiveVehicleState.toPrimitive(request.speedMps()),
+            LiveVehicleState.toPrimitive(request.bearingDeg()),
+            LiveVehicleState.toPrimitive(request.gpsAccuracyMeters())
+        );
     }
 
     private static void validate(VehiclePositionRequest request) {
         if (request.vehicleNo() == null || request.vehicleNo().isBlank()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "vehicleNo is required");
         }
+        validateFields(request);
+    }
+
+    private static void validateFields(VehiclePositionRequest request) {
         if (request.tripId() == null || request.timestamp() == null || request.lastStopTimestamp() == null) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "tripId, timestamp, lastStopTimestamp are required");
         }
     }
 
-    private static VehiclePositionResponse toDto(VehiclePositionCurrent entity) {
+    private static VehiclePositionResponse toDto(LiveVehicleState state) {
         return new VehiclePositionResponse(
-            entity.getVehicleNo(),
-            entity.getTrip().getId(),
-            entity.getTimestamp(),
-            entity.getLastStopTimestamp(),
-            entity.getLatitude(),
-            entity.getLongitude(),
-            entity.getSpeedMps(),
-            entity.getBearingDeg(),
-            entity.getGpsAccuracyMeters()
+            state.vehicleNo(),
+            state.tripId(),
+            Timestamps.fromMicros(state.timestampMicros()),
+            Timestamps.fromMicros(state.lastStopTimestampMicros()),
+            LiveVehicleState.toBoxed(state.latitude()),
+            LiveVehicleState.toBoxed(state.longitude()),
+            LiveVehicleState.toBoxed(state.speedMps()),
+            LiveVehicleState.toBoxed(state.bearingDeg()),
+            LiveVehicleState.toBoxed(state.gpsAccuracyMeters())
         );
     }
 }
-
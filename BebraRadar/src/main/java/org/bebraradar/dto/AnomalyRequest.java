@@ -10,5 +10,13 @@ public record AnomalyRequest(Long tripId,
                              Double longitude,
                              Double gpsAccuracyMeters,
                              String type,
-                             Double estimatedDelay) {
+                             Double estimatedDelay,
+                             String eventKey) implements EventRequest {
+
+    @Override
+    public AnomalyResponse toResponse(Long id) {
+        String vehicle = vehicleNo == null || vehicleNo.isBlank() ? null : vehicleNo;
+        return new AnomalyResponse(id, tripId, vehicle, userId, timestamp, latitude, longitude, gpsAccuracyMeters,
+            type, estimatedDelay);
+    }
 }
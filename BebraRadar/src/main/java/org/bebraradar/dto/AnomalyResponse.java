@@ -11,5 +11,5 @@ public record AnomalyResponse(Long id,
                               Double longitude,
                               Double gpsAccuracyMeters,
                               String type,
-                              Double estimatedDelay) {
+                              Double estimatedDelay) implements EventResponse {
 }
@@ -0,0 +1,6 @@
+package org.bebraradar.dto;
+
+import java.util.List;
+
+public record BatchIngestResponse(int accepted, int duplicates, int rejected, List<BatchItemResult> items) {
+}
@@ -0,0 +1,22 @@
+package org.bebraradar.dto;
+
+public record BatchItemResult(int index, Status status, Long id, String error) {
+
+    public enum Status {
+        ACCEPTED,
+        DUPLICATE,
+        REJECTED
+    }
+
+    public static BatchItemResult accepted(int index, Long id) {
+        return new BatchItemResult(index, Status.ACCEPTED, id, null);
+    }
+
+    public static BatchItemResult duplicate(int index) {
+        return new BatchItemResult(index, Status.DUPLICATE, null, null);
+    }
+
+    public static BatchItemResult rejected(int index, String error) {
+        return new BatchItemResult(index, Status.REJECTED, null, error);
+    }
+}
@@ -0,0 +1,4 @@
+package org.bebraradar.dto;
+
+public record BulkLoadResponse(String table, long rows, long elapsedMillis) {
+}
@@ -0,0 +1,8 @@
+package org.bebraradar.dto;
+
+import java.time.LocalDate;
+
+public record CalendarDateDto(String serviceId,
+                              LocalDate date,
+                              Integer exceptionType) {
+}
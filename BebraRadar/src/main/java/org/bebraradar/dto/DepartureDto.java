@@ -0,0 +1,15 @@
+package org.bebraradar.dto;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+public record DepartureDto(
+    Long tripId,
+    String routeId,
+    String headsign,
+    String stopId,
+    Integer stopSequence,
+    LocalDate serviceDate,
+    Integer departureTime,
+    OffsetDateTime departure
+) {}
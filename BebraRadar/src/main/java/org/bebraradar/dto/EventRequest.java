@@ -0,0 +1,26 @@
+package org.bebraradar.dto;
+
+import java.time.OffsetDateTime;
+
+public interface EventRequest {
+
+    Long tripId();
+
+    String vehicleNo();
+
+    Long userId();
+
+    OffsetDateTime timestamp();
+
+    Double latitude();
+
+    Double longitude();
+
+    Double gpsAccuracyMeters();
+
+    String type();
+
+    String eventKey();
+
+    EventResponse toResponse(Long id);
+}
@@ -0,0 +1,24 @@
+package org.bebraradar.dto;
+
+import java.time.OffsetDateTime;
+
+public interface EventResponse {
+
+    Long id();
+
+    Long tripId();
+
+    String vehicleNo();
+
+    Long userId();
+
+    OffsetDateTime timestamp();
+
+    Double latitude();
+
+    Double longitude();
+
+    Double gpsAccuracyMeters();
+
+    String type();
+}
@@ -9,5 +9,13 @@ public record GeoEventRequest(Long tripId,
                               Double latitude,
                               Double longitude,
                               Double gpsAccuracyMeters,
-                              String type) {
+                              String type,
+                              String eventKey) implements EventRequest {
+
+    @Override
+    public GeoEventResponse toResponse(Long id) {
+        String vehicle = vehicleNo == null || vehicleNo.isBlank() ? null : vehicleNo;
+        return new GeoEventResponse(id, tripId, vehicle, userId, timestamp, latitude, longitude, gpsAccuracyMeters,
+            type);
+    }
 }
@@ -10,5 +10,5 @@ public record GeoEventResponse(Long id,
                                Double latitude,
                                Double longitude,
                                Double gpsAccuracyMeters,
-                               String type) {
+                               String type) implements EventResponse {
 }
@@ -0,0 +1,20 @@
+package org.bebraradar.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * A vehicle inferred from passenger positions, predicted to {@code timestamp}. {@code distanceAlong} is measured
+ * along the trip's shape and {@code distanceStdDev} is its uncertainty, both in meters.
+ */
+public record InferredVehicleDto(
+    String vehicleNo,
+    Long tripId,
+    OffsetDateTime timestamp,
+    OffsetDateTime updatedAt,
+    Double distanceAlong,
+    Double distanceStdDev,
+    Double latitude,
+    Double longitude,
+    Double speedMps,
+    Double bearingDeg
+) {}
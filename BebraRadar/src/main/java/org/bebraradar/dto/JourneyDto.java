@@ -0,0 +1,12 @@
+package org.bebraradar.dto;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+
+public record JourneyDto(
+    OffsetDateTime departure,
+    OffsetDateTime arrival,
+    Integer transfers,
+    Long durationSeconds,
+    List<JourneyLegDto> legs
+) {}
@@ -0,0 +1,18 @@
+package org.bebraradar.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * One ride ({@code TRANSIT}) or walk between nearby stops ({@code WALK}, without trip and route).
+ */
+public record JourneyLegDto(
+    String mode,
+    Long tripId,
+    String routeId,
+    String fromStopId,
+    String fromStopName,
+    OffsetDateTime departure,
+    String toStopId,
+    String toStopName,
+    OffsetDateTime arrival
+) {}
@@ -0,0 +1,9 @@
+package org.bebraradar.dto;
+
+public record NearbyStopDto(
+    String id,
+    String name,
+    Double latitude,
+    Double longitude,
+    Double distanceMeters
+) {}
@@ -0,0 +1,12 @@
+package org.bebraradar.dto;
+
+/**
+ * {@code polyline} uses the Google encoded polyline format (precision 1e5).
+ */
+public record ShapeGeometryDto(
+    String shapeId,
+    Integer zoom,
+    Integer pointCount,
+    Integer originalPointCount,
+    String polyline
+) {}
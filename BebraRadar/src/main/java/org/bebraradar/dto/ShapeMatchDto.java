@@ -0,0 +1,10 @@
+package org.bebraradar.dto;
+
+/**
+ * {@code crossTrack} and {@code segment} are null when the shape has fewer than two points.
+ */
+public record ShapeMatchDto(
+    Double distanceAlong,
+    Double crossTrack,
+    Integer segment
+) {}
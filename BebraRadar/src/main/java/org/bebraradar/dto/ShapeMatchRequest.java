@@ -0,0 +1,5 @@
+package org.bebraradar.dto;
+
+public record ShapeMatchRequest(Double latitude,
+                                Double longitude) {
+}
@@ -0,0 +1,18 @@
+package org.bebraradar.dto;
+
+import java.time.OffsetDateTime;
+
+/**
+ * Scheduled and predicted times of a stop still ahead of the vehicle; delays are in seconds, negative when early.
+ */
+public record StopPredictionDto(
+    Integer stopSequence,
+    String stopId,
+    String stopName,
+    OffsetDateTime scheduledArrival,
+    OffsetDateTime scheduledDeparture,
+    OffsetDateTime predictedArrival,
+    OffsetDateTime predictedDeparture,
+    Long arrivalDelaySeconds,
+    Long departureDelaySeconds
+) {}
@@ -0,0 +1,8 @@
+package org.bebraradar.dto;
+
+public record StopTransferDto(
+    String fromStopId,
+    String toStopId,
+    Double distanceMeters,
+    Integer walkSeconds
+) {}
@@ -10,5 +10,13 @@ public record TimetableEventRequest(Long tripId,
                                     Double longitude,
                                     Double gpsAccuracyMeters,
                                     String type,
-                                    OffsetDateTime reportedTime) {
+                                    OffsetDateTime reportedTime,
+                                    String eventKey) implements EventRequest {
+
+    @Override
+    public TimetableEventResponse toResponse(Long id) {
+        String vehicle = vehicleNo == null || vehicleNo.isBlank() ? null : vehicleNo;
+        return new TimetableEventResponse(id, tripId, vehicle, userId, timestamp, latitude, longitude, gpsAccuracyMeters,
+            type, reportedTime);
+    }
 }
@@ -11,5 +11,5 @@ public record TimetableEventResponse(Long id,
                                      Double longitude,
                                      Double gpsAccuracyMeters,
                                      String type,
-                                     OffsetDateTime reportedTime) {
+                                     OffsetDateTime reportedTime) implements EventResponse {
 }
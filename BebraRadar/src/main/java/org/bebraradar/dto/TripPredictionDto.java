@@ -0,0 +1,20 @@
+package org.bebraradar.dto;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.List;
+
+/**
+ * Predictions for the downstream stops of a trip, made from the position {@code vehicleNo} reported at
+ * {@code timestamp}. {@code distanceAlong} is that position along the trip's shape in meters and
+ * {@code delaySeconds} how far behind the schedule it was there.
+ */
+public record TripPredictionDto(
+    Long tripId,
+    String vehicleNo,
+    LocalDate serviceDate,
+    OffsetDateTime timestamp,
+    Double distanceAlong,
+    Long delaySeconds,
+    List<StopPredictionDto> stops
+) {}
@@ -0,0 +1,62 @@
+package org.bebraradar.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.MapsId;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "calendar_dates")
+public class CalendarDate {
+
+    public static final int SERVICE_ADDED = 1;
+    public static final int SERVICE_REMOVED = 2;
+
+    @EmbeddedId
+    private CalendarDateId id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @MapsId("serviceId")
+    @JoinColumn(name = "service_id", nullable = false)
+    private ServiceCalendar service;
+
+    @Column(name = "exception_type", nullable = false)
+    private Short exceptionType;
+
+    protected CalendarDate() {
+    }
+
+    public CalendarDate(CalendarDateId id, ServiceCalendar service, Short exceptionType) {
+        this.id = id;
+        this.service = service;
+        this.exceptionType = exceptionType;
+    }
+
+    public CalendarDateId getId() {
+        return id;
+    }
+
+    public void setId(CalendarDateId id) {
+        this.id = id;
+    }
+
+    public ServiceCalendar getService() {
+        return service;
+    }
+
+    public void setService(ServiceCalendar service) {
+        this.service = service;
+    }
+
+    public Short getExceptionType() {
+        return exceptionType;
+    }
+
+    public void setExceptionType(Short exceptionType) {
+        this.exceptionType = exceptionType;
+    }
+}
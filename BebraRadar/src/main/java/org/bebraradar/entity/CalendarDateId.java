@@ -0,0 +1,59 @@
+package org.bebraradar.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Objects;
+
+@Embeddable
+public class CalendarDateId implements Serializable {
+
+    @Column(name = "service_id")
+    private String serviceId;
+
+    @Column(name = "date")
+    private LocalDate date;
+
+    protected CalendarDateId() {
+    }
+
+    public CalendarDateId(String serviceId, LocalDate date) {
+        this.serviceId = serviceId;
+        this.date = date;
+    }
+
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    public void setServiceId(String serviceId) {
+        this.serviceId = serviceId;
+    }
+
+    public LocalDate getDate() {
+        return date;
+    }
+
+    public void setDate(LocalDate date) {
+        this.date = date;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof CalendarDateId that)) {
+            return false;
+        }
+        return Objects.equals(serviceId, that.serviceId)
+            && Objects.equals(date, that.date);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(serviceId, date);
+    }
+}
@@ -51,6 +51,9 @@ public class ExactTripAnomaly {
     @Column(name = "estimated_delay")
     private Double estimatedDelay;
 
+    @Column(name = "event_key")
+    private String eventKey;
+
     protected ExactTripAnomaly() {
     }
 
@@ -141,4 +144,12 @@ public class ExactTripAnomaly {
     public void setEstimatedDelay(Double estimatedDelay) {
         this.estimatedDelay = estimatedDelay;
     }
+
+    public String getEventKey() {
+        return eventKey;
+    }
+
+    public void setEventKey(String eventKey) {
+        this.eventKey = eventKey;
+    }
 }
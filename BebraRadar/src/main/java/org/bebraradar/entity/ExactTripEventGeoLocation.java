@@ -48,6 +48,9 @@ public class ExactTripEventGeoLocation {
     @Column(name = "type")
     private String type;
 
+    @Column(name = "event_key")
+    private String eventKey;
+
     protected ExactTripEventGeoLocation() {
     }
 
@@ -129,4 +132,12 @@ public class ExactTripEventGeoLocation {
     public void setType(String type) {
         this.type = type;
     }
+
+    public String getEventKey() {
+        return eventKey;
+    }
+
+    public void setEventKey(String eventKey) {
+        this.eventKey = eventKey;
+    }
 }
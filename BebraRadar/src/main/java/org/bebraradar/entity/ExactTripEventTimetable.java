@@ -51,6 +51,9 @@ public class ExactTripEventTimetable {
     @Column(name = "time")
     private OffsetDateTime reportedTime;
 
+    @Column(name = "event_key")
+    private String eventKey;
+
     protected ExactTripEventTimetable() {
     }
 
@@ -141,4 +144,12 @@ public class ExactTripEventTimetable {
     public void setReportedTime(OffsetDateTime reportedTime) {
         this.reportedTime = reportedTime;
     }
+
+    public String getEventKey() {
+        return eventKey;
+    }
+
+    public void setEventKey(String eventKey) {
+        this.eventKey = eventKey;
+    }
 }
@@ -0,0 +1,57 @@
+package org.bebraradar.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+
+/**
+ * Walking transfer between two nearby stops. Rows are derived from stop coordinates by
+ * {@link org.bebraradar.service.TransferGraph} and rewritten when stops change.
+ */
+@Entity
+@Table(name = "stop_transfers")
+public class StopTransfer {
+
+    @EmbeddedId
+    private StopTransferId id;
+
+    @Column(name = "distance_m", nullable = false)
+    private Double distanceMeters;
+
+    @Column(name = "walk_seconds", nullable = false)
+    private Integer walkSeconds;
+
+    protected StopTransfer() {
+    }
+
+    public StopTransfer(StopTransferId id, Double distanceMeters, Integer walkSeconds) {
+        this.id = id;
+        this.distanceMeters = distanceMeters;
+        this.walkSeconds = walkSeconds;
+    }
+
+    public StopTransferId getId() {
+        return id;
+    }
+
+    public void setId(StopTransferId id) {
+        this.id = id;
+    }
+
+    public Double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    public void setDistanceMeters(Double distanceMeters) {
+        this.distanceMeters = distanceMeters;
+    }
+
+    public Integer getWalkSeconds() {
+        return walkSeconds;
+    }
+
+    public void setWalkSeconds(Integer walkSeconds) {
+        this.walkSeconds = walkSeconds;
+    }
+}
@@ -0,0 +1,58 @@
+package org.bebraradar.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+@Embeddable
+public class StopTransferId implements Serializable {
+
+    @Column(name = "from_stop_id")
+    private String fromStopId;
+
+    @Column(name = "to_stop_id")
+    private String toStopId;
+
+    protected StopTransferId() {
+    }
+
+    public StopTransferId(String fromStopId, String toStopId) {
+        this.fromStopId = fromStopId;
+        this.toStopId = toStopId;
+    }
+
+    public String getFromStopId() {
+        return fromStopId;
+    }
+
+    public void setFromStopId(String fromStopId) {
+        this.fromStopId = fromStopId;
+    }
+
+    public String getToStopId() {
+        return toStopId;
+    }
+
+    public void setToStopId(String toStopId) {
+        this.toStopId = toStopId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StopTransferId that)) {
+            return false;
+        }
+        return Objects.equals(fromStopId, that.fromStopId)
+            && Objects.equals(toStopId, that.toStopId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fromStopId, toStopId);
+    }
+}
@@ -0,0 +1,8 @@
+package org.bebraradar.repository;
+
+import org.bebraradar.entity.CalendarDate;
+import org.bebraradar.entity.CalendarDateId;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface CalendarDateRepository extends JpaRepository<CalendarDate, CalendarDateId> {
+}
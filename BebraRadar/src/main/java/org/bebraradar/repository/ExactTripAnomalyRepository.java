@@ -1,12 +1,26 @@
 package org.bebraradar.repository;
 
+import org.bebraradar.dto.AnomalyResponse;
 import org.bebraradar.entity.ExactTripAnomaly;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ExactTripAnomalyRepository extends JpaRepository<ExactTripAnomaly, Long> {
 
-    List<ExactTripAnomaly> findByTimestampGreaterThanEqualOrderByTimestampDesc(OffsetDateTime since);
+    String RESPONSE_SELECT = "select new org.bebraradar.dto.AnomalyResponse("
+        + "e.id, e.trip.id, e.vehicle.vehicleNo, e.user.id, e.timestamp, e.latitude, e.longitude, "
+        + "e.gpsAccuracyMeters, e.type, e.estimatedDelay) from ExactTripAnomaly e";
+
+    @Query(RESPONSE_SELECT)
+    List<AnomalyResponse> findAllResponses();
+
+    @Query(RESPONSE_SELECT + " where e.id = :id")
+    Optional<AnomalyResponse> findResponseById(@Param("id") Long id);
+
+    boolean existsByEventKeyAndTimestamp(String eventKey, OffsetDateTime timestamp);
 }
@@ -1,12 +1,26 @@
 package org.bebraradar.repository;
 
+import org.bebraradar.dto.GeoEventResponse;
 import org.bebraradar.entity.ExactTripEventGeoLocation;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ExactTripEventGeoLocationRepository extends JpaRepository<ExactTripEventGeoLocation, Long> {
 
-    List<ExactTripEventGeoLocation> findByTimestampGreaterThanEqualOrderByTimestampDesc(OffsetDateTime since);
+    String RESPONSE_SELECT = "select new org.bebraradar.dto.GeoEventResponse("
+        + "e.id, e.trip.id, e.vehicle.vehicleNo, e.user.id, e.timestamp, e.latitude, e.longitude, "
+        + "e.gpsAccuracyMeters, e.type) from ExactTripEventGeoLocation e";
+
+    @Query(RESPONSE_SELECT)
+    List<GeoEventResponse> findAllResponses();
+
+    @Query(RESPONSE_SELECT + " where e.id = :id")
+    Optional<GeoEventResponse> findResponseById(@Param("id") Long id);
+
+    boolean existsByEventKeyAndTimestamp(String eventKey, OffsetDateTime timestamp);
 }
@@ -1,12 +1,26 @@
 package org.bebraradar.repository;
 
+import org.bebraradar.dto.TimetableEventResponse;
 import org.bebraradar.entity.ExactTripEventTimetable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.OffsetDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface ExactTripEventTimetableRepository extends JpaRepository<ExactTripEventTimetable, Long> {
 
-    List<ExactTripEventTimetable> findByTimestampGreaterThanEqualOrderByTimestampDesc(OffsetDateTime since);
+    String RESPONSE_SELECT = "select new org.bebraradar.dto.TimetableEventResponse("
+        + "e.id, e.trip.id, e.vehicle.vehicleNo, e.user.id, e.timestamp, e.latitude, e.longitude, "
+        + "e.gpsAccuracyMeters, e.type, e.reportedTime) from ExactTripEventTimetable e";
+
+    @Query(RESPONSE_SELECT)
+    List<TimetableEventResponse> findAllResponses();
+
+    @Query(RESPONSE_SELECT + " where e.id = :id")
+    Optional<TimetableEventResponse> findResponseById(@Param("id") Long id);
+
+    boolean existsByEventKeyAndTimestamp(String eventKey, OffsetDateTime timestamp);
 }
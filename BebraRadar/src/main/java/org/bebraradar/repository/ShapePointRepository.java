@@ -1,8 +1,16 @@
 package org.bebraradar.repository;
 
+import org.bebraradar.dto.ShapePointResponse;
 import org.bebraradar.entity.ShapePoint;
 import org.bebraradar.entity.ShapePointId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface ShapePointRepository extends JpaRepository<ShapePoint, ShapePointId> {
+
+    @Query("select new org.bebraradar.dto.ShapePointResponse("
+        + "sp.id.shapeId, sp.id.sequence, sp.latitude, sp.longitude, sp.distanceTraveled) "
+        + "from ShapePoint sp where sp.id.shapeId = :shapeId order by sp.id.sequence")
+    java.util.List<ShapePointResponse> findResponsesByShapeId(@Param("shapeId") String shapeId);
 }
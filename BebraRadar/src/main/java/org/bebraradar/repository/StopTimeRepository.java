@@ -1,10 +1,21 @@
 package org.bebraradar.repository;
 
+import org.bebraradar.dto.StopTimeResponse;
 import org.bebraradar.entity.StopTime;
 import org.bebraradar.entity.StopTimeId;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface StopTimeRepository extends JpaRepository<StopTime, StopTimeId> {
 
-    java.util.List<StopTime> findByTrip_IdOrderById_StopSequenceAsc(Long tripId);
+    String RESPONSE_SELECT = "select new org.bebraradar.dto.StopTimeResponse("
+        + "st.id.tripId, st.id.stopSequence, st.stop.id, st.arrivalTime, st.departureTime) from StopTime st";
+
+    @Query(RESPONSE_SELECT)
+    java.util.List<StopTimeResponse> findAllResponses();
+
+    @Query(RESPONSE_SELECT + " where st.id.tripId = :tripId and st.id.stopSequence = :stopSequence")
+    java.util.Optional<StopTimeResponse> findResponseById(@Param("tripId") Long tripId,
+                                                          @Param("stopSequence") Integer stopSequence);
 }
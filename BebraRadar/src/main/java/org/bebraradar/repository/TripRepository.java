@@ -1,11 +1,22 @@
 package org.bebraradar.repository;
 
+import org.bebraradar.dto.TripResponse;
 import org.bebraradar.entity.Trip;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 public interface TripRepository extends JpaRepository<Trip, Long> {
 
-    java.util.List<Trip> findByService_IdIn(java.util.Collection<String> serviceIds);
+    String RESPONSE_SELECT = "select new org.bebraradar.dto.TripResponse("
+        + "t.id, t.route.id, t.startTime, t.service.id, t.shape.id) from Trip t";
 
-    java.util.List<Trip> findByRoute_IdAndService_IdIn(String routeId, java.util.Collection<String> serviceIds);
+    @Query(RESPONSE_SELECT)
+    java.util.List<TripResponse> findAllResponses();
+
+    @Query(RESPONSE_SELECT + " where t.id = :id")
+    java.util.Optional<TripResponse> findResponseById(@Param("id") Long id);
+
+    @Query("select t.id from Trip t where t.id in :ids")
+    java.util.List<Long> findExistingIds(@Param("ids") java.util.Collection<Long> ids);
 }
@@ -2,6 +2,14 @@ package org.bebraradar.repository;
 
 import org.bebraradar.entity.UserAccount;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 public interface UserAccountRepository extends JpaRepository<UserAccount, Long> {
+
+    @Query("select u.id from UserAccount u where u.id in :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
 }
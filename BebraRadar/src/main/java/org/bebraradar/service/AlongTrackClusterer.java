@@ -0,0 +1,323 @@
+package org.bebraradar.service;
+
+import java.util.Arrays;
+import java.util.function.LongToDoubleFunction;
+
+/**
+ * Gap clustering of positions along a shape over a sliding window of time bins, without allocating once its
+ * buffers have grown to the trip's load. Pending positions are appended to parallel primitive arrays; closing a
+ * bin partitions its positions out of the window in place, sorts them with their user ids and weights and walks
+ * the sorted run once, so weighted medians and extents are read straight from it. Results stay in reusable arrays
+ * until the next close.
+ */
+final class AlongTrackClusterer {
+
+    static final long NO_USER = -1;
+
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+
+    private final double gap;
+    private final int minUsers;
+
+    // open window, in arrival order
+    private double[] positions = new double[16];
+    private long[] timestamps = new long[16];
+    private long[] users = new long[16];
+    private int size;
+
+    // positions of the last closed bin, sorted along the shape
+    private double[] binPositions = new double[16];
+    private long[] binUsers = new long[16];
+    private double[] binWeights = new double[16];
+    private int binSize;
+    private long binLatest;
+
+    // clusters of the last closed bin
+    private double[] centers = new double[4];
+    private double[] spreads = new double[4];
+    private int[] userCounts = new int[4];
+    private double[] effectiveCounts = new double[4];
+    private int[] memberFrom = new int[4];
+    private int[] memberTo = new int[4];
+    private int clusterCount;
+
+    private long[] scratchUsers = new long[16];
+
+    AlongTrackClusterer(double gap, int minUsers) {
+        this.gap = gap;
+        this.minUsers = minUsers;
+    }
+
+    void add(long timestamp, double position, long user) {
+        if (size == positions.length) {
+            positions = Arrays.copyOf(positions, size * 2);
+            timestamps = Arrays.copyOf(timestamps, size * 2);
+            users = Arrays.copyOf(users, size * 2);
+        }
+        positions[size] = position;
+        timestamps[size] = timestamp;
+        users[size] = user;
+        size++;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Earliest timestamp still in the window; only meaningful when it is not empty.
+     */
+    long oldestTimestamp() {
+        long oldest = Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            oldest = Math.min(oldest, timestamps[i]);
+        }
+        return oldest;
+    }
+
+    /**
+     * Takes the positions with {@code from <= timestamp < to} out of the window and clusters them. Each position
+     * weighs in with the non-negative weight of its user.
+     *
+     * @return the number of clusters, readable through the accessors until the next call
+     */
+    int close(long from, long to, LongToDoubleFunction weights) {
+        binSize = 0;
+        binLatest = Long.MIN_VALUE;
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            long timestamp = timestamps[i];
+            if (timestamp >= from && timestamp < to) {
+                if (binSize == binPositions.length) {
+                    binPositions = Arrays.copyOf(binPositions, binSize * 2);
+                    binUsers = Arrays.copyOf(binUsers, binSize * 2);
+                    binWeights = Arrays.copyOf(binWeights, binSize * 2);
+                }
+                binPositions[binSize] = positions[i];
+                binUsers[binSize] = users[i];
+                binWeights[binSize] = weights.applyAsDouble(users[i]);
+                binSize++;
+                binLatest = Math.max(binLatest, timestamp);
+            } else {
+                positions[kept] = positions[i];
+                timestamps[kept] = timestamp;
+                users[kept] = users[i];
+                kept++;
+            }
+        }
+        size = kept;
+        sort(0, binSize - 1);
+        clusterCount = 0;
+        int first = 0;
+        for (int k = 1; k <= binSize; k++) {
+            if (k < binSize && binPositions[k] - binPositions[k - 1] <= gap) {
+                continue;
+            }
+            int count = distinctUsers(first, k);
+            if (count >= minUsers) {
+                addCluster(first, k, count);
+            }
+            first = k;
+        }
+        return clusterCount;
+    }
+
+    /**
+     * Latest timestamp among the positions of the last closed bin.
+     */
+    long binLatest() {
+        return binLatest;
+    }
+
+    double center(int cluster) {
+        return centers[cluster];
+    }
+
+    /**
+     * Cluster centers in order along the shape; only the first {@link #close} result entries are valid.
+     */
+    double[] centers() {
+        return centers;
+    }
+
+    /**
+     * Half the distance between the first and last member.
+     */
+    double spread(int cluster) {
+        return spreads[cluster];
+    }
+
+    /**
+     * Number of different known users in a cluster.
+     */
+    int userCount(int cluster) {
+        return userCounts[cluster];
+    }
+
+    /**
+     * Kish effective sample size of the member weights: the member count when all weigh the same, less when a few
+     * members dominate.
+     */
+    double effectiveCount(int cluster) {
+        return effectiveCounts[cluster];
+    }
+
+    /**
+     * Members of a cluster are {@link #memberPosition} / {@link #memberUser} indexes from {@code memberFrom}
+     * (inclusive) to {@code memberTo} (exclusive).
+     */
+    int memberFrom(int cluster) {
+        return memberFrom[cluster];
+    }
+
+    int memberTo(int cluster) {
+        return memberTo[cluster];
+    }
+
+    double memberPosition(int member) {
+        return binPositions[member];
+    }
+
+    long memberUser(int member) {
+        return binUsers[member];
+    }
+
+    /**
+     * Number of different users among the members; a passenger pinging several times in a bin counts once.
+     */
+    private int distinctUsers(int from, int to) {
+        if (scratchUsers.length < to - from) {
+            scratchUsers = new long[Math.max(to - from, scratchUsers.length * 2)];
+        }
+        int n = 0;
+        for (int m = from; m < to; m++) {
+            if (binUsers[m] != NO_USER) {
+                scratchUsers[n++] = binUsers[m];
+            }
+        }
+        Arrays.sort(scratchUsers, 0, n);
+        int distinct = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || scratchUsers[i] != scratchUsers[i - 1]) {
+                distinct++;
+            }
+        }
+        return distinct;
+    }
+
+    private void addCluster(int from, int to, int count) {
+        if (clusterCount == centers.length) {
+            int capacity = clusterCount * 2;
+            centers = Arrays.copyOf(centers, capacity);
+            spreads = Arrays.copyOf(spreads, capacity);
+            userCounts = Arrays.copyOf(userCounts, capacity);
+            effectiveCounts = Arrays.copyOf(effectiveCounts, capacity);
+            memberFrom = Arrays.copyOf(memberFrom, capacity);
+            memberTo = Arrays.copyOf(memberTo, capacity);
+        }
+        double total = 0;
+        double squares = 0;
+        for (int m = from; m < to; m++) {
+            total += binWeights[m];
+            squares += binWeights[m] * binWeights[m];
+        }
+        centers[clusterCount] = total > 0 ? weightedMedian(from, to, total) : median(from, to);
+        effectiveCounts[clusterCount] = total > 0 ? total * total / squares : to - from;
+        spreads[clusterCount] = (binPositions[to - 1] - binPositions[from]) / 2;
+        userCounts[clusterCount] = count;
+        memberFrom[clusterCount] = from;
+        memberTo[clusterCount] = to;
+        clusterCount++;
+    }
+
+    private double median(int from, int to) {
+        int n = to - from;
+        int mid = from + n / 2;
+        return n % 2 == 1 ? binPositions[mid] : (binPositions[mid - 1] + binPositions[mid]) / 2;
+    }
+
+    /**
+     * The position where the cumulative weight reaches half the total; halfway to the next position when it lands
+     * exactly on the half, which gives the plain median for equal weights.
+     */
+    private double weightedMedian(int from, int to, double total) {
+        double half = total / 2;
+        double cumulative = 0;
+        for (int m = from; m < to; m++) {
+            cumulative += binWeights[m];
+            if (cumulative > half) {
+                return binPositions[m];
+            }
+            if (cumulative == half && m + 1 < to) {
+                return (binPositions[m] + binPositions[m + 1]) / 2;
+            }
+        }
+        return binPositions[to - 1];
+    }
+
+    /**
+     * Quicksort of the bin by position, carrying user ids and weights along; recursion only on the smaller side.
+     */
+    private void sort(int low, int high) {
+        while (high - low >= INSERTION_SORT_THRESHOLD) {
+            int mid = (low + high) >>> 1;
+            if (binPositions[mid] < binPositions[low]) {
+                swap(mid, low);
+            }
+            if (binPositions[high] < binPositions[low]) {
+                swap(high, low);
+            }
+            if (binPositions[high] < binPositions[mid]) {
+                swap(high, mid);
+            }
+            double pivot = binPositions[mid];
+            int i = low;
+            int j = high;
+            while (i <= j) {
+                while (binPositions[i] < pivot) {
+                    i++;
+                }
+                while (binPositions[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    swap(i++, j--);
+                }
+            }
+            if (j - low < high - i) {
+                sort(low, j);
+                low = i;
+            } else {
+                sort(i, high);
+                high = j;
+            }
+        }
+        for (int i = low + 1; i <= high; i++) {
+            double position = binPositions[i];
+            long user = binUsers[i];
+            double weight = binWeights[i];
+            int j = i - 1;
+            while (j >= low && binPositions[j] > position) {
+                binPositions[j + 1] = binPositions[j];
+                binUsers[j + 1] = binUsers[j];
+                binWeights[j + 1] = binWeights[j];
+                j--;
+            }
+            binPositions[j + 1] = position;
+            binUsers[j + 1] = user;
+            binWeights[j + 1] = weight;
+        }
+    }
+
+    private void swap(int a, int b) {
+        double position = binPositions[a];
+        binPositions[a] = binPositions[b];
+        binPositions[b] = position;
+        long user = binUsers[a];
+        binUsers[a] = binUsers[b];
+        binUsers[b] = user;
+        double weight = binWeights[a];
+        binWeights[a] = binWeights[b];
+        binWeights[b] = weight;
+    }
+}
@@ -0,0 +1,106 @@
+package org.bebraradar.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Remembers event keys for roughly one window. Two Bloom filter generations are rotated every half window, so
+ * a key stays visible in them for at least half and at most a full window. A filter hit alone is only a "maybe";
+ * the bounded exact set, which keeps keys for the full window, decides whether the key is a known duplicate and
+ * is consulted on a filter miss too.
+ */
+final class DedupWindow {
+
+    enum Verdict {
+        NEW,
+        DUPLICATE,
+        MAYBE
+    }
+
+    private final long halfWindowNanos;
+    private final int bitCount;
+    private final int hashCount;
+    private final Cache<String, Boolean> recentKeys;
+    private long[] current;
+    private long[] previous;
+    private long generationStart;
+
+    DedupWindow(Duration window, int expectedKeys, double falsePositiveRate, long exactMaxSize) {
+        this.halfWindowNanos = window.toNanos() / 2;
+        double bits = -expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bitCount = (int) Math.min(Integer.MAX_VALUE - 63L, Math.max(64L, (long) Math.ceil(bits)));
+        this.hashCount = Math.max(1, (int) Math.round(bitCount / (double) expectedKeys * Math.log(2)));
+        this.recentKeys = Caffeine.newBuilder()
+            .maximumSize(exactMaxSize)
+            .expireAfterWrite(window)
+            .build();
+        this.current = new long[(bitCount + 63) / 64];
+        this.previous = new long[current.length];
+        this.generationStart = System.nanoTime();
+    }
+
+    synchronized Verdict check(String key) {
+        rotateIfDue();
+        long hash = hash(key);
+        boolean exact = recentKeys.getIfPresent(key) != null;
+        if (!mightContain(current, hash) && !mightContain(previous, hash)) {
+            // the filters may have rotated a key out that the exact set still holds for the full window
+            return exact ? Verdict.DUPLICATE : Verdict.NEW;
+        }
+        return exact ? Verdict.DUPLICATE : Verdict.MAYBE;
+    }
+
+    synchronized void record(String key) {
+        rotateIfDue();
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            current[bit >>> 6] |= 1L << bit;
+        }
+        recentKeys.put(key, Boolean.TRUE);
+    }
+
+    private boolean mightContain(long[] bits, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            int bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits[bit >>> 6] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rotateIfDue() {
+        long now = System.nanoTime();
+        if (now - generationStart < halfWindowNanos) {
+            return;
+        }
+        long[] recycled = previous;
+        Arrays.fill(recycled, 0L);
+        previous = current;
+        current = recycled;
+        if (now - generationStart >= 2 * halfWindowNanos) {
+            Arrays.fill(previous, 0L);
+        }
+        generationStart = now;
+    }
+
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
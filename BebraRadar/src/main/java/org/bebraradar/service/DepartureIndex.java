@@ -0,0 +1,145 @@
+package org.bebraradar.service;
+
+import java.util.Arrays;
+
+/**
+ * Departures of every stop, grouped by service slot and sorted by departure second, so the next departures of a
+ * stop are a binary search per active service followed by a merge. Entries point back into the stop time arrays
+ * of the {@link TimetableSnapshot} they were built from; the last stop of a trip has no departure and is left out.
+ */
+final class DepartureIndex {
+
+    private static final int DEPARTURE_BITS = 20;
+    private static final int POSITION_BITS = 20;
+    private static final long LOW_MASK = (1L << POSITION_BITS) - 1;
+
+    private final int[] stopGroupOffsets;
+    private final int[] groupServices;
+    private final int[] groupOffsets;
+    private final int[] departures;
+    private final int[] stopTimes;
+    private final int[] stopTimeTrips;
+
+    DepartureIndex(int stopCount, int[] tripServices, int[] tripStopOffsets, int[] stopTimeStops,
+                   int[] departureTimes) {
+        int tripCount = tripServices.length;
+        stopTimeTrips = new int[stopTimeStops.length];
+        int[] stopOffsets = new int[stopCount + 1];
+        for (int trip = 0; trip < tripCount; trip++) {
+            Arrays.fill(stopTimeTrips, tripStopOffsets[trip], tripStopOffsets[trip + 1], trip);
+            for (int i = tripStopOffsets[trip]; i < tripStopOffsets[trip + 1] - 1; i++) {
+                if (indexed(tripServices[trip], departureTimes[i])) {
+                    stopOffsets[stopTimeStops[i] + 1]++;
+                }
+            }
+        }
+        for (int stop = 0; stop < stopCount; stop++) {
+            stopOffsets[stop + 1] += stopOffsets[stop];
+        }
+
+        // bucket stop times by stop, then sort each bucket by (service, departure)
+        int entries = stopOffsets[stopCount];
+        int[] bucketed = new int[entries];
+        int[] fill = Arrays.copyOf(stopOffsets, stopCount);
+        for (int trip = 0; trip < tripCount; trip++) {
+            for (int i = tripStopOffsets[trip]; i < tripStopOffsets[trip + 1] - 1; i++) {
+                if (indexed(tripServices[trip], departureTimes[i])) {
+                    bucketed[fill[stopTimeStops[i]]++] = i;
+                }
+            }
+        }
+        departures = new int[entries];
+        stopTimes = new int[entries];
+        stopGroupOffsets = new int[stopCount + 1];
+        int[] services = new int[Math.max(16, stopCount)];
+        int[] offsets = new int[services.length + 1];
+        int groups = 0;
+        for (int stop = 0; stop < stopCount; stop++) {
+            int from = stopOffsets[stop];
+            int size = stopOffsets[stop + 1] - from;
+            if (size > LOW_MASK) {
+                throw new IllegalStateException("Too many departures at stop " + stop);
+            }
+            long[] keys = new long[size];
+            for (int p = 0; p < size; p++) {
+                int stopTime = bucketed[from + p];
+                keys[p] = (long) tripServices[stopTimeTrips[stopTime]] << (DEPARTURE_BITS + POSITION_BITS)
+                    | (long) departureTimes[stopTime] << POSITION_BITS | p;
+            }
+            Arrays.sort(keys);
+            int previousService = -1;
+            for (int p = 0; p < size; p++) {
+                int stopTime = bucketed[from + (int) (keys[p] & LOW_MASK)];
+                int service = tripServices[stopTimeTrips[stopTime]];
+                if (service != previousService) {
+                    if (groups + 1 >= services.length) {
+                        services = Arrays.copyOf(services, services.length * 2);
+                        offsets = Arrays.copyOf(offsets, services.length + 1);
+                    }
+                    services[groups] = service;
+                    offsets[groups] = from + p;
+                    groups++;
+                    previousService = service;
+                }
+                departures[from + p] = departureTimes[stopTime];
+                stopTimes[from + p] = stopTime;
+            }
+            stopGroupOffsets[stop + 1] = groups;
+        }
+        offsets[groups] = entries;
+        groupServices = Arrays.copyOf(services, groups);
+        groupOffsets = Arrays.copyOf(offsets, groups + 1);
+    }
+
+    /**
+     * Departures outside 0..2^20 seconds (about 12 days) cannot be packed for sorting and are not real GTFS times.
+     */
+    private static boolean indexed(int service, int departureTime) {
+        return service >= 0 && departureTime >= 0 && departureTime < 1 << DEPARTURE_BITS;
+    }
+
+    int firstGroup(int stop) {
+        return stopGroupOffsets[stop];
+    }
+
+    int endGroup(int stop) {
+        return stopGroupOffsets[stop + 1];
+    }
+
+    int groupService(int group) {
+        return groupServices[group];
+    }
+
+    int groupEnd(int group) {
+        return groupOffsets[group + 1];
+    }
+
+    /**
+     * First entry of the group departing at or after {@code second}.
+     */
+    int lowerBound(int group, int second) {
+        int low = groupOffsets[group];
+        int high = groupOffsets[group + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departures[mid] < second) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    int departure(int entry) {
+        return departures[entry];
+    }
+
+    int stopTime(int entry) {
+        return stopTimes[entry];
+    }
+
+    int tripOf(int stopTime) {
+        return stopTimeTrips[stopTime];
+    }
+}
@@ -0,0 +1,21 @@
+package org.bebraradar.service;
+
+/**
+ * Published by the CRUD controllers after a row was created, changed or removed, so caches and in-memory
+ * indexes built from static data can invalidate themselves. For stop times the id is the trip id, for shape
+ * points the shape id and for calendar dates the service id.
+ */
+public record EntityChangedEvent(Kind kind, Object id) {
+
+    public enum Kind {
+        ROUTE,
+        STOP,
+        TRIP,
+        STOP_TIME,
+        CALENDAR,
+        CALENDAR_DATE,
+        SHAPE,
+        SHAPE_POINT,
+        USER
+    }
+}
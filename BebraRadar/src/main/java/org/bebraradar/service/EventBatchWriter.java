@@ -0,0 +1,159 @@
+package org.bebraradar.service;
+
+import org.bebraradar.dto.AnomalyRequest;
+import org.bebraradar.dto.EventRequest;
+import org.bebraradar.dto.GeoEventRequest;
+import org.bebraradar.dto.TimetableEventRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes realtime events with multi-row JDBC inserts. Identifiers are drawn from the table sequence up front
+ * (one round-trip per batch) because IDENTITY generation stops Hibernate from batching inserts. Rows whose
+ * event key is already stored are skipped by the unique index and reported as such.
+ */
+@Component
+public class EventBatchWriter {
+
+    private static final String COMMON_COLUMNS =
+        "event_id, trip_id, vehicle_no, user_id, ts, lat, lon, gps_accuracy_m, type, event_key";
+    private static final int COMMON_COLUMN_COUNT = 10;
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Long> insertGeoEvents(List<GeoEventRequest> events, List<String> eventKeys) {
+        return insert(EventTable.GEOLOCATION, events, eventKeys, null);
+    }
+
+    public List<Long> insertTimetableEvents(List<TimetableEventRequest> events, List<String> eventKeys) {
+        return insert(EventTable.TIMETABLE, events, eventKeys,
+            (ps, index, event) -> ps.setObject(index, event.reportedTime(), Types.TIMESTAMP_WITH_TIMEZONE));
+    }
+
+    public List<Long> insertAnomalies(List<AnomalyRequest> events, List<String> eventKeys) {
+        return insert(EventTable.ANOMALY, events, eventKeys,
+            (ps, index, event) -> ps.setObject(index, event.estimatedDelay(), Types.DOUBLE));
+    }
+
+    /**
+     * Looks keys up in every partition. The unique index only covers {@code (event_key, ts)}, so a retry that
+     * carries the same key with another timestamp is only recognised here; callers pass just the keys the dedup
+     * window is unsure about, each costing one index probe per partition.
+     */
+    public Set<String> existingEventKeys(EventTable table, Collection<String> eventKeys) {
+        if (eventKeys.isEmpty()) {
+            return Set.of();
+        }
+        return jdbcTemplate.execute((ConnectionCallback<Set<String>>) connection -> {
+            try (PreparedStatement ps = connection.prepareStatement(
+                "select event_key from " + table.tableName() + " where event_key = any(?)")) {
+                ps.setArray(1, connection.createArrayOf("text", eventKeys.toArray()));
+                Set<String> existing = new HashSet<>();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        existing.add(rs.getString(1));
+                    }
+                }
+                return existing;
+            }
+        });
+    }
+
+    public List<String> recentEventKeys(EventTable table, OffsetDateTime since, long limit) {
+        return jdbcTemplate.queryForList(
+            "select event_key from " + table.tableName()
+                + " where ts >= ? and event_key is not null order by ts desc limit ?",
+            String.class, since, limit);
+    }
+
+    /**
+     * @return the identifier of each event in order, or null where the unique index skipped the row
+     */
+    private <T extends EventRequest> List<Long> insert(EventTable eventTable, List<T> events, List<String> eventKeys,
+                                                       ExtraColumnBinder<T> extraBinder) {
+        if (events.isEmpty()) {
+            return List.of();
+        }
+        String table = eventTable.tableName();
+        List<Long> ids = allocateIds(table, events.size());
+        int columnCount = eventTable.extraColumn() == null ? COMMON_COLUMN_COUNT : COMMON_COLUMN_COUNT + 1;
+        Set<Long> inserted = new HashSet<>();
+        for (int from = 0; from < events.size(); from += JDBC_BATCH_SIZE) {
+            int offset = from;
+            int size = Math.min(JDBC_BATCH_SIZE, events.size() - from);
+            // one multi-row statement per chunk, so returning tells which rows the unique index skipped
+            String sql = insertSql(table, eventTable.extraColumn(), columnCount, size);
+            jdbcTemplate.query(sql, ps -> {
+                for (int i = 0; i < size; i++) {
+                    T event = events.get(offset + i);
+                    int base = i * columnCount;
+                    bindCommon(ps, base, ids.get(offset + i), event, eventKeys.get(offset + i));
+                    if (extraBinder != null) {
+                        extraBinder.bind(ps, base + COMMON_COLUMN_COUNT + 1, event);
+                    }
+                }
+            }, rs -> {
+                inserted.add(rs.getLong(1));
+            });
+        }
+        List<Long> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            result.add(inserted.contains(id) ? id : null);
+        }
+        return result;
+    }
+
+    private List<Long> allocateIds(String table, int count) {
+        return jdbcTemplate.queryForList(
+            "select nextval(pg_get_serial_sequence(?, 'event_id')) from generate_series(1, ?)",
+            Long.class, table, count);
+    }
+
+    private static String insertSql(String table, String extraColumn, int columnCount, int rows) {
+        String columns = extraColumn == null ? COMMON_COLUMNS : COMMON_COLUMNS + ", " + extraColumn;
+        String row = "(" + String.join(", ", Collections.nCopies(columnCount, "?")) + ")";
+        return "insert into " + table + " (" + columns + ") values " + String.join(", ", Collections.nCopies(rows, row))
+            + " on conflict do nothing returning event_id";
+    }
+
+    private static void bindCommon(PreparedStatement ps, int base, Long id, EventRequest event, String eventKey)
+        throws SQLException {
+        ps.setLong(base + 1, id);
+        ps.setLong(base + 2, event.tripId());
+        ps.setObject(base + 3, blankToNull(event.vehicleNo()), Types.VARCHAR);
+        ps.setObject(base + 4, event.userId(), Types.BIGINT);
+        ps.setObject(base + 5, event.timestamp());
+        ps.setObject(base + 6, event.latitude(), Types.DOUBLE);
+        ps.setObject(base + 7, event.longitude(), Types.DOUBLE);
+        ps.setObject(base + 8, event.gpsAccuracyMeters(), Types.DOUBLE);
+        ps.setObject(base + 9, event.type(), Types.VARCHAR);
+        ps.setString(base + 10, eventKey);
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    @FunctionalInterface
+    private interface ExtraColumnBinder<T> {
+        void bind(PreparedStatement ps, int index, T event) throws SQLException;
+    }
+}
@@ -0,0 +1,73 @@
+package org.bebraradar.service;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Streams CSV or binary COPY payloads straight into the event tables, bypassing JPA entirely.
+ */
+@Service
+public class EventCopyLoader {
+
+    public enum Format {
+        CSV,
+        BINARY
+    }
+
+    private static final int COPY_BUFFER_SIZE = 1 << 16;
+
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+
+    public EventCopyLoader(DataSource dataSource, JdbcTemplate jdbcTemplate) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public long load(EventTable table, Format format, boolean header, List<String> columns, InputStream input)
+        throws IOException, SQLException {
+        List<String> copyColumns = resolveColumns(table, columns);
+        String sql = copySql(table, format, header, copyColumns);
+        long rows;
+        try (Connection connection = dataSource.getConnection()) {
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            rows = copyManager.copyIn(sql, input, COPY_BUFFER_SIZE);
+        }
+        if (copyColumns.contains("event_id")) {
+            jdbcTemplate.queryForObject(
+                "select setval(pg_get_serial_sequence(?, 'event_id'), "
+                    + "(select coalesce(max(event_id), 1) from " + table.tableName() + "))",
+                Long.class, table.tableName());
+        }
+        return rows;
+    }
+
+    private static List<String> resolveColumns(EventTable table, List<String> columns) {
+        if (columns == null || columns.isEmpty()) {
+            return table.dataColumns();
+        }
+        for (String column : columns) {
+            if (!column.equals("event_id") && !column.equals("event_key") && !table.dataColumns().contains(column)) {
+                throw new IllegalArgumentException("Unknown column for " + table.tableName() + ": " + column);
+            }
+        }
+        return columns;
+    }
+
+    private static String copySql(EventTable table, Format format, boolean header, List<String> columns) {
+        String options = switch (format) {
+            case CSV -> "FORMAT csv, HEADER " + header;
+            case BINARY -> "FORMAT binary";
+        };
+        return "COPY " + table.tableName() + " (" + String.join(", ", columns) + ") FROM STDIN WITH (" + options + ")";
+    }
+}
@@ -0,0 +1,39 @@
+package org.bebraradar.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Base64;
+
+/**
+ * Position after the last returned event in (ts, event_id) descending order. Clients get it as an opaque
+ * token and hand it back unchanged.
+ */
+public record EventCursor(long timestampMicros, long eventId) {
+
+    public static EventCursor after(OffsetDateTime timestamp, long eventId) {
+        return new EventCursor(Timestamps.toMicros(timestamp), eventId);
+    }
+
+    public static EventCursor decode(String token) {
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int separator = value.indexOf(':');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Malformed cursor");
+            }
+            return new EventCursor(Long.parseLong(value.substring(0, separator)),
+                Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Malformed cursor", ex);
+        }
+    }
+
+    public String encode() {
+        String value = timestampMicros + ":" + eventId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    public OffsetDateTime timestamp() {
+        return Timestamps.fromMicros(timestampMicros);
+    }
+}
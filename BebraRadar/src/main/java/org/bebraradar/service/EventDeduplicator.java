@@ -0,0 +1,145 @@
+package org.bebraradar.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.bebraradar.dto.EventRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory first line of duplicate detection for realtime events. Keys are only recorded once the write that
+ * stored them has committed, so a failed batch can be retried with the same keys. The unique index on
+ * {@code event_key} stays the final guard across nodes and restarts.
+ */
+@Service
+public class EventDeduplicator {
+
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private static final Logger log = LoggerFactory.getLogger(EventDeduplicator.class);
+
+    private final EventBatchWriter batchWriter;
+    private final boolean enabled;
+    private final Duration window;
+    private final long exactMaxSize;
+    private final Map<EventTable, DedupWindow> windows = new EnumMap<>(EventTable.class);
+    private final Map<EventTable, Counter> duplicateCounters = new EnumMap<>(EventTable.class);
+
+    public EventDeduplicator(EventBatchWriter batchWriter,
+                             MeterRegistry meterRegistry,
+                             @Value("${bebraradar.ingest.dedup.enabled:true}") boolean enabled,
+                             @Value("${bebraradar.ingest.dedup.window:10m}") Duration window,
+                             @Value("${bebraradar.ingest.dedup.expected-keys:500000}") int expectedKeys,
+                             @Value("${bebraradar.ingest.dedup.false-positive-rate:0.01}") double falsePositiveRate,
+                             @Value("${bebraradar.ingest.dedup.exact-max-size:100000}") long exactMaxSize) {
+        this.batchWriter = batchWriter;
+        this.enabled = enabled;
+        this.window = window;
+        this.exactMaxSize = exactMaxSize;
+        for (EventTable table : EventTable.values()) {
+            if (enabled) {
+                windows.put(table, new DedupWindow(window, expectedKeys, falsePositiveRate, exactMaxSize));
+            }
+            duplicateCounters.put(table, Counter.builder("bebraradar.ingest.duplicates")
+                .tag("table", table.pathName())
+                .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Seeds the windows with the newest stored keys so a restart does not reopen the window for retries. Until then
+     * the unique index alone catches retries.
+     */
+    @WarmUpListener
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        OffsetDateTime since = OffsetDateTime.now(ZoneOffset.UTC).minus(window);
+        for (EventTable table : EventTable.values()) {
+            List<String> keys = batchWriter.recentEventKeys(table, since, exactMaxSize);
+            record(table, keys);
+            log.info("Dedup window for {} warmed up with {} keys", table.pathName(), keys.size());
+        }
+    }
+
+    /**
+     * The client supplied key, or a hash of user, trip, timestamp and position when there is none.
+     */
+    public static String keyOf(EventRequest request) {
+        if (request.eventKey() != null && !request.eventKey().isBlank()) {
+            return request.eventKey();
+        }
+        String source = request.userId() + "|" + request.tripId() + "|"
+            + Timestamps.toMicros(request.timestamp()) + "|" + request.latitude() + "|" + request.longitude();
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+
+    /**
+     * Decides like a batch does: a key the window is unsure about is looked up in every partition, so a retry with
+     * the same key and another timestamp is a duplicate either way.
+     */
+    public boolean isDuplicate(EventTable table, String key) {
+        DedupWindow.Verdict verdict = check(table, key);
+        return verdict == DedupWindow.Verdict.DUPLICATE
+            || verdict == DedupWindow.Verdict.MAYBE && !batchWriter.existingEventKeys(table, List.of(key)).isEmpty();
+    }
+
+    public void countDuplicates(EventTable table, int count) {
+        if (count > 0) {
+            duplicateCounters.get(table).increment(count);
+        }
+    }
+
+    public void recordAfterCommit(EventTable table, Collection<String> keys) {
+        if (!enabled || keys.isEmpty()) {
+            return;
+        }
+        List<String> snapshot = List.copyOf(keys);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            record(table, snapshot);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                record(table, snapshot);
+            }
+        });
+    }
+
+    DedupWindow.Verdict check(EventTable table, String key) {
+        if (!enabled) {
+            return DedupWindow.Verdict.NEW;
+        }
+        return windows.get(table).check(key);
+    }
+
+    private void record(EventTable table, List<String> keys) {
+        DedupWindow window = windows.get(table);
+        for (String key : keys) {
+            window.record(key);
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package org.bebraradar.service;
+
+import org.bebraradar.dto.AnomalyResponse;
+import org.bebraradar.dto.EventResponse;
+import org.bebraradar.dto.GeoEventResponse;
+import org.bebraradar.dto.TimetableEventResponse;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads the realtime event tables newest first with keyset pagination on (ts, event_id). Rows are mapped
+ * straight from the foreign key columns, so no trip, vehicle or user entity is loaded per event.
+ */
+@Service
+public class EventFeedReader {
+
+    private static final String COLUMNS = "event_id, trip_id, vehicle_no, user_id, ts, lat, lon, gps_accuracy_m, type";
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate streamingTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public EventFeedReader(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                           PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.streamingTemplate = new JdbcTemplate(dataSource);
+        this.streamingTemplate.setFetchSize(STREAM_FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    public record Page(List<EventResponse> items, EventCursor next) {
+    }
+
+    public Page page(EventTable table, OffsetDateTime since, EventCursor after, int limit) {
+        List<EventResponse> rows = jdbcTemplate.query(sql(table, since, after, true), mapper(table),
+            parameters(since, after, limit + 1));
+        if (rows.size() <= limit) {
+            return new Page(rows, null);
+        }
+        List<EventResponse> items = List.copyOf(rows.subList(0, limit));
+        EventResponse last = items.get(limit - 1);
+        return new Page(items, EventCursor.after(last.timestamp(), last.id()));
+    }
+
+    /**
+     * Hands every matching row to {@code sink} while the result set is still open. PostgreSQL only fetches in
+     * chunks inside a transaction, hence the read-only transaction around the query.
+     */
+    public void stream(EventTable table, OffsetDateTime since, EventCursor after, Integer limit,
+                       Consumer<EventResponse> sink) {
+        RowMapper<EventResponse> mapper = mapper(table);
+        String sql = sql(table, since, after, limit != null);
+        Object[] parameters = parameters(since, after, limit);
+        readOnlyTransaction.executeWithoutResult(status ->
+            streamingTemplate.query(sql, (RowCallbackHandler) rs -> sink.accept(mapper.mapRow(rs, 0)), parameters));
+    }
+
+    private static String sql(EventTable table, OffsetDateTime since, EventCursor after, boolean limited) {
+        StringBuilder sql = new StringBuilder("select ").append(COLUMNS);
+        if (table.extraColumn() != null) {
+            sql.append(", ").append(table.extraColumn());
+        }
+        sql.append(" from ").append(table.tableName()).append(" where true");
+        if (since != null) {
+            sql.append(" and ts >= ?");
+        }
+        if (after != null) {
+            sql.append(" and (ts, event_id) < (?, ?)");
+        }
+        sql.append(" order by ts desc, event_id desc");
+        if (limited) {
+            sql.append(" limit ?");
+        }
+        return sql.toString();
+    }
+
+    private static Object[] parameters(OffsetDateTime since, EventCursor after, Integer limit) {
+        List<Object> parameters = new ArrayList<>(4);
+        if (since != null) {
+            parameters.add(since);
+        }
+        if (after != null) {
+            parameters.add(after.timestamp());
+            parameters.add(after.eventId());
+        }
+        if (limit != null) {
+            parameters.add(limit);
+        }
+        return parameters.toArray();
+    }
+
+    private static RowMapper<EventResponse> mapper(EventTable table) {
+        return switch (table) {
+            case GEOLOCATION -> (rs, rowNum) -> new GeoEventResponse(
+                rs.getLong("event_id"),
+                rs.getLong("trip_id"),
+                rs.getString("vehicle_no"),
+                rs.getObject("user_id", Long.class),
+                timestamp(rs, "ts"),
+                rs.getObject("lat", Double.class),
+                rs.getObject("lon", Double.class),
+                rs.getObject("gps_accuracy_m", Double.class),
+                rs.getString("type"));
+            case TIMETABLE -> (rs, rowNum) -> new TimetableEventResponse(
+                rs.getLong("event_id"),
+                rs.getLong("trip_id"),
+                rs.getString("vehicle_no"),
+                rs.getObject("user_id", Long.class),
+                timestamp(rs, "ts"),
+                rs.getObject("lat", Double.class),
+                rs.getObject("lon", Double.class),
+                rs.getObject("gps_accuracy_m", Double.class),
+                rs.getString("type"),
+                timestamp(rs, "time"));
+            case ANOMALY -> (rs, rowNum) -> new AnomalyResponse(
+                rs.getLong("event_id"),
+                rs.getLong("trip_id"),
+                rs.getString("vehicle_no"),
+                rs.getObject("user_id", Long.class),
+                timestamp(rs, "ts"),
+                rs.getObject("lat", Double.class),
+                rs.getObject("lon", Double.class),
+                rs.getObject("gps_accuracy_m", Double.class),
+                rs.getString("type"),
+                rs.getObject("estimated_delay", Double.class));
+        };
+    }
+
+    private static OffsetDateTime timestamp(ResultSet rs, String column) throws SQLException {
+        return rs.getObject(column, OffsetDateTime.class);
+    }
+}
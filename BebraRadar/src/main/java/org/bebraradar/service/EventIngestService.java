@@ -0,0 +1,176 @@
+package org.bebraradar.service;
+
+import org.bebraradar.dto.AnomalyRequest;
+import org.bebraradar.dto.BatchIngestResponse;
+import org.bebraradar.dto.BatchItemResult;
+import org.bebraradar.dto.EventRequest;
+import org.bebraradar.dto.EventResponse;
+import org.bebraradar.dto.GeoEventRequest;
+import org.bebraradar.dto.TimetableEventRequest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+@Service
+public class EventIngestService {
+
+    private final ReferenceResolver referenceResolver;
+    private final EventBatchWriter batchWriter;
+    private final EventDeduplicator deduplicator;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public EventIngestService(ReferenceResolver referenceResolver, EventBatchWriter batchWriter,
+                              EventDeduplicator deduplicator, ApplicationEventPublisher eventPublisher) {
+        this.referenceResolver = referenceResolver;
+        this.batchWriter = batchWriter;
+        this.deduplicator = deduplicator;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional
+    public BatchIngestResponse ingestGeoEvents(List<GeoEventRequest> requests) {
+        return ingest(EventTable.GEOLOCATION, requests, request -> null, batchWriter::insertGeoEvents);
+    }
+
+    @Transactional
+    public BatchIngestResponse ingestTimetableEvents(List<TimetableEventRequest> requests) {
+        return ingest(EventTable.TIMETABLE, requests,
+            request -> request.reportedTime() == null ? "reportedTime is required" : null,
+            batchWriter::insertTimetableEvents);
+    }
+
+    @Transactional
+    public BatchIngestResponse ingestAnomalies(List<AnomalyRequest> requests) {
+        return ingest(EventTable.ANOMALY, requests,
+            request -> request.estimatedDelay() == null ? "estimatedDelay is required" : null,
+            batchWriter::insertAnomalies);
+    }
+
+    private <T extends EventRequest> BatchIngestResponse ingest(EventTable table,
+                                                                List<T> requests,
+                                                                Function<T, String> extraValidation,
+                                                                BiFunction<List<T>, List<String>, List<Long>> writer) {
+        BatchItemResult[] results = new BatchItemResult[requests.size()];
+        Set<Long> tripIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        Set<String> vehicleNos = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            T request = requests.get(i);
+            String error = validate(request, extraValidation);
+            if (error != null) {
+                results[i] = BatchItemResult.rejected(i, error);
+                continue;
+            }
+            tripIds.add(request.tripId());
+            if (request.userId() != null) {
+                userIds.add(request.userId());
+            }
+            if (hasVehicle(request)) {
+                vehicleNos.add(request.vehicleNo());
+            }
+        }
+
+        Set<Long> knownTrips = referenceResolver.existingTripIds(tripIds);
+        Set<Long> knownUsers = referenceResolver.existingUserIds(userIds);
+        Set<String> knownVehicles = referenceResolver.existingVehicleNos(vehicleNos);
+
+        List<Integer> candidates = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            T request = requests.get(i);
+            if (!knownTrips.contains(request.tripId())) {
+                results[i] = BatchItemResult.rejected(i, "Trip not found: " + request.tripId());
+            } else if (request.userId() != null && !knownUsers.contains(request.userId())) {
+                results[i] = BatchItemResult.rejected(i, "User not found: " + request.userId());
+            } else if (hasVehicle(request) && !knownVehicles.contains(request.vehicleNo())) {
+                results[i] = BatchItemResult.rejected(i, "Vehicle not found: " + request.vehicleNo());
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        String[] keys = new String[requests.size()];
+        Set<String> batchKeys = new HashSet<>();
+        List<String> uncertainKeys = new ArrayList<>();
+        for (int i : candidates) {
+            keys[i] = EventDeduplicator.keyOf(requests.get(i));
+            if (!batchKeys.add(keys[i])) {
+                results[i] = BatchItemResult.duplicate(i);
+                continue;
+            }
+            DedupWindow.Verdict verdict = deduplicator.check(table, keys[i]);
+            if (verdict == DedupWindow.Verdict.DUPLICATE) {
+                results[i] = BatchItemResult.duplicate(i);
+            } else if (verdict == DedupWindow.Verdict.MAYBE) {
+                uncertainKeys.add(keys[i]);
+            }
+        }
+        Set<String> storedKeys = batchWriter.existingEventKeys(table, uncertainKeys);
+
+        List<T> accepted = new ArrayList<>(candidates.size());
+        List<String> acceptedKeys = new ArrayList<>(candidates.size());
+        List<Integer> acceptedIndexes = new ArrayList<>(candidates.size());
+        int duplicates = 0;
+        for (int i : candidates) {
+            if (results[i] == null && storedKeys.contains(keys[i])) {
+                results[i] = BatchItemResult.duplicate(i);
+            }
+            if (results[i] != null) {
+                duplicates++;
+                continue;
+            }
+            accepted.add(requests.get(i));
+            acceptedKeys.add(keys[i]);
+            acceptedIndexes.add(i);
+        }
+
+        List<Long> ids = writer.apply(accepted, acceptedKeys);
+        List<EventResponse> stored = new ArrayList<>(accepted.size());
+        List<String> insertedKeys = new ArrayList<>(accepted.size());
+        for (int k = 0; k < acceptedIndexes.size(); k++) {
+            int index = acceptedIndexes.get(k);
+            Long id = ids.get(k);
+            if (id == null) {
+                // stored concurrently or outside the time range that was checked; the unique index skipped it
+                results[index] = BatchItemResult.duplicate(index);
+                duplicates++;
+                continue;
+            }
+            results[index] = BatchItemResult.accepted(index, id);
+            stored.add(accepted.get(k).toResponse(id));
+            insertedKeys.add(acceptedKeys.get(k));
+        }
+        deduplicator.recordAfterCommit(table, insertedKeys);
+        eventPublisher.publishEvent(new EventsAcceptedEvent(table, stored));
+        deduplicator.countDuplicates(table, duplicates);
+        return new BatchIngestResponse(stored.size(), duplicates, requests.size() - stored.size() - duplicates,
+            Arrays.asList(results));
+    }
+
+    private static <T extends EventRequest> String validate(T request, Function<T, String> extraValidation) {
+        if (request == null) {
+            return "Malformed or empty event";
+        }
+        if (request.tripId() == null || request.timestamp() == null) {
+            return "Trip id and timestamp are required";
+        }
+        if (request.eventKey() != null && request.eventKey().length() > EventDeduplicator.MAX_KEY_LENGTH) {
+            return "eventKey must not exceed " + EventDeduplicator.MAX_KEY_LENGTH + " characters";
+        }
+        return extraValidation.apply(request);
+    }
+
+    private static boolean hasVehicle(EventRequest request) {
+        return request.vehicleNo() != null && !request.vehicleNo().isBlank();
+    }
+}
@@ -0,0 +1,220 @@
+package org.bebraradar.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.TreeSet;
+
+/**
+ * Keeps daily partitions of the realtime event tables ahead of the clock and removes the ones that fell out of
+ * the retention period. Old data leaves through DETACH and DROP rather than DELETE, so nothing is left to vacuum.
+ * A session advisory lock makes sure only one node does this at a time.
+ */
+@Service
+public class EventPartitionManager {
+
+    private static final Logger log = LoggerFactory.getLogger(EventPartitionManager.class);
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final long ADVISORY_LOCK_KEY = 0x6265627261L;
+
+    public enum RetentionMode {
+        DROP,
+        DETACH
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int premakeDays;
+    private final int retentionDays;
+    private final RetentionMode retentionMode;
+    private final Duration lockTimeout;
+
+    public EventPartitionManager(JdbcTemplate jdbcTemplate,
+                                 @Value("${bebraradar.partitions.enabled:true}") boolean enabled,
+                                 @Value("${bebraradar.partitions.premake-days:7}") int premakeDays,
+                                 @Value("${bebraradar.partitions.retention-days:0}") int retentionDays,
+                                 @Value("${bebraradar.partitions.retention-mode:drop}") String retentionMode,
+                                 @Value("${bebraradar.partitions.lock-timeout:5s}") Duration lockTimeout) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.premakeDays = premakeDays;
+        this.retentionDays = retentionDays;
+        this.retentionMode = RetentionMode.valueOf(retentionMode.toUpperCase(Locale.ROOT));
+        this.lockTimeout = lockTimeout;
+    }
+
+    @WarmUpListener
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${bebraradar.partitions.cron:0 5 0 * * *}", zone = "UTC")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!tryLock(connection)) {
+                    log.debug("Partition maintenance is running on another node");
+                    return null;
+                }
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("set lock_timeout = " + lockTimeout.toMillis());
+                    LocalDate today = LocalDate.now(ZoneOffset.UTC);
+                    for (EventTable table : EventTable.values()) {
+                        maintain(connection, table, today);
+                    }
+                } finally {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("reset lock_timeout");
+                        statement.execute("select pg_advisory_unlock(" + ADVISORY_LOCK_KEY + ")");
+                    }
+                }
+                return null;
+            });
+        } catch (DataAccessException ex) {
+            log.error("Partition maintenance failed", ex);
+        }
+    }
+
+    private void maintain(Connection connection, EventTable table, LocalDate today) throws SQLException {
+        if (!isPartitioned(connection, table)) {
+            log.warn("{} is not partitioned; run migrations/partition_event_tables.sql", table.tableName());
+            return;
+        }
+        TreeSet<LocalDate> existing = partitionDays(connection, table);
+        for (int offset = 0; offset <= premakeDays; offset++) {
+            LocalDate day = today.plusDays(offset);
+            if (!existing.contains(day)) {
+                createPartition(connection, table, day);
+            }
+        }
+        if (retentionDays <= 0) {
+            return;
+        }
+        LocalDate oldestKept = today.minusDays(retentionDays);
+        for (LocalDate day : existing.headSet(oldestKept)) {
+            removePartition(connection, table, day);
+        }
+        pruneDefaultPartition(connection, table, oldestKept);
+    }
+
+    private void createPartition(Connection connection, EventTable table, LocalDate day) {
+        String sql = "create table if not exists " + partitionName(table, day) + " partition of " + table.tableName()
+            + " for values from ('" + day + " 00:00:00+00') to ('" + day.plusDays(1) + " 00:00:00+00')";
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+            log.info("Created partition {}", partitionName(table, day));
+        } catch (SQLException ex) {
+            log.warn("Could not create partition {} (rows for that day may already sit in the default partition): {}",
+                partitionName(table, day), ex.getMessage());
+        }
+    }
+
+    private void removePartition(Connection connection, EventTable table, LocalDate day) {
+        String partition = partitionName(table, day);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("alter table " + table.tableName() + " detach partition " + partition);
+            if (retentionMode == RetentionMode.DROP) {
+                statement.execute("drop table " + partition);
+                log.info("Dropped partition {}", partition);
+            } else {
+                log.info("Detached partition {}", partition);
+            }
+        } catch (SQLException ex) {
+            log.warn("Could not remove partition {}: {}", partition, ex.getMessage());
+        }
+    }
+
+    /**
+     * The default partition collects rows of days that had no partition of their own; it cannot be detached by
+     * day, so its expired rows are deleted, or with {@code DETACH} moved into a standalone table named after the
+     * retention cut-off.
+     */
+    private void pruneDefaultPartition(Connection connection, EventTable table, LocalDate oldestKept) {
+        String partition = table.tableName() + "_default";
+        String expired = "from " + partition + " where ts < '" + oldestKept + " 00:00:00+00'";
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet rs = statement.executeQuery("select exists(select 1 " + expired + ")")) {
+                if (!rs.next() || !rs.getBoolean(1)) {
+                    return;
+                }
+            }
+            if (retentionMode == RetentionMode.DROP) {
+                int removed = statement.executeUpdate("delete " + expired);
+                log.info("Deleted {} expired rows from {}", removed, partition);
+            } else {
+                String archive = partition + "_until_" + SUFFIX.format(oldestKept);
+                statement.execute("create table if not exists " + archive + " (like " + table.tableName() + ")");
+                int moved = statement.executeUpdate(
+                    "with moved as (delete " + expired + " returning *) insert into " + archive + " select * from moved");
+                log.info("Moved {} expired rows from {} to {}", moved, partition, archive);
+            }
+        } catch (SQLException ex) {
+            log.warn("Could not prune partition {}: {}", partition, ex.getMessage());
+        }
+    }
+
+    private static boolean tryLock(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("select pg_try_advisory_lock(" + ADVISORY_LOCK_KEY + ")")) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static boolean isPartitioned(Connection connection, EventTable table) throws SQLException {
+        try (PreparedStatement ps = connection.prepareStatement(
+            "select relkind = 'p' from pg_class where oid = to_regclass(?)")) {
+            ps.setString(1, table.tableName());
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() && rs.getBoolean(1);
+            }
+        }
+    }
+
+    private static TreeSet<LocalDate> partitionDays(Connection connection, EventTable table) throws SQLException {
+        TreeSet<LocalDate> days = new TreeSet<>();
+        String prefix = table.tableName() + "_p";
+        try (PreparedStatement ps = connection.prepareStatement(
+            "select c.relname from pg_inherits i join pg_class c on c.oid = i.inhrelid "
+                + "where i.inhparent = to_regclass(?)")) {
+            ps.setString(1, table.tableName());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    String name = rs.getString(1);
+                    if (!name.startsWith(prefix)) {
+                        continue;
+                    }
+                    try {
+                        days.add(LocalDate.parse(name.substring(prefix.length()), SUFFIX));
+                    } catch (DateTimeParseException ex) {
+                        log.debug("Ignoring partition {} that does not follow the daily naming scheme", name);
+                    }
+                }
+            }
+        }
+        return days;
+    }
+
+    private static String partitionName(EventTable table, LocalDate day) {
+        return table.tableName() + "_p" + SUFFIX.format(day);
+    }
+}
@@ -0,0 +1,291 @@
+package org.bebraradar.service;
+
+import jakarta.annotation.PreDestroy;
+import org.bebraradar.dto.EventResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes committed realtime events to Server-Sent Events subscribers. Every event gets a sequence number and is
+ * kept in a bounded ring buffer; subscribers only remember the last sequence they were sent, so each of them is
+ * caught up from the buffer by its own sender task and a reconnecting client resumes from its
+ * {@code Last-Event-ID}. A subscriber has at most one sender task at a time, run on a bounded pool, so a slow
+ * client only holds up itself and one pool thread, and one whose write has not completed within the send timeout is
+ * dropped. Event ids carry the epoch of this process
+ * because sequences restart with it. Ingestion threads never write to sockets.
+ */
+@Service
+public class EventStreamHub {
+
+    private static final Logger log = LoggerFactory.getLogger(EventStreamHub.class);
+
+    private final StreamedEvent[] buffer;
+    private final long timeoutMillis;
+    private final Semaphore subscriberSlots;
+    private final long sendTimeoutNanos;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // queued tasks are bounded too: a subscriber has at most one
+    private final ThreadPoolExecutor senders;
+    private long lastSequence;
+
+    public EventStreamHub(@Value("${bebraradar.events.stream.replay-size:10000}") int replaySize,
+                          @Value("${bebraradar.events.stream.timeout:30m}") Duration timeout,
+                          @Value("${bebraradar.events.stream.max-subscribers:1000}") int maxSubscribers,
+                          @Value("${bebraradar.events.stream.send-timeout:10s}") Duration sendTimeout,
+                          @Value("${bebraradar.events.stream.sender-threads:32}") int senderThreads) {
+        this.buffer = new StreamedEvent[replaySize];
+        this.timeoutMillis = timeout.toMillis();
+        this.subscriberSlots = new Semaphore(maxSubscribers);
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 60, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(), runnable -> {
+                Thread thread = new Thread(runnable, "event-stream-sender-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        this.senders.allowCoreThreadTimeOut(true);
+    }
+
+    private record StreamedEvent(long sequence, EventTable table, EventResponse payload) {
+    }
+
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long tripId;
+        private final Set<EventTable> tables;
+        /** Sender tasks requested and not yet served; only the task that raised it from zero runs. */
+        private final AtomicInteger pending = new AtomicInteger();
+        private volatile long lastSequence;
+        private volatile long sendStarted;
+        private volatile boolean heartbeatDue;
+        private volatile boolean dropped;
+
+        private Subscriber(SseEmitter emitter, Long tripId, Set<EventTable> tables, long lastSequence) {
+            this.emitter = emitter;
+            this.tripId = tripId;
+            this.tables = tables;
+            this.lastSequence = lastSequence;
+        }
+
+        private boolean accepts(StreamedEvent event) {
+            return tables.contains(event.table()) && (tripId == null || tripId.equals(event.payload().tripId()));
+        }
+    }
+
+    /**
+     * @param lastEventId id of the event the client saw last; events after it that are still buffered are
+     *                    replayed. Without it (or when it is not from this process) only new events are sent.
+     */
+    public SseEmitter subscribe(Long tripId, Set<EventTable> tables, String lastEventId) {
+        if (!subscriberSlots.tryAcquire()) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many event stream subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        long latest = latestSequence();
+        long resumed = sequenceOf(lastEventId);
+        long start = resumed < 0 || resumed > latest ? latest : resumed;
+        Subscriber subscriber = new Subscriber(emitter, tripId, tables, start);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        subscribers.add(subscriber);
+        if (start < latest) {
+            schedule(subscriber);
+        }
+        return emitter;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventsAccepted(EventsAcceptedEvent accepted) {
+        if (accepted.events().isEmpty()) {
+            return;
+        }
+        synchronized (buffer) {
+            for (EventResponse event : accepted.events()) {
+                long sequence = ++lastSequence;
+                buffer[(int) (sequence % buffer.length)] = new StreamedEvent(sequence, accepted.table(), event);
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            schedule(subscriber);
+        }
+    }
+
+    /**
+     * Sends a keep-alive to every subscriber and drops those whose current write has been stuck for longer than
+     * the send timeout. A stuck emitter cannot be completed from here, as that waits for the write; its sender
+     * closes it once the write returns.
+     */
+    @Scheduled(fixedDelayString = "${bebraradar.events.stream.heartbeat-interval:15s}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long started = subscriber.sendStarted;
+            if (started != 0 && now - started > sendTimeoutNanos) {
+                subscriber.dropped = true;
+                remove(subscriber);
+                log.info("Dropped event stream subscriber that did not accept data for {} ms",
+                    (now - started) / 1_000_000);
+                continue;
+            }
+            subscriber.heartbeatDue = true;
+            schedule(subscriber);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+    }
+
+    /**
+     * Gives the subscriber's slot back exactly once, whichever of its callbacks or senders gets here first.
+     */
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriberSlots.release();
+        }
+    }
+
+    private void schedule(Subscriber subscriber) {
+        if (subscriber.pending.getAndIncrement() != 0) {
+            return;
+        }
+        try {
+            senders.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException ex) {
+            log.debug("Event stream senders are shut down");
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        int requested = subscriber.pending.get();
+        while (true) {
+            if (!sendPending(subscriber)) {
+                return;
+            }
+            if (subscriber.dropped) {
+                // dropped while its last write was stuck
+                subscriber.emitter.complete();
+                return;
+            }
+            requested = subscriber.pending.addAndGet(-requested);
+            if (requested == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return false when the subscriber is gone
+     */
+    private boolean sendPending(Subscriber subscriber) {
+        boolean sent = false;
+        for (StreamedEvent event : eventsAfter(subscriber.lastSequence)) {
+            if (subscriber.accepts(event)) {
+                SseEmitter.SseEventBuilder message = SseEmitter.event()
+                    .id(epoch + "-" + event.sequence())
+                    .name(event.table().pathName())
+                    .data(event.payload(), MediaType.APPLICATION_JSON);
+                if (!send(subscriber, message)) {
+                    return false;
+                }
+                sent = true;
+            }
+            subscriber.lastSequence = event.sequence();
+        }
+        if (subscriber.heartbeatDue) {
+            subscriber.heartbeatDue = false;
+            if (!sent) {
+                return send(subscriber, SseEmitter.event().comment("keep-alive"));
+            }
+        }
+        return true;
+    }
+
+    private boolean send(Subscriber subscriber, SseEmitter.SseEventBuilder message) {
+        if (subscriber.dropped) {
+            subscriber.emitter.complete();
+            return false;
+        }
+        subscriber.sendStarted = System.nanoTime();
+        try {
+            subscriber.emitter.send(message);
+            return true;
+        } catch (IOException | IllegalStateException ex) {
+            remove(subscriber);
+            subscriber.emitter.completeWithError(ex);
+            return false;
+        } finally {
+            subscriber.sendStarted = 0;
+        }
+    }
+
+    /**
+     * @return the sequence in an event id of this process, or -1 when the id is missing, malformed or from
+     *         another epoch
+     */
+    private long sequenceOf(String eventId) {
+        if (eventId == null) {
+            return -1;
+        }
+        String prefix = epoch + "-";
+        String id = eventId.trim();
+        if (!id.startsWith(prefix)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(id.substring(prefix.length()));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private List<StreamedEvent> eventsAfter(long sequence) {
+        synchronized (buffer) {
+            long from = Math.max(sequence + 1, lastSequence - buffer.length + 1);
+            List<StreamedEvent> events = new ArrayList<>((int) Math.max(0, lastSequence - from + 1));
+            for (long s = from; s <= lastSequence; s++) {
+                events.add(buffer[(int) (s % buffer.length)]);
+            }
+            return events;
+        }
+    }
+
+    private long latestSequence() {
+        synchronized (buffer) {
+            return lastSequence;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.bebraradar.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+public enum EventTable {
+
+    GEOLOCATION("geolocation", "exact_trip_event_geo_location", null),
+    TIMETABLE("timetable", "exact_trip_event_timetable", "time"),
+    ANOMALY("anomaly", "exact_trip_anomaly", "estimated_delay");
+
+    private static final List<String> COMMON_COLUMNS =
+        List.of("trip_id", "vehicle_no", "user_id", "ts", "lat", "lon", "gps_accuracy_m", "type");
+
+    private final String pathName;
+    private final String tableName;
+    private final String extraColumn;
+
+    EventTable(String pathName, String tableName, String extraColumn) {
+        this.pathName = pathName;
+        this.tableName = tableName;
+        this.extraColumn = extraColumn;
+    }
+
+    public static Optional<EventTable> fromPathName(String name) {
+        return Arrays.stream(values())
+            .filter(table -> table.pathName.equalsIgnoreCase(name))
+            .findFirst();
+    }
+
+    public String pathName() {
+        return pathName;
+    }
+
+    public String tableName() {
+        return tableName;
+    }
+
+    public String extraColumn() {
+        return extraColumn;
+    }
+
+    public List<String> dataColumns() {
+        if (extraColumn == null) {
+            return COMMON_COLUMNS;
+        }
+        List<String> columns = new ArrayList<>(COMMON_COLUMNS);
+        columns.add(extraColumn);
+        return List.copyOf(columns);
+    }
+}
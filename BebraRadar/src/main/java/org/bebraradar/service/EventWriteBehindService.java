@@ -0,0 +1,91 @@
+package org.bebraradar.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.bebraradar.dto.AnomalyRequest;
+import org.bebraradar.dto.GeoEventRequest;
+import org.bebraradar.dto.TimetableEventRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+@Service
+public class EventWriteBehindService {
+
+    private static final Logger log = LoggerFactory.getLogger(EventWriteBehindService.class);
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final boolean enabled;
+    private final long retryAfterSeconds;
+    private final WriteBehindQueue<GeoEventRequest> geoQueue;
+    private final WriteBehindQueue<TimetableEventRequest> timetableQueue;
+    private final WriteBehindQueue<AnomalyRequest> anomalyQueue;
+
+    public EventWriteBehindService(EventIngestService ingestService,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${bebraradar.ingest.write-behind.enabled:false}") boolean enabled,
+                                   @Value("${bebraradar.ingest.write-behind.capacity:10000}") int capacity,
+                                   @Value("${bebraradar.ingest.write-behind.flush-size:500}") int flushSize,
+                                   @Value("${bebraradar.ingest.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                   @Value("${bebraradar.ingest.write-behind.retry-after-seconds:1}") long retryAfterSeconds) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        if (enabled) {
+            this.geoQueue = new WriteBehindQueue<>("geo", capacity, flushSize, flushInterval,
+                ingestService::ingestGeoEvents, meterRegistry);
+            this.timetableQueue = new WriteBehindQueue<>("timetable", capacity, flushSize, flushInterval,
+                ingestService::ingestTimetableEvents, meterRegistry);
+            this.anomalyQueue = new WriteBehindQueue<>("anomaly", capacity, flushSize, flushInterval,
+                ingestService::ingestAnomalies, meterRegistry);
+        } else {
+            this.geoQueue = null;
+            this.timetableQueue = null;
+            this.anomalyQueue = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void enqueueGeoEvent(GeoEventRequest request) {
+        enqueue(geoQueue, request);
+    }
+
+    public void enqueueTimetableEvent(TimetableEventRequest request) {
+        enqueue(timetableQueue, request);
+    }
+
+    public void enqueueAnomaly(AnomalyRequest request) {
+        enqueue(anomalyQueue, request);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        // the queues drain in parallel against one deadline
+        List<WriteBehindQueue<?>> queues = List.of(geoQueue, timetableQueue, anomalyQueue);
+        queues.forEach(WriteBehindQueue::shutdown);
+        long deadline = System.nanoTime() + SHUTDOWN_TIMEOUT.toNanos();
+        for (WriteBehindQueue<?> queue : queues) {
+            if (!queue.awaitTermination(deadline)) {
+                log.warn("Write-behind queue {} did not finish flushing within {}", queue.name(), SHUTDOWN_TIMEOUT);
+            }
+        }
+    }
+
+    private <T> void enqueue(WriteBehindQueue<T> queue, T request) {
+        if (!enabled) {
+            throw new IllegalStateException("Write-behind ingestion is disabled");
+        }
+        if (!queue.offer(request)) {
+            throw new IngestQueueFullException(queue.name(), retryAfterSeconds);
+        }
+    }
+}
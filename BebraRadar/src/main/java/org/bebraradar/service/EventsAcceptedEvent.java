@@ -0,0 +1,11 @@
+package org.bebraradar.service;
+
+import org.bebraradar.dto.EventResponse;
+
+import java.util.List;
+
+/**
+ * Published when realtime events were stored. Listeners that push events to clients should react after commit.
+ */
+public record EventsAcceptedEvent(EventTable table, List<EventResponse> events) {
+}
@@ -0,0 +1,47 @@
+package org.bebraradar.service;
+
+/**
+ * Distances on a spherical earth, in meters.
+ */
+public final class GeoMath {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_000.0;
+    public static final double METERS_PER_DEGREE = EARTH_RADIUS_METERS * Math.PI / 180;
+
+    private GeoMath() {
+    }
+
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dPhi = Math.toRadians(lat2 - lat1);
+        double dLambda = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dPhi / 2) * Math.sin(dPhi / 2)
+            + Math.cos(phi1) * Math.cos(phi2) * Math.sin(dLambda / 2) * Math.sin(dLambda / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.sqrt(a));
+    }
+
+    /**
+     * Initial great-circle bearing from the first point to the second, in degrees clockwise from north.
+     */
+    public static double bearing(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dLambda = Math.toRadians(lon2 - lon1);
+        double y = Math.sin(dLambda) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLambda);
+        return (Math.toDegrees(Math.atan2(y, x)) + 360.0) % 360.0;
+    }
+
+    /**
+     * Degrees of longitude spanned by {@code meters} at any latitude within {@code meters} of {@code latitude};
+     * 360 near the poles.
+     */
+    public static double longitudeSpan(double latitude, double meters) {
+        double widest = Math.abs(latitude) + meters / METERS_PER_DEGREE;
+        if (widest >= 89.0) {
+            return 360.0;
+        }
+        return Math.min(360.0, meters / (METERS_PER_DEGREE * Math.cos(Math.toRadians(widest))));
+    }
+}
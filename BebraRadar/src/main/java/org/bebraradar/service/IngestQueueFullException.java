@@ -0,0 +1,20 @@
+package org.bebraradar.service;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+public class IngestQueueFullException extends ResponseStatusException {
+
+    private final HttpHeaders headers = new HttpHeaders();
+
+    public IngestQueueFullException(String queueName, long retryAfterSeconds) {
+        super(HttpStatus.TOO_MANY_REQUESTS, "Ingest queue is full: " + queueName);
+        headers.set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        return headers;
+    }
+}
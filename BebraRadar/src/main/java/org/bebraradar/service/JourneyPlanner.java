@@ -0,0 +1,289 @@
+package org.bebraradar.service;
+
+import org.bebraradar.dto.JourneyDto;
+import org.bebraradar.dto.JourneyLegDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Journey planning with RAPTOR (Delling, Pajor, Werneck) over the {@link RaptorTimetable} of the current
+ * snapshot. Round k finds the earliest arrival at every stop using at most k trips, so the journeys that improve
+ * the arrival at the destination from one round to the next are exactly the Pareto set by arrival time and
+ * number of transfers. After each round, stops reached by a trip are relaxed along the walking transfers of the
+ * {@link TransferGraph}; changing vehicles at the same stop takes at least {@code min-transfer-time}.
+ */
+@Service
+public class JourneyPlanner {
+
+    private static final int UNREACHED = Integer.MAX_VALUE;
+
+    private final TimetableService timetableService;
+    private final TransferGraph transferGraph;
+    private final int maxTransfers;
+    private final int minTransferSeconds;
+    private volatile Footpaths footpaths;
+
+    /**
+     * Walking transfers of {@code graphVersion} resolved to the stop indexes of {@code snapshot} (CSR layout).
+     */
+    private record Footpaths(TimetableSnapshot snapshot, long graphVersion, int[] offsets, int[] targets,
+                             int[] seconds) {
+    }
+
+    /**
+     * Arrival time and how it was reached, per round and stop: by trip (pattern, trip slot and boarding
+     * position) or by walking from {@code parentWalk}.
+     */
+    private static final class Labels {
+
+        private final int[][] arrival;
+        private final int[][] parentPattern;
+        private final int[][] parentSlot;
+        private final int[][] parentBoarding;
+        private final int[][] parentWalk;
+
+        private Labels(int rounds, int stopCount) {
+            arrival = new int[rounds + 1][stopCount];
+            parentPattern = new int[rounds + 1][stopCount];
+            parentSlot = new int[rounds + 1][stopCount];
+            parentBoarding = new int[rounds + 1][stopCount];
+            parentWalk = new int[rounds + 1][stopCount];
+            for (int k = 0; k <= rounds; k++) {
+                Arrays.fill(arrival[k], UNREACHED);
+                Arrays.fill(parentWalk[k], -1);
+            }
+        }
+    }
+
+    public JourneyPlanner(TimetableService timetableService,
+                          TransferGraph transferGraph,
+                          @Value("${bebraradar.journeys.max-transfers:4}") int maxTransfers,
+                          @Value("${bebraradar.journeys.min-transfer-time:60s}") Duration minTransferTime) {
+        this.timetableService = timetableService;
+        this.transferGraph = transferGraph;
+        this.maxTransfers = maxTransfers;
+        this.minTransferSeconds = (int) minTransferTime.toSeconds();
+    }
+
+    /**
+     * @param departAfter local time in the timetable zone; trips of that service day are considered
+     * @return Pareto-optimal journeys, fewest transfers first, or null when either stop is unknown
+     */
+    public List<JourneyDto> plan(String fromStopId, String toStopId, LocalDateTime departAfter) {
+        TimetableSnapshot snapshot = timetableService.snapshot();
+        int from = snapshot.stopIndexOf(fromStopId);
+        int to = snapshot.stopIndexOf(toStopId);
+        if (from < 0 || to < 0) {
+            return null;
+        }
+        return plan(snapshot, from, to, departAfter, timetableService.zone());
+    }
+
+    List<JourneyDto> plan(TimetableSnapshot snapshot, int from, int to, LocalDateTime departAfter, ZoneId zone) {
+        if (from == to) {
+            return List.of();
+        }
+        RaptorTimetable timetable = snapshot.raptorTimetable();
+        Footpaths walks = footpaths(snapshot);
+        LocalDate date = departAfter.toLocalDate();
+        BitSet active = snapshot.services().activeOn(date);
+        int stopCount = snapshot.stopCount();
+        int rounds = maxTransfers + 1;
+
+        Labels labels = new Labels(rounds, stopCount);
+        int[][] arrival = labels.arrival;
+        int[] best = new int[stopCount];
+        Arrays.fill(best, UNREACHED);
+        int[] queuedPosition = new int[timetable.patternCount()];
+        Arrays.fill(queuedPosition, -1);
+        int[] queue = new int[timetable.patternCount()];
+
+        arrival[0][from] = departAfter.toLocalTime().toSecondOfDay();
+        best[from] = arrival[0][from];
+        BitSet marked = new BitSet(stopCount);
+        marked.set(from);
+        walk(walks, labels, best, marked, 0, to);
+
+        for (int k = 1; k <= rounds && !marked.isEmpty(); k++) {
+            int queued = 0;
+            for (int stop = marked.nextSetBit(0); stop >= 0; stop = marked.nextSetBit(stop + 1)) {
+                for (int e = timetable.firstStopPattern(stop); e < timetable.endStopPattern(stop); e++) {
+                    int pattern = timetable.stopPattern(e);
+                    int position = timetable.stopPatternPosition(e);
+                    if (queuedPosition[pattern] < 0) {
+                        queue[queued++] = pattern;
+                        queuedPosition[pattern] = position;
+                    } else if (position < queuedPosition[pattern]) {
+                        queuedPosition[pattern] = position;
+                    }
+                }
+            }
+            marked.clear();
+
+            for (int q = 0; q < queued; q++) {
+                int pattern = queue[q];
+                int slot = -1;
+                int boarding = -1;
+                for (int position = queuedPosition[pattern]; position < timetable.patternLength(pattern); position++) {
+                    int stop = timetable.patternStop(pattern, position);
+                    if (slot >= 0) {
+                        int arrivalTime = timetable.arrival(pattern, slot, position);
+                        if (arrivalTime < best[stop] && arrivalTime < best[to]) {
+                            arrival[k][stop] = arrivalTime;
+                            best[stop] = arrivalTime;
+                            labels.parentPattern[k][stop] = pattern;
+                            labels.parentSlot[k][stop] = slot;
+                            labels.parentBoarding[k][stop] = boarding;
+                            marked.set(stop);
+                        }
+                    }
+                    int previous = arrival[k - 1][stop];
+                    if (previous == UNREACHED) {
+                        continue;
+                    }
+                    // staying at the stop means changing vehicles; walking here already took time
+                    boolean changing = k > 1 && labels.parentWalk[k - 1][stop] < 0;
+                    int ready = previous + (changing ? minTransferSeconds : 0);
+                    if (slot < 0 || ready <= timetable.departure(pattern, slot, position)) {
+                        int candidate = firstActiveSlot(snapshot, timetable, active, pattern, position, ready);
+                        if (candidate >= 0 && (slot < 0 || candidate < slot)) {
+                            slot = candidate;
+                            boarding = position;
+                        }
+                    }
+                }
+                queuedPosition[pattern] = -1;
+            }
+            walk(walks, labels, best, marked, k, to);
+        }
+
+        List<JourneyDto> journeys = new ArrayList<>();
+        int bestArrival = UNREACHED;
+        for (int k = 0; k <= rounds; k++) {
+            if (arrival[k][to] < bestArrival) {
+                bestArrival = arrival[k][to];
+                journeys.add(journey(snapshot, timetable, labels, k, to, date, zone));
+            }
+        }
+        return journeys;
+    }
+
+    /**
+     * Relaxes the walking transfers of the stops marked in round {@code k}; stops reached on foot are marked
+     * too but are not walked from again.
+     */
+    private static void walk(Footpaths walks, Labels labels, int[] best, BitSet marked, int k, int to) {
+        BitSet reached = (BitSet) marked.clone();
+        for (int stop = reached.nextSetBit(0); stop >= 0; stop = reached.nextSetBit(stop + 1)) {
+            int departure = labels.arrival[k][stop];
+            for (int e = walks.offsets()[stop]; e < walks.offsets()[stop + 1]; e++) {
+                int target = walks.targets()[e];
+                int arrivalTime = departure + walks.seconds()[e];
+                if (arrivalTime < best[target] && arrivalTime < best[to]) {
+                    labels.arrival[k][target] = arrivalTime;
+                    best[target] = arrivalTime;
+                    labels.parentWalk[k][target] = stop;
+                    marked.set(target);
+                }
+            }
+        }
+    }
+
+    private static int firstActiveSlot(TimetableSnapshot snapshot, RaptorTimetable timetable, BitSet active,
+                                       int pattern, int position, int ready) {
+        int trips = timetable.patternTripCount(pattern);
+        for (int slot = timetable.firstDepartingSlot(pattern, position, ready); slot < trips; slot++) {
+            int service = snapshot.tripService(timetable.trip(pattern, slot));
+            if (service >= 0 && active.get(service)) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    private static JourneyDto journey(TimetableSnapshot snapshot, RaptorTimetable timetable, Labels labels,
+                                      int rounds, int to, LocalDate date, ZoneId zone) {
+        ZonedDateTime midnight = date.atStartOfDay(zone);
+        List<JourneyLegDto> legs = new ArrayList<>();
+        int stop = to;
+        for (int k = rounds; ; k--) {
+            int walkedFrom = labels.parentWalk[k][stop];
+            if (walkedFrom >= 0) {
+                legs.add(new JourneyLegDto("WALK", null, null,
+                    snapshot.stopId(walkedFrom), snapshot.stopName(walkedFrom),
+                    midnight.plusSeconds(labels.arrival[k][walkedFrom]).toOffsetDateTime(),
+                    snapshot.stopId(stop), snapshot.stopName(stop),
+                    midnight.plusSeconds(labels.arrival[k][stop]).toOffsetDateTime()));
+                stop = walkedFrom;
+            }
+            if (k == 0) {
+                break;
+            }
+            int pattern = labels.parentPattern[k][stop];
+            int slot = labels.parentSlot[k][stop];
+            int boarding = labels.parentBoarding[k][stop];
+            int boardStop = timetable.patternStop(pattern, boarding);
+            int trip = timetable.trip(pattern, slot);
+            legs.add(new JourneyLegDto("TRANSIT", snapshot.tripId(trip), snapshot.tripRoute(trip),
+                snapshot.stopId(boardStop), snapshot.stopName(boardStop),
+                midnight.plusSeconds(timetable.departure(pattern, slot, boarding)).toOffsetDateTime(),
+                snapshot.stopId(stop), snapshot.stopName(stop),
+                midnight.plusSeconds(labels.arrival[k][stop]).toOffsetDateTime()));
+            stop = boardStop;
+        }
+        Collections.reverse(legs);
+        if (legs.size() > 1 && legs.get(0).tripId() == null) {
+            // leave just in time for the first ride instead of waiting at the stop
+            JourneyLegDto walk = legs.get(0);
+            OffsetDateTime boarding = legs.get(1).departure();
+            legs.set(0, new JourneyLegDto(walk.mode(), null, null, walk.fromStopId(), walk.fromStopName(),
+                boarding.minus(Duration.between(walk.departure(), walk.arrival())), walk.toStopId(),
+                walk.toStopName(), boarding));
+        }
+        JourneyLegDto first = legs.get(0);
+        JourneyLegDto last = legs.get(legs.size() - 1);
+        return new JourneyDto(first.departure(), last.arrival(), Math.max(0, rounds - 1),
+            Duration.between(first.departure(), last.arrival()).toSeconds(), List.copyOf(legs));
+    }
+
+    private Footpaths footpaths(TimetableSnapshot snapshot) {
+        long graphVersion = transferGraph.version();
+        Footpaths current = footpaths;
+        if (current != null && current.snapshot() == snapshot && current.graphVersion() == graphVersion) {
+            return current;
+        }
+        int stopCount = snapshot.stopCount();
+        int[] offsets = new int[stopCount + 1];
+        List<int[]> edges = new ArrayList<>();
+        for (int stop = 0; stop < stopCount; stop++) {
+            for (TransferGraph.Transfer transfer : transferGraph.transfersFrom(snapshot.stopId(stop))) {
+                int target = snapshot.stopIndexOf(transfer.toStopId());
+                if (target >= 0) {
+                    edges.add(new int[]{target, transfer.walkSeconds()});
+                }
+            }
+            offsets[stop + 1] = edges.size();
+        }
+        int[] targets = new int[edges.size()];
+        int[] seconds = new int[edges.size()];
+        for (int e = 0; e < targets.length; e++) {
+            targets[e] = edges.get(e)[0];
+            seconds[e] = edges.get(e)[1];
+        }
+        current = new Footpaths(snapshot, graphVersion, offsets, targets, seconds);
+        footpaths = current;
+        return current;
+    }
+}
@@ -0,0 +1,24 @@
+package org.bebraradar.service;
+
+/**
+ * Latest known position of a vehicle. Timestamps are epoch microseconds (see {@link Timestamps})
+ * and absent measurements are stored as {@code NaN}.
+ */
+public record LiveVehicleState(String vehicleNo,
+                               long tripId,
+                               long timestampMicros,
+                               long lastStopTimestampMicros,
+                               double latitude,
+                               double longitude,
+                               double speedMps,
+                               double bearingDeg,
+                               double gpsAccuracyMeters) {
+
+    public static double toPrimitive(Double value) {
+        return value == null ? Double.NaN : value;
+    }
+
+    public static Double toBoxed(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
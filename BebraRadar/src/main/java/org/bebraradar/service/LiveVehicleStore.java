@@ -0,0 +1,232 @@
+package org.bebraradar.service;
+
+import jakarta.annotation.PreDestroy;
+import org.bebraradar.entity.VehiclePositionCurrent;
+import org.bebraradar.repository.VehiclePositionCurrentRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Authoritative in-memory copy of {@code vehicle_positions_current}, loaded once the application is ready. Reads
+ * never touch the database; updates are coalesced per vehicle and upserted in the background so only the latest
+ * state is written per interval. New vehicles are written through immediately because event tables reference them
+ * by foreign key. Every stored state is announced as a {@link VehicleMovedEvent}. Deleting a trip cascades to its
+ * vehicles in the database, so they are dropped here too; a row that still cannot be written is dropped on its own
+ * instead of holding back the rest of the flush.
+ */
+@Service
+public class LiveVehicleStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LiveVehicleStore.class);
+
+    private static final String UPSERT_SQL = """
+        insert into vehicle_positions_current
+            (vehicle_no, trip_id, ts, last_stop_ts, lat, lon, speed_mps, bearing_deg, gps_accuracy_m)
+        values (?, ?, ?, ?, ?, ?, ?, ?, ?)
+        on conflict (vehicle_no) do update set
+            trip_id = excluded.trip_id,
+            ts = excluded.ts,
+            last_stop_ts = excluded.last_stop_ts,
+            lat = excluded.lat,
+            lon = excluded.lon,
+            speed_mps = excluded.speed_mps,
+            bearing_deg = excluded.bearing_deg,
+            gps_accuracy_m = excluded.gps_accuracy_m
+        """;
+
+    private final VehiclePositionCurrentRepository repository;
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ConcurrentHashMap<String, LiveVehicleState> vehicles = new ConcurrentHashMap<>();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    private final Object writeLock = new Object();
+
+    public LiveVehicleStore(VehiclePositionCurrentRepository repository, JdbcTemplate jdbcTemplate,
+                            ApplicationEventPublisher eventPublisher) {
+        this.repository = repository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Runs before the other warm-ups, which may read the vehicles.
+     */
+    @WarmUpListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void rebuild() {
+        vehicles.clear();
+        for (VehiclePositionCurrent entity : repository.findAll()) {
+            vehicles.put(entity.getVehicleNo(), new LiveVehicleState(
+                entity.getVehicleNo(),
+                entity.getTrip().getId(),
+                Timestamps.toMicros(entity.getTimestamp()),
+                Timestamps.toMicros(entity.getLastStopTimestamp()),
+                LiveVehicleState.toPrimitive(entity.getLatitude()),
+                LiveVehicleState.toPrimitive(entity.getLongitude()),
+                LiveVehicleState.toPrimitive(entity.getSpeedMps()),
+                LiveVehicleState.toPrimitive(entity.getBearingDeg()),
+                LiveVehicleState.toPrimitive(entity.getGpsAccuracyMeters())));
+        }
+        log.info("Loaded {} live vehicles", vehicles.size());
+    }
+
+    public Optional<LiveVehicleState> get(String vehicleNo) {
+        return Optional.ofNullable(vehicles.get(vehicleNo));
+    }
+
+    public boolean contains(String vehicleNo) {
+        return vehicles.containsKey(vehicleNo);
+    }
+
+    public Collection<LiveVehicleState> all() {
+        return List.copyOf(vehicles.values());
+    }
+
+    /**
+     * Replaces the state of a known vehicle.
+     *
+     * @return false when the vehicle is not known (any more), in which case nothing is stored
+     */
+    public boolean update(LiveVehicleState state) {
+        LiveVehicleState[] previous = new LiveVehicleState[1];
+        // never re-adds a vehicle that a concurrent delete just removed
+        vehicles.computeIfPresent(state.vehicleNo(), (vehicleNo, current) -> {
+            previous[0] = current;
+            return state;
+        });
+        if (previous[0] == null) {
+            return false;
+        }
+        dirty.add(state.vehicleNo());
+        eventPublisher.publishEvent(new VehicleMovedEvent(previous[0], state));
+        return true;
+    }
+
+    public void insert(LiveVehicleState state) {
+        LiveVehicleState previous;
+        synchronized (writeLock) {
+            jdbcTemplate.update(UPSERT_SQL, ps -> bind(ps, state));
+            previous = vehicles.put(state.vehicleNo(), state);
+            dirty.remove(state.vehicleNo());
+        }
+        eventPublisher.publishEvent(new VehicleMovedEvent(previous, state));
+    }
+
+    public void delete(String vehicleNo) {
+        synchronized (writeLock) {
+            repository.deleteById(vehicleNo);
+            vehicles.remove(vehicleNo);
+            dirty.remove(vehicleNo);
+        }
+    }
+
+    /**
+     * A deleted trip took its vehicles with it in the database.
+     */
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.kind() != EntityChangedEvent.Kind.TRIP) {
+            return;
+        }
+        long tripId = (Long) event.id();
+        if (vehicles.values().stream().noneMatch(state -> state.tripId() == tripId)) {
+            return;
+        }
+        Boolean exists = jdbcTemplate.queryForObject("select exists(select 1 from trips where trip_id = ?)",
+            Boolean.class, tripId);
+        if (Boolean.TRUE.equals(exists)) {
+            return;
+        }
+        synchronized (writeLock) {
+            for (Iterator<LiveVehicleState> it = vehicles.values().iterator(); it.hasNext(); ) {
+                LiveVehicleState state = it.next();
+                if (state.tripId() == tripId) {
+                    it.remove();
+                    dirty.remove(state.vehicleNo());
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bebraradar.vehicles.flush-interval:1s}")
+    public void flush() {
+        synchronized (writeLock) {
+            List<LiveVehicleState> pending = new ArrayList<>();
+            for (Iterator<String> it = dirty.iterator(); it.hasNext(); ) {
+                String vehicleNo = it.next();
+                it.remove();
+                LiveVehicleState state = vehicles.get(vehicleNo);
+                if (state != null) {
+                    pending.add(state);
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                jdbcTemplate.batchUpdate(UPSERT_SQL, pending, 500, LiveVehicleStore::bind);
+            } catch (DataIntegrityViolationException ex) {
+                flushEach(pending);
+            } catch (RuntimeException ex) {
+                pending.forEach(state -> dirty.add(state.vehicleNo()));
+                log.error("Failed to flush {} vehicle positions, will retry", pending.size(), ex);
+            }
+        }
+    }
+
+    /**
+     * Writes the states one by one after a batch hit a constraint; the upsert is idempotent, so rows the batch
+     * already wrote are harmless to repeat. A state that violates a constraint, such as a vehicle of a trip
+     * deleted meanwhile, cannot exist in the table and is dropped.
+     */
+    private void flushEach(List<LiveVehicleState> pending) {
+        for (LiveVehicleState state : pending) {
+            try {
+                jdbcTemplate.update(UPSERT_SQL, ps -> bind(ps, state));
+            } catch (DataIntegrityViolationException ex) {
+                vehicles.remove(state.vehicleNo(), state);
+                log.warn("Dropped vehicle {} that cannot be stored: {}", state.vehicleNo(),
+                    ex.getMostSpecificCause().getMessage());
+            } catch (RuntimeException ex) {
+                dirty.add(state.vehicleNo());
+                log.error("Failed to flush vehicle position {}, will retry", state.vehicleNo(), ex);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private static void bind(PreparedStatement ps, LiveVehicleState state) throws SQLException {
+        ps.setString(1, state.vehicleNo());
+        ps.setLong(2, state.tripId());
+        ps.setObject(3, Timestamps.fromMicros(state.timestampMicros()));
+        ps.setObject(4, Timestamps.fromMicros(state.lastStopTimestampMicros()));
+        ps.setObject(5, LiveVehicleState.toBoxed(state.latitude()), Types.DOUBLE);
+        ps.setObject(6, LiveVehicleState.toBoxed(state.longitude()), Types.DOUBLE);
+        ps.setObject(7, LiveVehicleState.toBoxed(state.speedMps()), Types.DOUBLE);
+        ps.setObject(8, LiveVehicleState.toBoxed(state.bearingDeg()), Types.DOUBLE);
+        ps.setObject(9, LiveVehicleState.toBoxed(state.gpsAccuracyMeters()), Types.DOUBLE);
+    }
+}
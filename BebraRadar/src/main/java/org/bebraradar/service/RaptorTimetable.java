@@ -0,0 +1,181 @@
+package org.bebraradar.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Round-based (RAPTOR) view of a {@link TimetableSnapshot}. Trips of a route that serve the same stop sequence
+ * form a pattern; each pattern keeps its trips sorted by departure from the first stop and their times in a
+ * trip-major matrix, and every stop lists the patterns serving it. Trips are snapshot trip indexes.
+ */
+final class RaptorTimetable {
+
+    private final int[] patternStopOffsets;
+    private final int[] patternStops;
+    private final int[] patternTripOffsets;
+    private final int[] patternTrips;
+    private final int[] patternTimeOffsets;
+    private final int[] arrivals;
+    private final int[] departures;
+
+    private final int[] stopPatternOffsets;
+    private final int[] stopPatterns;
+    private final int[] stopPatternPositions;
+
+    private static final class PatternKey {
+
+        private final int route;
+        private final int[] stops;
+
+        private PatternKey(int route, int[] stops) {
+            this.route = route;
+            this.stops = stops;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof PatternKey key && key.route == route && Arrays.equals(key.stops, stops);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * route + Arrays.hashCode(stops);
+        }
+    }
+
+    RaptorTimetable(int stopCount, int[] tripRoutes, int[] tripStopOffsets, int[] stopTimeStops,
+                    int[] arrivalTimes, int[] departureTimes) {
+        Map<PatternKey, List<Integer>> tripsByPattern = new HashMap<>();
+        List<PatternKey> keys = new ArrayList<>();
+        for (int trip = 0; trip < tripRoutes.length; trip++) {
+            int from = tripStopOffsets[trip];
+            int to = tripStopOffsets[trip + 1];
+            if (to - from < 2) {
+                continue;
+            }
+            PatternKey key = new PatternKey(tripRoutes[trip], Arrays.copyOfRange(stopTimeStops, from, to));
+            tripsByPattern.computeIfAbsent(key, k -> {
+                keys.add(k);
+                return new ArrayList<>();
+            }).add(trip);
+        }
+
+        int patternCount = keys.size();
+        patternStopOffsets = new int[patternCount + 1];
+        patternTripOffsets = new int[patternCount + 1];
+        patternTimeOffsets = new int[patternCount + 1];
+        for (int p = 0; p < patternCount; p++) {
+            PatternKey key = keys.get(p);
+            int trips = tripsByPattern.get(key).size();
+            patternStopOffsets[p + 1] = patternStopOffsets[p] + key.stops.length;
+            patternTripOffsets[p + 1] = patternTripOffsets[p] + trips;
+            patternTimeOffsets[p + 1] = patternTimeOffsets[p] + trips * key.stops.length;
+        }
+        patternStops = new int[patternStopOffsets[patternCount]];
+        patternTrips = new int[patternTripOffsets[patternCount]];
+        arrivals = new int[patternTimeOffsets[patternCount]];
+        departures = new int[arrivals.length];
+        int[] stopPatternCounts = new int[stopCount + 1];
+        for (int p = 0; p < patternCount; p++) {
+            PatternKey key = keys.get(p);
+            System.arraycopy(key.stops, 0, patternStops, patternStopOffsets[p], key.stops.length);
+            for (int stop : key.stops) {
+                stopPatternCounts[stop + 1]++;
+            }
+            List<Integer> trips = tripsByPattern.get(key);
+            trips.sort((a, b) -> Integer.compare(departureTimes[tripStopOffsets[a]],
+                departureTimes[tripStopOffsets[b]]));
+            int length = key.stops.length;
+            for (int t = 0; t < trips.size(); t++) {
+                int trip = trips.get(t);
+                patternTrips[patternTripOffsets[p] + t] = trip;
+                int base = patternTimeOffsets[p] + t * length;
+                System.arraycopy(arrivalTimes, tripStopOffsets[trip], arrivals, base, length);
+                System.arraycopy(departureTimes, tripStopOffsets[trip], departures, base, length);
+            }
+        }
+
+        stopPatternOffsets = new int[stopCount + 1];
+        for (int stop = 0; stop < stopCount; stop++) {
+            stopPatternOffsets[stop + 1] = stopPatternOffsets[stop] + stopPatternCounts[stop + 1];
+        }
+        stopPatterns = new int[stopPatternOffsets[stopCount]];
+        stopPatternPositions = new int[stopPatterns.length];
+        int[] fill = Arrays.copyOf(stopPatternOffsets, stopCount);
+        for (int p = 0; p < patternCount; p++) {
+            for (int position = 0; position < patternLength(p); position++) {
+                int stop = patternStops[patternStopOffsets[p] + position];
+                stopPatterns[fill[stop]] = p;
+                stopPatternPositions[fill[stop]++] = position;
+            }
+        }
+    }
+
+    int patternCount() {
+        return patternStopOffsets.length - 1;
+    }
+
+    int patternLength(int pattern) {
+        return patternStopOffsets[pattern + 1] - patternStopOffsets[pattern];
+    }
+
+    int patternStop(int pattern, int position) {
+        return patternStops[patternStopOffsets[pattern] + position];
+    }
+
+    int patternTripCount(int pattern) {
+        return patternTripOffsets[pattern + 1] - patternTripOffsets[pattern];
+    }
+
+    /**
+     * Snapshot trip index of the {@code slot}-th trip of the pattern.
+     */
+    int trip(int pattern, int slot) {
+        return patternTrips[patternTripOffsets[pattern] + slot];
+    }
+
+    int arrival(int pattern, int slot, int position) {
+        return arrivals[patternTimeOffsets[pattern] + slot * patternLength(pattern) + position];
+    }
+
+    int departure(int pattern, int slot, int position) {
+        return departures[patternTimeOffsets[pattern] + slot * patternLength(pattern) + position];
+    }
+
+    /**
+     * First trip slot departing from {@code position} at or after {@code second}, assuming trips of a pattern do
+     * not overtake each other.
+     */
+    int firstDepartingSlot(int pattern, int position, int second) {
+        int low = 0;
+        int high = patternTripCount(pattern);
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departure(pattern, mid, position) < second) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    int firstStopPattern(int stop) {
+        return stopPatternOffsets[stop];
+    }
+
+    int endStopPattern(int stop) {
+        return stopPatternOffsets[stop + 1];
+    }
+
+    int stopPattern(int entry) {
+        return stopPatterns[entry];
+    }
+
+    int stopPatternPosition(int entry) {
+        return stopPatternPositions[entry];
+    }
+}
@@ -1,5 +1,8 @@
 package org.bebraradar.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.persistence.EntityManager;
 import org.bebraradar.entity.Route;
 import org.bebraradar.entity.ShapeIdEntity;
 import org.bebraradar.entity.Stop;
@@ -13,11 +16,27 @@ import org.bebraradar.repository.StopRepository;
 import org.bebraradar.repository.TripRepository;
 import org.bebraradar.repository.UserAccountRepository;
 import org.bebraradar.repository.ServiceCalendarRepository;
-import org.bebraradar.repository.VehiclePositionCurrentRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Resolves foreign keys of incoming requests. Ids that were recently seen to exist are remembered per entity
+ * type (size-capped, expiring after a TTL), and for those a lazy {@link EntityManager#getReference} proxy is
+ * handed out instead of running a SELECT. Unknown ids still go to the database, so missing rows keep
+ * producing 404s.
+ */
 @Service
 public class ReferenceResolver {
 
@@ -27,7 +46,15 @@ public class ReferenceResolver {
     private final StopRepository stopRepository;
     private final UserAccountRepository userAccountRepository;
     private final ServiceCalendarRepository calendarRepository;
-    private final VehiclePositionCurrentRepository vehicleRepository;
+    private final LiveVehicleStore vehicleStore;
+    private final EntityManager entityManager;
+
+    private final Cache<String, Boolean> knownRoutes;
+    private final Cache<String, Boolean> knownShapes;
+    private final Cache<Long, Boolean> knownTrips;
+    private final Cache<String, Boolean> knownStops;
+    private final Cache<Long, Boolean> knownUsers;
+    private final Cache<String, Boolean> knownCalendars;
 
     public ReferenceResolver(RouteRepository routeRepository,
                              ShapeIdRepository shapeIdRepository,
@@ -35,47 +62,51 @@ public class ReferenceResolver {
                              StopRepository stopRepository,
                              UserAccountRepository userAccountRepository,
                              ServiceCalendarRepository calendarRepository,
-                             VehiclePositionCurrentRepository vehicleRepository) {
+                             LiveVehicleStore vehicleStore,
+                             EntityManager entityManager,
+                             @Value("${bebraradar.references.cache.max-size:100000}") long maxSize,
+                             @Value("${bebraradar.references.cache.ttl:10m}") Duration ttl) {
         this.routeRepository = routeRepository;
         this.shapeIdRepository = shapeIdRepository;
         this.tripRepository = tripRepository;
         this.stopRepository = stopRepository;
         this.userAccountRepository = userAccountRepository;
         this.calendarRepository = calendarRepository;
-        this.vehicleRepository = vehicleRepository;
+        this.vehicleStore = vehicleStore;
+        this.entityManager = entityManager;
+        this.knownRoutes = newCache(maxSize, ttl);
+        this.knownShapes = newCache(maxSize, ttl);
+        this.knownTrips = newCache(maxSize, ttl);
+        this.knownStops = newCache(maxSize, ttl);
+        this.knownUsers = newCache(maxSize, ttl);
+        this.knownCalendars = newCache(maxSize, ttl);
     }
 
     public Route requireRoute(String id) {
-        return routeRepository.findById(id)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Route not found: " + id));
+        return require(knownRoutes, Route.class, id, routeRepository::findById, "Route");
     }
 
     public ShapeIdEntity requireShape(String id) {
-        return shapeIdRepository.findById(id)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Shape not found: " + id));
+        return require(knownShapes, ShapeIdEntity.class, id, shapeIdRepository::findById, "Shape");
     }
 
     public ShapeIdEntity resolveShapeNullable(String id) {
         if (id == null) {
             return null;
         }
-        return shapeIdRepository.findById(id)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Shape not found: " + id));
+        return requireShape(id);
     }
 
     public Trip requireTrip(Long id) {
-        return tripRepository.findById(id)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Trip not found: " + id));
+        return require(knownTrips, Trip.class, id, tripRepository::findById, "Trip");
     }
 
     public Stop requireStop(String id) {
-        return stopRepository.findById(id)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Stop not found: " + id));
+        return require(knownStops, Stop.class, id, stopRepository::findById, "Stop");
     }
 
     public UserAccount requireUser(Long id) {
-        return userAccountRepository.findById(id)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "User not found: " + id));
+        return require(knownUsers, UserAccount.class, id, userAccountRepository::findById, "User");
     }
 
     public UserAccount resolveUserNullable(Long id) {
@@ -86,15 +117,86 @@ public class ReferenceResolver {
     }
 
     public ServiceCalendar requireCalendar(String id) {
-        return calendarRepository.findById(id)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Calendar not found: " + id));
+        return require(knownCalendars, ServiceCalendar.class, id, calendarRepository::findById, "Calendar");
     }
 
     public VehiclePositionCurrent resolveVehicleNullable(String vehicleNo) {
         if (vehicleNo == null || vehicleNo.isBlank()) {
             return null;
         }
-        return vehicleRepository.findById(vehicleNo)
-            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Vehicle not found: " + vehicleNo));
+        if (!vehicleStore.contains(vehicleNo)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Vehicle not found: " + vehicleNo);
+        }
+        return entityManager.getReference(VehiclePositionCurrent.class, vehicleNo);
+    }
+
+    public Set<Long> existingTripIds(Collection<Long> ids) {
+        return existing(knownTrips, ids, tripRepository::findExistingIds);
+    }
+
+    public Set<Long> existingUserIds(Collection<Long> ids) {
+        return existing(knownUsers, ids, userAccountRepository::findExistingIds);
+    }
+
+    public Set<String> existingVehicleNos(Collection<String> vehicleNos) {
+        Set<String> existing = new HashSet<>();
+        for (String vehicleNo : vehicleNos) {
+            if (vehicleStore.contains(vehicleNo)) {
+                existing.add(vehicleNo);
+            }
+        }
+        return existing;
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        switch (event.kind()) {
+            case ROUTE -> knownRoutes.invalidate((String) event.id());
+            case SHAPE -> knownShapes.invalidate((String) event.id());
+            case TRIP -> knownTrips.invalidate((Long) event.id());
+            case STOP -> knownStops.invalidate((String) event.id());
+            case USER -> knownUsers.invalidate((Long) event.id());
+            case CALENDAR -> knownCalendars.invalidate((String) event.id());
+            default -> {
+            }
+        }
+    }
+
+    private <K, E> E require(Cache<K, Boolean> known, Class<E> type, K id, Function<K, Optional<E>> loader,
+                             String label) {
+        if (id != null && known.getIfPresent(id) != null) {
+            return entityManager.getReference(type, id);
+        }
+        E entity = loader.apply(id)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, label + " not found: " + id));
+        known.put(id, Boolean.TRUE);
+        return entity;
+    }
+
+    private static <K> Set<K> existing(Cache<K, Boolean> known, Collection<K> ids,
+                                       Function<Collection<K>, List<K>> loader) {
+        Set<K> existing = new HashSet<>();
+        List<K> unknown = new ArrayList<>();
+        for (K id : ids) {
+            if (known.getIfPresent(id) != null) {
+                existing.add(id);
+            } else {
+                unknown.add(id);
+            }
+        }
+        if (!unknown.isEmpty()) {
+            for (K id : loader.apply(unknown)) {
+                known.put(id, Boolean.TRUE);
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
+    private static <K> Cache<K, Boolean> newCache(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .build();
     }
 }
@@ -0,0 +1,164 @@
+package org.bebraradar.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Which services run on which day. Every calendar, together with its calendar_dates exceptions, is expanded
+ * into one bit per day, so {@link #activeOn(LocalDate)} is an array lookup returning a bitset over service
+ * slots. Slots are dense and stable: a changed service keeps its slot and a removed one leaves an empty slot
+ * behind, so trip data indexed by slot stays valid across {@link #with} updates. Instances are immutable;
+ * {@code with} copies only the day bitsets whose bits actually change.
+ */
+public final class ServiceActivityIndex {
+
+    private static final BitSet NONE = new BitSet();
+
+    /**
+     * A calendar row and its exceptions. Days are epoch days; {@code weekdays} has bit 0 for Monday.
+     */
+    public record ServiceDays(String serviceId, int weekdays, long startDay, long endDay,
+                              long[] addedDays, long[] removedDays) {
+
+        boolean runsOn(long day) {
+            if (Arrays.binarySearch(removedDays, day) >= 0) {
+                return false;
+            }
+            if (Arrays.binarySearch(addedDays, day) >= 0) {
+                return true;
+            }
+            // epoch day 0 was a Thursday
+            return day >= startDay && day <= endDay && (weekdays & 1 << Math.floorMod(day + 3, 7)) != 0;
+        }
+
+        long firstDay() {
+            return addedDays.length == 0 ? startDay : Math.min(startDay, addedDays[0]);
+        }
+
+        long lastDay() {
+            return addedDays.length == 0 ? endDay : Math.max(endDay, addedDays[addedDays.length - 1]);
+        }
+    }
+
+    private final String[] serviceIds;
+    private final Map<String, Integer> slots;
+    private final int[] weekdays;
+    private final long firstDay;
+    private final BitSet[] days;
+
+    private ServiceActivityIndex(String[] serviceIds, Map<String, Integer> slots, int[] weekdays, long firstDay,
+                                 BitSet[] days) {
+        this.serviceIds = serviceIds;
+        this.slots = slots;
+        this.weekdays = weekdays;
+        this.firstDay = firstDay;
+        this.days = days;
+    }
+
+    public static ServiceActivityIndex of(Collection<ServiceDays> services) {
+        ServiceActivityIndex empty = new ServiceActivityIndex(new String[0], Map.of(), new int[0], 0, new BitSet[0]);
+        return empty.with(services.stream().map(ServiceDays::serviceId).toList(), services);
+    }
+
+    /**
+     * Returns a copy in which every service in {@code changedIds} is replaced by its entry in {@code services},
+     * or emptied when it has none.
+     */
+    public ServiceActivityIndex with(Collection<String> changedIds, Collection<ServiceDays> services) {
+        Map<String, ServiceDays> byId = new HashMap<>();
+        for (ServiceDays service : services) {
+            byId.put(service.serviceId(), service);
+        }
+        Map<String, Integer> newSlots = new HashMap<>(slots);
+        String[] newIds = serviceIds;
+        int[] newWeekdays = weekdays;
+        long first = days.length == 0 ? Long.MAX_VALUE : firstDay;
+        long last = days.length == 0 ? Long.MIN_VALUE : firstDay + days.length - 1;
+        for (ServiceDays service : services) {
+            if (!newSlots.containsKey(service.serviceId())) {
+                int slot = newIds.length;
+                newIds = Arrays.copyOf(newIds, slot + 1);
+                newIds[slot] = service.serviceId();
+                newWeekdays = Arrays.copyOf(newWeekdays, slot + 1);
+                newSlots.put(service.serviceId(), slot);
+            }
+            if (service.firstDay() <= service.lastDay()) {
+                first = Math.min(first, service.firstDay());
+                last = Math.max(last, service.lastDay());
+            }
+        }
+        if (newWeekdays == weekdays) {
+            newWeekdays = weekdays.clone();
+        }
+        if (first > last) {
+            return new ServiceActivityIndex(newIds, newSlots, newWeekdays, 0, new BitSet[0]);
+        }
+
+        BitSet[] newDays = new BitSet[Math.toIntExact(last - first + 1)];
+        if (days.length > 0) {
+            System.arraycopy(days, 0, newDays, Math.toIntExact(firstDay - first), days.length);
+        }
+        boolean[] copied = new boolean[newDays.length];
+        for (String serviceId : changedIds) {
+            Integer slot = newSlots.get(serviceId);
+            if (slot == null) {
+                continue;
+            }
+            ServiceDays service = byId.get(serviceId);
+            newWeekdays[slot] = service == null ? 0 : service.weekdays();
+            for (int d = 0; d < newDays.length; d++) {
+                boolean active = service != null && service.runsOn(first + d);
+                boolean current = newDays[d] != null && newDays[d].get(slot);
+                if (active == current) {
+                    continue;
+                }
+                if (!copied[d]) {
+                    newDays[d] = newDays[d] == null ? new BitSet(newIds.length) : (BitSet) newDays[d].clone();
+                    copied[d] = true;
+                }
+                newDays[d].set(slot, active);
+            }
+        }
+        return new ServiceActivityIndex(newIds, newSlots, newWeekdays, first, newDays);
+    }
+
+    public int slotOf(String serviceId) {
+        Integer slot = slots.get(serviceId);
+        return slot == null ? -1 : slot;
+    }
+
+    public int size() {
+        return serviceIds.length;
+    }
+
+    /**
+     * Services running on {@code date}, calendar_dates exceptions included. The bitset is shared and must not
+     * be modified.
+     */
+    public BitSet activeOn(LocalDate date) {
+        long offset = date.toEpochDay() - firstDay;
+        if (offset < 0 || offset >= days.length || days[(int) offset] == null) {
+            return NONE;
+        }
+        return days[(int) offset];
+    }
+
+    /**
+     * Services whose calendar has the weekday flag set, regardless of date range and exceptions.
+     */
+    public BitSet activeOn(DayOfWeek dayOfWeek) {
+        int bit = 1 << (dayOfWeek.getValue() - 1);
+        BitSet active = new BitSet(weekdays.length);
+        for (int slot = 0; slot < weekdays.length; slot++) {
+            if ((weekdays[slot] & bit) != 0) {
+                active.set(slot);
+            }
+        }
+        return active;
+    }
+}
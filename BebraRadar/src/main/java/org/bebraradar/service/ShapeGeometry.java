@@ -0,0 +1,148 @@
+package org.bebraradar.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * A shape with every Douglas-Peucker simplification level precomputed. One pass of the algorithm records for each
+ * point the largest tolerance at which it is still kept (capped by the point that split its segment), so the
+ * simplification for any tolerance is the points whose significance exceeds it. Encoded polylines are prepared
+ * for every zoom level up to {@link #MAX_ZOOM}, sharing strings between levels that keep the same points.
+ */
+public final class ShapeGeometry {
+
+    public static final int MAX_ZOOM = 22;
+
+    // meters per pixel at zoom 0 on the equator for 256 px web mercator tiles
+    private static final double METERS_PER_PIXEL_AT_ZOOM_0 = 156_543.03392;
+
+    private final int pointCount;
+    private final int[] pointCounts = new int[MAX_ZOOM + 1];
+    private final String[] polylines = new String[MAX_ZOOM + 1];
+    private final String fullPolyline;
+
+    public ShapeGeometry(double[] latitudes, double[] longitudes, double tolerancePixels) {
+        this.pointCount = latitudes.length;
+        double[] significance = significance(latitudes, longitudes);
+        double meanLatitude = Arrays.stream(latitudes).average().orElse(0);
+        double metersPerPixel = METERS_PER_PIXEL_AT_ZOOM_0 * Math.cos(Math.toRadians(meanLatitude));
+        this.fullPolyline = encode(latitudes, longitudes, significance, -1);
+        int previousCount = -1;
+        for (int zoom = 0; zoom <= MAX_ZOOM; zoom++) {
+            double tolerance = tolerancePixels * metersPerPixel / (1L << zoom);
+            int count = 0;
+            for (double value : significance) {
+                if (value > tolerance) {
+                    count++;
+                }
+            }
+            pointCounts[zoom] = count;
+            polylines[zoom] = count == previousCount ? polylines[zoom - 1]
+                : count == pointCount ? fullPolyline : encode(latitudes, longitudes, significance, tolerance);
+            previousCount = count;
+        }
+    }
+
+    public int pointCount() {
+        return pointCount;
+    }
+
+    public int pointCount(int zoom) {
+        return pointCounts[zoom];
+    }
+
+    public String polyline(int zoom) {
+        return polylines[zoom];
+    }
+
+    public String fullPolyline() {
+        return fullPolyline;
+    }
+
+    /**
+     * Douglas-Peucker with an explicit stack; distances are measured in meters on a local equirectangular
+     * projection. Endpoints are always kept.
+     */
+    private static double[] significance(double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        double[] significance = new double[n];
+        if (n == 0) {
+            return significance;
+        }
+        double scale = Math.cos(Math.toRadians(latitudes[0]));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = longitudes[i] * scale * GeoMath.METERS_PER_DEGREE;
+            y[i] = latitudes[i] * GeoMath.METERS_PER_DEGREE;
+        }
+        significance[0] = Double.POSITIVE_INFINITY;
+        significance[n - 1] = Double.POSITIVE_INFINITY;
+        Deque<double[]> segments = new ArrayDeque<>();
+        segments.push(new double[]{0, n - 1, Double.POSITIVE_INFINITY});
+        while (!segments.isEmpty()) {
+            double[] segment = segments.pop();
+            int first = (int) segment[0];
+            int last = (int) segment[1];
+            if (last - first < 2) {
+                continue;
+            }
+            int farthest = -1;
+            double maxDistance = -1;
+            for (int i = first + 1; i < last; i++) {
+                double distance = segmentDistance(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (distance > maxDistance) {
+                    maxDistance = distance;
+                    farthest = i;
+                }
+            }
+            double value = Math.min(maxDistance, segment[2]);
+            significance[farthest] = value;
+            segments.push(new double[]{first, farthest, value});
+            segments.push(new double[]{farthest, last, value});
+        }
+        return significance;
+    }
+
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return Math.sqrt(ex * ex + ey * ey);
+    }
+
+    /**
+     * Google encoded polyline of the points whose significance exceeds {@code tolerance}.
+     */
+    private static String encode(double[] latitudes, double[] longitudes, double[] significance, double tolerance) {
+        StringBuilder encoded = new StringBuilder();
+        long previousLat = 0;
+        long previousLon = 0;
+        for (int i = 0; i < latitudes.length; i++) {
+            if (significance[i] <= tolerance) {
+                continue;
+            }
+            long lat = Math.round(latitudes[i] * 1e5);
+            long lon = Math.round(longitudes[i] * 1e5);
+            encodeValue(lat - previousLat, encoded);
+            encodeValue(lon - previousLon, encoded);
+            previousLat = lat;
+            previousLon = lon;
+        }
+        return encoded.toString();
+    }
+
+    private static void encodeValue(long value, StringBuilder encoded) {
+        long shifted = value < 0 ? ~(value << 1) : value << 1;
+        while (shifted >= 0x20) {
+            encoded.append((char) ((0x20 | (shifted & 0x1f)) + 63));
+            shifted >>= 5;
+        }
+        encoded.append((char) (shifted + 63));
+    }
+}
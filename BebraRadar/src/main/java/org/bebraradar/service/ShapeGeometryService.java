@@ -0,0 +1,93 @@
+package org.bebraradar.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.bebraradar.dto.ShapePointResponse;
+import org.bebraradar.repository.ShapeIdRepository;
+import org.bebraradar.repository.ShapePointRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Simplified shape geometries and shape matchers, built once per shape and cached until a point of the shape
+ * changes through {@code /shape-points} or {@code /shape-ids}; the TTL covers points written to the database
+ * directly.
+ */
+@Service
+public class ShapeGeometryService {
+
+    private final ShapePointRepository shapePointRepository;
+    private final ShapeIdRepository shapeIdRepository;
+    private final double tolerancePixels;
+    private final Cache<String, ShapeGeometry> geometries;
+    private final Cache<String, ShapeMatcher> matchers;
+
+    public ShapeGeometryService(ShapePointRepository shapePointRepository,
+                                ShapeIdRepository shapeIdRepository,
+                                @Value("${bebraradar.shapes.geometry.tolerance-pixels:1.0}") double tolerancePixels,
+                                @Value("${bebraradar.shapes.geometry.cache.max-size:10000}") long maxSize,
+                                @Value("${bebraradar.shapes.geometry.cache.ttl:1h}") Duration ttl) {
+        this.shapePointRepository = shapePointRepository;
+        this.shapeIdRepository = shapeIdRepository;
+        this.tolerancePixels = tolerancePixels;
+        this.geometries = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .build();
+        this.matchers = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(ttl)
+            .build();
+    }
+
+    /**
+     * @return the geometry, or null when the shape does not exist
+     */
+    public ShapeGeometry geometry(String shapeId) {
+        return geometries.get(shapeId, this::load);
+    }
+
+    /**
+     * @return the matcher, or null when the shape does not exist
+     */
+    public ShapeMatcher matcher(String shapeId) {
+        return matchers.get(shapeId, id -> {
+            double[][] points = points(id);
+            return points == null ? null : new ShapeMatcher(points[0], points[1]);
+        });
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.kind() == EntityChangedEvent.Kind.SHAPE || event.kind() == EntityChangedEvent.Kind.SHAPE_POINT) {
+            geometries.invalidate((String) event.id());
+            matchers.invalidate((String) event.id());
+        }
+    }
+
+    private ShapeGeometry load(String shapeId) {
+        double[][] points = points(shapeId);
+        return points == null ? null : new ShapeGeometry(points[0], points[1], tolerancePixels);
+    }
+
+    /**
+     * Latitudes and longitudes in sequence order, or null when the shape does not exist.
+     */
+    private double[][] points(String shapeId) {
+        List<ShapePointResponse> points = shapePointRepository.findResponsesByShapeId(shapeId);
+        if (points.isEmpty() && !shapeIdRepository.existsById(shapeId)) {
+            return null;
+        }
+        double[] latitudes = new double[points.size()];
+        double[] longitudes = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            latitudes[i] = points.get(i).latitude();
+            longitudes[i] = points.get(i).longitude();
+        }
+        return new double[][]{latitudes, longitudes};
+    }
+}
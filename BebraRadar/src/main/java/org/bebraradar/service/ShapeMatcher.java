@@ -0,0 +1,251 @@
+package org.bebraradar.service;
+
+import java.util.Arrays;
+
+/**
+ * Projects positions onto a shape, giving the distance along it and the cross-track error. Points are kept in
+ * primitive arrays, in degrees and in meters on a local equirectangular projection, with cumulative haversine
+ * distances. Segments are indexed by a balanced tree of bounding boxes over runs of consecutive segments: a shape
+ * rarely turns back on itself, so the boxes stay tight and a nearest segment search visits O(log n) nodes instead
+ * of every segment.
+ */
+public final class ShapeMatcher {
+
+    /**
+     * @param distanceAlong meters from the first point of the shape to the projection
+     * @param crossTrack    meters from the position to the projection
+     * @param segment       index of the matched segment, between point {@code segment} and {@code segment + 1}
+     */
+    public record Match(double distanceAlong, double crossTrack, int segment) {
+    }
+
+    private static final int LEAF_SIZE = 8;
+
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] x;
+    private final double[] y;
+    private final double[] cumulative;
+    private final double scale;
+    private final int segments;
+
+    // heap-ordered boxes: node i covers a run of segments and has children 2i + 1 and 2i + 2
+    private final double[] minX;
+    private final double[] minY;
+    private final double[] maxX;
+    private final double[] maxY;
+
+    public ShapeMatcher(double[] latitudes, double[] longitudes) {
+        int n = latitudes.length;
+        this.latitudes = latitudes.clone();
+        this.longitudes = longitudes.clone();
+        this.scale = n == 0 ? 1 : Math.cos(Math.toRadians(latitudes[0]));
+        this.x = new double[n];
+        this.y = new double[n];
+        this.cumulative = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = longitudes[i] * scale * GeoMath.METERS_PER_DEGREE;
+            y[i] = latitudes[i] * GeoMath.METERS_PER_DEGREE;
+            if (i > 0) {
+                cumulative[i] = cumulative[i - 1]
+                    + GeoMath.haversine(latitudes[i - 1], longitudes[i - 1], latitudes[i], longitudes[i]);
+            }
+        }
+        this.segments = Math.max(0, n - 1);
+        int depth = 0;
+        for (int size = segments; size > LEAF_SIZE; size = (size + 1) / 2) {
+            depth++;
+        }
+        int nodes = segments == 0 ? 0 : (2 << depth) - 1;
+        this.minX = new double[nodes];
+        this.minY = new double[nodes];
+        this.maxX = new double[nodes];
+        this.maxY = new double[nodes];
+        if (segments > 0) {
+            build(0, 0, segments);
+        }
+    }
+
+    public int pointCount() {
+        return latitudes.length;
+    }
+
+    /**
+     * Length of the shape in meters.
+     */
+    public double length() {
+        return latitudes.length == 0 ? 0 : cumulative[latitudes.length - 1];
+    }
+
+    /**
+     * The nearest point of the shape. A shape without segments matches nothing: the cross-track error is infinite
+     * and the segment is -1.
+     */
+    public Match match(double latitude, double longitude) {
+        return matchFrom(latitude, longitude, 0);
+    }
+
+    /**
+     * The nearest point of the shape on segment {@code firstSegment} or later, so that stops can be projected in
+     * order onto a shape that passes the same place twice.
+     */
+    public Match matchFrom(double latitude, double longitude, int firstSegment) {
+        Cursor cursor = new Cursor();
+        cursor.first = Math.max(0, Math.min(firstSegment, segments - 1));
+        if (!nearest(latitude, longitude, cursor)) {
+            return new Match(0, Double.POSITIVE_INFINITY, -1);
+        }
+        return new Match(distanceAlong(cursor), crossTrack(latitude, longitude, cursor), cursor.segment);
+    }
+
+    /**
+     * Matches the first {@code count} positions into the output arrays without allocating per position;
+     * {@code segment} may be null.
+     */
+    public void matchAll(double[] latitudes, double[] longitudes, int count, double[] distanceAlong,
+                         double[] crossTrack, int[] segment) {
+        Cursor cursor = new Cursor();
+        for (int i = 0; i < count; i++) {
+            if (nearest(latitudes[i], longitudes[i], cursor)) {
+                distanceAlong[i] = distanceAlong(cursor);
+                crossTrack[i] = crossTrack(latitudes[i], longitudes[i], cursor);
+            } else {
+                distanceAlong[i] = 0;
+                crossTrack[i] = Double.POSITIVE_INFINITY;
+                cursor.segment = -1;
+            }
+            if (segment != null) {
+                segment[i] = cursor.segment;
+            }
+        }
+    }
+
+    /**
+     * The position {@code distanceAlong} meters from the start, clamped to the ends of the shape, as
+     * {@code {latitude, longitude}}; null for an empty shape.
+     */
+    public double[] positionAt(double distanceAlong) {
+        int n = latitudes.length;
+        if (n == 0) {
+            return null;
+        }
+        if (distanceAlong <= 0 || n == 1) {
+            return new double[]{latitudes[0], longitudes[0]};
+        }
+        if (distanceAlong >= cumulative[n - 1]) {
+            return new double[]{latitudes[n - 1], longitudes[n - 1]};
+        }
+        int found = Arrays.binarySearch(cumulative, distanceAlong);
+        // last point at or before the distance; equal cumulative values come from repeated points
+        int i = found >= 0 ? found : -found - 2;
+        while (i + 1 < n - 1 && cumulative[i + 1] <= distanceAlong) {
+            i++;
+        }
+        i = Math.min(i, n - 2);
+        double length = cumulative[i + 1] - cumulative[i];
+        double t = length <= 0 ? 0 : (distanceAlong - cumulative[i]) / length;
+        return new double[]{latitudes[i] + (latitudes[i + 1] - latitudes[i]) * t,
+            longitudes[i] + (longitudes[i + 1] - longitudes[i]) * t};
+    }
+
+    private void build(int node, int from, int to) {
+        if (to - from <= LEAF_SIZE) {
+            minX[node] = Double.POSITIVE_INFINITY;
+            minY[node] = Double.POSITIVE_INFINITY;
+            maxX[node] = Double.NEGATIVE_INFINITY;
+            maxY[node] = Double.NEGATIVE_INFINITY;
+            for (int i = from; i <= to; i++) {
+                minX[node] = Math.min(minX[node], x[i]);
+                minY[node] = Math.min(minY[node], y[i]);
+                maxX[node] = Math.max(maxX[node], x[i]);
+                maxY[node] = Math.max(maxY[node], y[i]);
+            }
+            return;
+        }
+        int mid = (from + to + 1) >>> 1;
+        int left = 2 * node + 1;
+        int right = left + 1;
+        build(left, from, mid);
+        build(right, mid, to);
+        minX[node] = Math.min(minX[left], minX[right]);
+        minY[node] = Math.min(minY[left], minY[right]);
+        maxX[node] = Math.max(maxX[left], maxX[right]);
+        maxY[node] = Math.max(maxY[left], maxY[right]);
+    }
+
+    private boolean nearest(double latitude, double longitude, Cursor cursor) {
+        if (segments == 0) {
+            return false;
+        }
+        cursor.distanceSquared = Double.POSITIVE_INFINITY;
+        cursor.segment = -1;
+        search(0, 0, segments, longitude * scale * GeoMath.METERS_PER_DEGREE,
+            latitude * GeoMath.METERS_PER_DEGREE, cursor);
+        return true;
+    }
+
+    private void search(int node, int from, int to, double px, double py, Cursor cursor) {
+        if (to <= cursor.first || boxDistanceSquared(node, px, py) >= cursor.distanceSquared) {
+            return;
+        }
+        if (to - from <= LEAF_SIZE) {
+            for (int i = Math.max(from, cursor.first); i < to; i++) {
+                project(i, px, py, cursor);
+            }
+            return;
+        }
+        int mid = (from + to + 1) >>> 1;
+        int left = 2 * node + 1;
+        int right = left + 1;
+        if (boxDistanceSquared(left, px, py) <= boxDistanceSquared(right, px, py)) {
+            search(left, from, mid, px, py, cursor);
+            search(right, mid, to, px, py, cursor);
+        } else {
+            search(right, mid, to, px, py, cursor);
+            search(left, from, mid, px, py, cursor);
+        }
+    }
+
+    private double boxDistanceSquared(int node, double px, double py) {
+        double dx = Math.max(0, Math.max(minX[node] - px, px - maxX[node]));
+        double dy = Math.max(0, Math.max(minY[node] - py, py - maxY[node]));
+        return dx * dx + dy * dy;
+    }
+
+    private void project(int segment, double px, double py, Cursor cursor) {
+        double ax = x[segment];
+        double ay = y[segment];
+        double dx = x[segment + 1] - ax;
+        double dy = y[segment + 1] - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+        t = Math.max(0, Math.min(1, t));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        double distanceSquared = ex * ex + ey * ey;
+        if (distanceSquared < cursor.distanceSquared) {
+            cursor.distanceSquared = distanceSquared;
+            cursor.segment = segment;
+            cursor.t = t;
+        }
+    }
+
+    private double distanceAlong(Cursor cursor) {
+        int i = cursor.segment;
+        return cumulative[i] + cursor.t * (cumulative[i + 1] - cumulative[i]);
+    }
+
+    private double crossTrack(double latitude, double longitude, Cursor cursor) {
+        int i = cursor.segment;
+        double t = cursor.t;
+        return GeoMath.haversine(latitude, longitude, latitudes[i] + (latitudes[i + 1] - latitudes[i]) * t,
+            longitudes[i] + (longitudes[i + 1] - longitudes[i]) * t);
+    }
+
+    private static final class Cursor {
+        private int first;
+        private double distanceSquared;
+        private int segment;
+        private double t;
+    }
+}
@@ -0,0 +1,235 @@
+package org.bebraradar.service;
+
+import org.bebraradar.dto.NearbyStopDto;
+import org.bebraradar.dto.StopDto;
+import org.bebraradar.repository.StopRepository;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory 2-d tree over stop latitude and longitude, answering bounding box and nearest stop queries without
+ * touching the database. Stop changes made through {@code /stops} update the stop map and rebuild the tree on the
+ * thread that made the change; the tree is immutable and swapped in whole, so queries read it without locking and
+ * never wait for a rebuild. Stops without coordinates are not indexed.
+ */
+@Service
+public class StopSpatialIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StopRepository stopRepository;
+    private final Map<String, StopDto> stops = new ConcurrentHashMap<>();
+    private volatile Tree tree = new Tree(new StopDto[0]);
+
+    public StopSpatialIndex(JdbcTemplate jdbcTemplate, StopRepository stopRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stopRepository = stopRepository;
+    }
+
+    /**
+     * Stops inside the box, in no particular order. A box with {@code minLon > maxLon} crosses the antimeridian.
+     */
+    public List<StopDto> withinBox(double minLat, double minLon, double maxLat, double maxLon) {
+        Tree current = tree;
+        List<StopDto> found = new ArrayList<>();
+        if (minLon <= maxLon) {
+            current.search(minLat, minLon, maxLat, maxLon, stop -> found.add(current.stops[stop]));
+        } else {
+            current.search(minLat, minLon, maxLat, 180.0, stop -> found.add(current.stops[stop]));
+            current.search(minLat, -180.0, maxLat, maxLon, stop -> found.add(current.stops[stop]));
+        }
+        return found;
+    }
+
+    /**
+     * Up to {@code limit} stops within {@code radiusMeters}, nearest first.
+     */
+    public List<NearbyStopDto> nearest(double latitude, double longitude, double radiusMeters, int limit) {
+        Tree current = tree;
+        double latSpan = radiusMeters / GeoMath.METERS_PER_DEGREE;
+        double lonSpan = GeoMath.longitudeSpan(latitude, radiusMeters);
+        double minLat = latitude - latSpan;
+        double maxLat = latitude + latSpan;
+        // farthest first, so the head is the one to drop
+        PriorityQueue<NearbyStopDto> closest = new PriorityQueue<>(
+            Comparator.comparingDouble(NearbyStopDto::distanceMeters).reversed());
+        Tree.Visitor visitor = stop -> {
+            StopDto candidate = current.stops[stop];
+            double distance = GeoMath.haversine(latitude, longitude, candidate.latitude(), candidate.longitude());
+            if (distance > radiusMeters) {
+                return;
+            }
+            if (closest.size() < limit) {
+                closest.add(new NearbyStopDto(candidate.id(), candidate.name(), candidate.latitude(),
+                    candidate.longitude(), distance));
+            } else if (distance < closest.peek().distanceMeters()) {
+                closest.poll();
+                closest.add(new NearbyStopDto(candidate.id(), candidate.name(), candidate.latitude(),
+                    candidate.longitude(), distance));
+            }
+        };
+        if (lonSpan >= 180.0 || minLat <= -90.0 || maxLat >= 90.0) {
+            current.search(minLat, -180.0, maxLat, 180.0, visitor);
+        } else {
+            double minLon = longitude - lonSpan;
+            double maxLon = longitude + lonSpan;
+            current.search(minLat, Math.max(-180.0, minLon), maxLat, Math.min(180.0, maxLon), visitor);
+            if (minLon < -180.0) {
+                current.search(minLat, minLon + 360.0, maxLat, 180.0, visitor);
+            }
+            if (maxLon > 180.0) {
+                current.search(minLat, -180.0, maxLat, maxLon - 360.0, visitor);
+            }
+        }
+        List<NearbyStopDto> result = new ArrayList<>(closest);
+        result.sort(Comparator.comparingDouble(NearbyStopDto::distanceMeters));
+        return result;
+    }
+
+    @WarmUpListener
+    public void warmUp() {
+        jdbcTemplate.query("select stop_id, stop_name, stop_lat, stop_lon from stops", (RowCallbackHandler) rs ->
+            stops.put(rs.getString(1), new StopDto(rs.getString(1), rs.getString(2),
+                rs.getObject(3, Double.class), rs.getObject(4, Double.class))));
+        rebuild();
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.kind() != EntityChangedEvent.Kind.STOP) {
+            return;
+        }
+        String stopId = (String) event.id();
+        stopRepository.findById(stopId).ifPresentOrElse(
+            stop -> stops.put(stopId, new StopDto(stop.getId(), stop.getName(), stop.getLatitude(),
+                stop.getLongitude())),
+            () -> stops.remove(stopId));
+        rebuild();
+    }
+
+    /**
+     * Serialized so that the last writer builds from a map that already holds every earlier change.
+     */
+    private synchronized void rebuild() {
+        tree = new Tree(stops.values().stream()
+            .filter(stop -> stop.latitude() != null && stop.longitude() != null)
+            .toArray(StopDto[]::new));
+    }
+
+    /**
+     * Implicit balanced k-d tree: the median of each range, split on latitude at even depths and longitude at odd
+     * ones, sits in the middle of the range, so the tree is just the reordered coordinate arrays.
+     */
+    private static final class Tree {
+
+        interface Visitor {
+            void visit(int stop);
+        }
+
+        private final StopDto[] stops;
+        private final double[] latitudes;
+        private final double[] longitudes;
+
+        private Tree(StopDto[] stops) {
+            this.stops = stops;
+            this.latitudes = new double[stops.length];
+            this.longitudes = new double[stops.length];
+            for (int i = 0; i < stops.length; i++) {
+                latitudes[i] = stops[i].latitude();
+                longitudes[i] = stops[i].longitude();
+            }
+            build(0, stops.length, 0);
+        }
+
+        private void build(int from, int to, int depth) {
+            if (to - from <= 1) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            select(from, to - 1, mid, depth % 2 == 0 ? latitudes : longitudes);
+            build(from, mid, depth + 1);
+            build(mid + 1, to, depth + 1);
+        }
+
+        /**
+         * Quickselect: afterwards {@code keys[k]} holds the value it would have if {@code [from, to]} were sorted,
+         * with smaller-or-equal values before it and greater-or-equal ones after.
+         */
+        private void select(int from, int to, int k, double[] keys) {
+            while (from < to) {
+                double pivot = keys[(from + to) >>> 1];
+                int i = from;
+                int j = to;
+                while (i <= j) {
+                    while (keys[i] < pivot) {
+                        i++;
+                    }
+                    while (keys[j] > pivot) {
+                        j--;
+                    }
+                    if (i <= j) {
+                        swap(i++, j--);
+                    }
+                }
+                if (k <= j) {
+                    to = j;
+                } else if (k >= i) {
+                    from = i;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private void swap(int a, int b) {
+            StopDto stop = stops[a];
+            stops[a] = stops[b];
+            stops[b] = stop;
+            double latitude = latitudes[a];
+            latitudes[a] = latitudes[b];
+            latitudes[b] = latitude;
+            double longitude = longitudes[a];
+            longitudes[a] = longitudes[b];
+            longitudes[b] = longitude;
+        }
+
+        void search(double minLat, double minLon, double maxLat, double maxLon, Visitor visitor) {
+            search(0, stops.length, 0, minLat, minLon, maxLat, maxLon, visitor);
+        }
+
+        private void search(int from, int to, int depth, double minLat, double minLon, double maxLat,
+                            double maxLon, Visitor visitor) {
+            while (from < to) {
+                int mid = (from + to) >>> 1;
+                double latitude = latitudes[mid];
+                double longitude = longitudes[mid];
+                if (latitude >= minLat && latitude <= maxLat && longitude >= minLon && longitude <= maxLon) {
+                    visitor.visit(mid);
+                }
+                boolean onLatitude = depth % 2 == 0;
+                double key = onLatitude ? latitude : longitude;
+                double low = onLatitude ? minLat : minLon;
+                double high = onLatitude ? maxLat : maxLon;
+                boolean left = low <= key;
+                boolean right = high >= key;
+                depth++;
+                if (left && right) {
+                    search(from, mid, depth, minLat, minLon, maxLat, maxLon, visitor);
+                    from = mid + 1;
+                } else if (left) {
+                    to = mid;
+                } else {
+                    from = mid + 1;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package org.bebraradar.service;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Timestamps as epoch microseconds, the precision of {@code timestamptz}, for compact in-memory state, cursors and
+ * idempotency keys.
+ */
+public final class Timestamps {
+
+    private Timestamps() {
+    }
+
+    public static long toMicros(OffsetDateTime value) {
+        Instant instant = value.toInstant();
+        return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), 1_000_000L), instant.getNano() / 1_000);
+    }
+
+    public static OffsetDateTime fromMicros(long micros) {
+        return Instant.EPOCH.plus(micros, ChronoUnit.MICROS).atOffset(ZoneOffset.UTC);
+    }
+}
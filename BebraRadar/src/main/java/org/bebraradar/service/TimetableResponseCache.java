@@ -0,0 +1,79 @@
+package org.bebraradar.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HexFormat;
+import java.util.function.Function;
+
+/**
+ * Serialized /timetable responses keyed by query and snapshot version, each with a strong ETag derived from the
+ * bytes. Because the ETag depends on the content only, it survives restarts and changes to other routes, so
+ * clients revalidating an unchanged schedule keep getting 304.
+ */
+@Service
+public class TimetableResponseCache {
+
+    public record CachedResponse(byte[] body, String etag) {
+    }
+
+    private record Key(String query, String argument, LocalDate date, long version) {
+    }
+
+    private final TimetableService timetableService;
+    private final ObjectMapper objectMapper;
+    private final Cache<Key, CachedResponse> responses;
+
+    public TimetableResponseCache(TimetableService timetableService,
+                                  ObjectMapper objectMapper,
+                                  @Value("${bebraradar.timetable.response-cache.max-size:64MB}") DataSize maxSize,
+                                  @Value("${bebraradar.timetable.response-cache.ttl:30m}") Duration ttl) {
+        this.timetableService = timetableService;
+        this.objectMapper = objectMapper;
+        this.responses = Caffeine.newBuilder()
+            .maximumWeight(maxSize.toBytes())
+            .weigher((Key key, CachedResponse response) -> response.body().length)
+            .expireAfterAccess(ttl)
+            .build();
+    }
+
+    public CachedResponse routesForDate(LocalDate date) {
+        return get("routes", null, date, snapshot -> snapshot.routesForDate(date));
+    }
+
+    public CachedResponse routesForWeekday(String weekday) {
+        var dayOfWeek = TimetableService.parseWeekday(weekday);
+        return get("weekday", dayOfWeek.name(), null, snapshot -> snapshot.routesForWeekday(dayOfWeek));
+    }
+
+    public CachedResponse routeSchedule(String routeId, LocalDate date) {
+        return get("trips", routeId, date, snapshot -> snapshot.routeSchedule(routeId, date));
+    }
+
+    private CachedResponse get(String query, String argument, LocalDate date, Function<TimetableSnapshot, ?> body) {
+        TimetableSnapshot snapshot = timetableService.snapshot();
+        return responses.get(new Key(query, argument, date, snapshot.version()),
+            key -> serialize(body.apply(snapshot)));
+    }
+
+    private CachedResponse serialize(Object body) {
+        try {
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            return new CachedResponse(bytes, "\"" + HexFormat.of().formatHex(digest, 0, 16) + "\"");
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not serialize timetable response", ex);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
@@ -1,116 +1,186 @@
 package org.bebraradar.service;
 
+import org.bebraradar.dto.DepartureDto;
 import org.bebraradar.dto.RouteDto;
 import org.bebraradar.dto.TripScheduleDto;
-import org.bebraradar.dto.TripStopDto;
-import org.bebraradar.entity.ServiceCalendar;
-import org.bebraradar.entity.StopTime;
-import org.bebraradar.entity.Trip;
-import org.bebraradar.repository.ServiceCalendarRepository;
-import org.bebraradar.repository.StopTimeRepository;
-import org.bebraradar.repository.TripRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Answers schedule queries from an in-memory {@link TimetableSnapshot}. Changes made through the CRUD controllers
+ * bump a version and the next query brings the snapshot up to date and swaps it in. Reads do not lock: while one
+ * thread rebuilds, the others keep getting the snapshot it is replacing; only the very first build is waited for.
+ * Calendar changes only reload the affected services into the {@link ServiceActivityIndex}, and route, trip and
+ * stop time changes only the affected routes. Stop changes reload everything, as does a periodic rebuild that
+ * picks up rows written to the database directly.
+ */
 @Service
 public class TimetableService {
 
-    private final ServiceCalendarRepository calendarRepository;
-    private final TripRepository tripRepository;
-    private final StopTimeRepository stopTimeRepository;
+    private static final Logger log = LoggerFactory.getLogger(TimetableService.class);
 
-    public TimetableService(ServiceCalendarRepository calendarRepository,
-                            TripRepository tripRepository,
-                            StopTimeRepository stopTimeRepository) {
-        this.calendarRepository = calendarRepository;
-        this.tripRepository = tripRepository;
-        this.stopTimeRepository = stopTimeRepository;
+    private final TimetableSnapshotLoader snapshotLoader;
+    private final ZoneId zone;
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong structureVersion = new AtomicLong();
+    private final Set<String> changedServices = ConcurrentHashMap.newKeySet();
+    private final Set<String> changedRoutes = ConcurrentHashMap.newKeySet();
+    private final Set<Long> changedTrips = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile TimetableSnapshot snapshot;
+    private long snapshotStructureVersion = -1;
+
+    public TimetableService(TimetableSnapshotLoader snapshotLoader,
+                            @Value("${bebraradar.timetable.zone:UTC}") ZoneId zone) {
+        this.snapshotLoader = snapshotLoader;
+        this.zone = zone;
     }
 
     public List<RouteDto> getRoutesForDate(LocalDate date) {
-        List<String> activeServices = activeServiceIdsForDate(date);
-        if (activeServices.isEmpty()) return List.of();
-        List<Trip> trips = tripRepository.findByService_IdIn(activeServices);
-        return trips.stream()
-            .map(t -> t.getRoute().getId())
-            .distinct()
-            .sorted()
-            .map(RouteDto::new)
-            .toList();
+        return snapshot().routesForDate(date);
     }
 
     public List<RouteDto> getRoutesForWeekday(String weekday) {
-        DayOfWeek dow = parseWeekday(weekday);
-        List<String> serviceIds = activeServiceIdsForWeekday(dow);
-        if (serviceIds.isEmpty()) return List.of();
-        return tripRepository.findByService_IdIn(serviceIds).stream()
-            .map(t -> t.getRoute().getId())
-            .distinct()
-            .sorted()
-            .map(RouteDto::new)
-            .toList();
+        return snapshot().routesForWeekday(parseWeekday(weekday));
     }
 
     public List<TripScheduleDto> getRouteScheduleForDate(String routeId, LocalDate date) {
-        List<String> activeServices = activeServiceIdsForDate(date);
-        if (activeServices.isEmpty()) return List.of();
-        List<Trip> trips = tripRepository.findByRoute_IdAndService_IdIn(routeId, activeServices);
-        trips.sort(Comparator.comparing(Trip::getStartTime));
-        return trips.stream().map(this::toTripScheduleDto).toList();
+        return snapshot().routeSchedule(routeId, date);
+    }
+
+    /**
+     * @return the next departures at the stop, or null when the stop does not exist
+     */
+    public List<DepartureDto> getDepartures(String stopId, LocalDateTime from, int limit) {
+        return snapshot().departures(stopId, from, zone, limit);
+    }
+
+    public ZoneId zone() {
+        return zone;
     }
 
-    private TripScheduleDto toTripScheduleDto(Trip trip) {
-        List<StopTime> stopTimes = stopTimeRepository.findByTrip_IdOrderById_StopSequenceAsc(trip.getId());
-        List<TripStopDto> stops = new ArrayList<>(stopTimes.size());
-        for (StopTime st : stopTimes) {
-            stops.add(new TripStopDto(
-                st.getId().getStopSequence(),
-                st.getStop().getId(),
-                st.getStop().getName(),
-                st.getArrivalTime(),
-                st.getDepartureTime()
-            ));
+    public TimetableSnapshot snapshot() {
+        TimetableSnapshot current = snapshot;
+        if (current != null && current.version() == version.get()) {
+            return current;
+        }
+        if (current == null) {
+            // nothing to serve yet, wait for the first build
+            rebuildLock.lock();
+        } else if (!rebuildLock.tryLock()) {
+            // another thread is rebuilding; keep serving the snapshot it replaces until the swap
+            return current;
+        }
+        try {
+            current = snapshot;
+            // read in the opposite order of onEntityChanged, so a change is never counted without its details
+            long wanted = version.get();
+            long structure = structureVersion.get();
+            if (current != null && current.version() == wanted) {
+                return current;
+            }
+            long started = System.nanoTime();
+            if (current == null || structure != snapshotStructureVersion) {
+                changedServices.clear();
+                changedRoutes.clear();
+                changedTrips.clear();
+                current = snapshotLoader.load(wanted);
+                snapshotStructureVersion = structure;
+                log.info("Timetable snapshot {} built in {} ms ({} trips, {} stop times)", wanted,
+                    (System.nanoTime() - started) / 1_000_000, current.tripCount(), current.stopTimeCount());
+            } else {
+                List<String> serviceIds = drain(changedServices);
+                if (!serviceIds.isEmpty()) {
+                    current = current.withServices(wanted,
+                        snapshotLoader.reloadServices(current.services(), serviceIds));
+                }
+                Set<String> routeIds = new HashSet<>(drain(changedRoutes));
+                List<Long> tripIds = drain(changedTrips);
+                if (!tripIds.isEmpty()) {
+                    for (Long tripId : tripIds) {
+                        String previousRoute = current.routeOfTrip(tripId);
+                        if (previousRoute != null) {
+                            routeIds.add(previousRoute);
+                        }
+                    }
+                    routeIds.addAll(snapshotLoader.routesOfTrips(tripIds));
+                }
+                if (!routeIds.isEmpty()) {
+                    current = snapshotLoader.reloadRoutes(current, wanted, routeIds);
+                } else if (current.version() != wanted) {
+                    current = current.withServices(wanted, current.services());
+                }
+                log.debug("Timetable snapshot {} reloaded services {} and routes {} in {} ms", wanted, serviceIds,
+                    routeIds, (System.nanoTime() - started) / 1_000_000);
+            }
+            snapshot = current;
+            return current;
+        } finally {
+            rebuildLock.unlock();
         }
-        return new TripScheduleDto(trip.getId(), trip.getRoute().getId(), trip.getStartTime(), stops);
     }
 
-    private List<String> activeServiceIdsForDate(LocalDate date) {
-        List<ServiceCalendar> candidates = calendarRepository
-            .findAll()
-            .stream()
-            .filter(c -> !date.isBefore(c.getStartDate()) && !date.isAfter(c.getEndDate()))
-            .toList();
-        DayOfWeek dow = date.getDayOfWeek();
-        return filterByDayOfWeek(candidates, dow).stream().map(ServiceCalendar::getId).toList();
+    @WarmUpListener
+    public void warmUp() {
+        snapshot();
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        switch (event.kind()) {
+            case STOP -> {
+                structureVersion.incrementAndGet();
+                version.incrementAndGet();
+            }
+            case ROUTE -> {
+                changedRoutes.add((String) event.id());
+                version.incrementAndGet();
+            }
+            case TRIP, STOP_TIME -> {
+                changedTrips.add((Long) event.id());
+                version.incrementAndGet();
+            }
+            case CALENDAR, CALENDAR_DATE -> {
+                changedServices.add((String) event.id());
+                version.incrementAndGet();
+            }
+            default -> {
+            }
+        }
     }
 
-    private List<String> activeServiceIdsForWeekday(DayOfWeek dow) {
-        List<ServiceCalendar> all = calendarRepository.findAll();
-        return filterByDayOfWeek(all, dow).stream().map(ServiceCalendar::getId).toList();
+    @Scheduled(fixedDelayString = "${bebraradar.timetable.snapshot.max-age:10m}",
+        initialDelayString = "${bebraradar.timetable.snapshot.max-age:10m}")
+    public void refresh() {
+        structureVersion.incrementAndGet();
+        version.incrementAndGet();
+        snapshot();
     }
 
-    private static List<ServiceCalendar> filterByDayOfWeek(Collection<ServiceCalendar> list, DayOfWeek dow) {
-        return list.stream().filter(c -> switch (dow) {
-            case MONDAY -> c.isMonday();
-            case TUESDAY -> c.isTuesday();
-            case WEDNESDAY -> c.isWednesday();
-            case THURSDAY -> c.isThursday();
-            case FRIDAY -> c.isFriday();
-            case SATURDAY -> c.isSaturday();
-            case SUNDAY -> c.isSunday();
-        }).collect(Collectors.toList());
+    private static <T> List<T> drain(Set<T> changes) {
+        List<T> drained = new ArrayList<>(changes);
+        changes.removeAll(drained);
+        return drained;
     }
 
-    private static DayOfWeek parseWeekday(String weekday) {
+    static DayOfWeek parseWeekday(String weekday) {
         if (!StringUtils.hasText(weekday)) {
             throw new IllegalArgumentException("weekday is empty");
         }
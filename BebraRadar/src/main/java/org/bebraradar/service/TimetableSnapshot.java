@@ -0,0 +1,460 @@
+package org.bebraradar.service;
+
+import org.bebraradar.dto.DepartureDto;
+import org.bebraradar.dto.RouteDto;
+import org.bebraradar.dto.TripScheduleDto;
+import org.bebraradar.dto.TripStopDto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable, column-oriented copy of the static schedule. Stops, routes and trips are addressed by dense
+ * indexes and services by their {@link ServiceActivityIndex} slot. Each route owns a contiguous block of trips
+ * sorted by start time, and the stop times of a trip live in flat int arrays sliced by {@code tripStopOffsets}
+ * (CSR layout), so queries never touch the database or allocate entities.
+ */
+public final class TimetableSnapshot {
+
+    private final long version;
+
+    private final ServiceActivityIndex services;
+
+    private final String[] stopIds;
+    private final String[] stopNames;
+
+    private final String[] routeIds;
+    private final int[] routeTripFrom;
+    private final int[] routeTripTo;
+
+    private final long[] tripIds;
+    private final int[] tripRoutes;
+    private final int[] tripServices;
+    private final OffsetDateTime[] tripStartTimes;
+    private final int[] tripStopOffsets;
+    private final Map<Long, Integer> tripIndex;
+
+    private final int[] stopSequences;
+    private final int[] stopTimeStops;
+    private final int[] arrivalTimes;
+    private final int[] departureTimes;
+
+    private volatile Map<String, Integer> stopIndex;
+    private volatile DepartureIndex departureIndex;
+    private volatile RaptorTimetable raptorTimetable;
+
+    private TimetableSnapshot(long version, ServiceActivityIndex services, String[] stopIds, String[] stopNames,
+                              String[] routeIds, int[] routeTripFrom, int[] routeTripTo,
+                              long[] tripIds, int[] tripRoutes, int[] tripServices, OffsetDateTime[] tripStartTimes,
+                              int[] tripStopOffsets, Map<Long, Integer> tripIndex,
+                              int[] stopSequences, int[] stopTimeStops, int[] arrivalTimes, int[] departureTimes) {
+        this.version = version;
+        this.services = services;
+        this.stopIds = stopIds;
+        this.stopNames = stopNames;
+        this.routeIds = routeIds;
+        this.routeTripFrom = routeTripFrom;
+        this.routeTripTo = routeTripTo;
+        this.tripIds = tripIds;
+        this.tripRoutes = tripRoutes;
+        this.tripServices = tripServices;
+        this.tripStartTimes = tripStartTimes;
+        this.tripStopOffsets = tripStopOffsets;
+        this.tripIndex = tripIndex;
+        this.stopSequences = stopSequences;
+        this.stopTimeStops = stopTimeStops;
+        this.arrivalTimes = arrivalTimes;
+        this.departureTimes = departureTimes;
+    }
+
+    /**
+     * Same trips and stop times with another service calendar; trips keep pointing at their service slots.
+     */
+    public TimetableSnapshot withServices(long version, ServiceActivityIndex services) {
+        TimetableSnapshot copy = new TimetableSnapshot(version, services, stopIds, stopNames, routeIds,
+            routeTripFrom, routeTripTo, tripIds, tripRoutes, tripServices, tripStartTimes, tripStopOffsets,
+            tripIndex, stopSequences, stopTimeStops, arrivalTimes, departureTimes);
+        // indexes group trips by service slot, which stays valid whatever days the services run on
+        copy.stopIndex = stopIndex;
+        copy.departureIndex = departureIndex;
+        copy.raptorTimetable = raptorTimetable;
+        return copy;
+    }
+
+    /**
+     * Starts a copy in which {@code replacedRoutes} are left out, so the caller can add their current trips.
+     */
+    Builder rebuildWithout(Collection<String> replacedRoutes) {
+        Builder builder = new Builder(services, stopIds, stopNames, tripIds.length, stopSequences.length);
+        Set<String> replaced = new HashSet<>(replacedRoutes);
+        for (int route = 0; route < routeIds.length; route++) {
+            if (replaced.contains(routeIds[route])) {
+                continue;
+            }
+            builder.route(routeIds[route]);
+            for (int trip = routeTripFrom[route]; trip < routeTripTo[route]; trip++) {
+                builder.trip(tripIds[trip], tripServices[trip], tripStartTimes[trip]);
+                for (int i = tripStopOffsets[trip]; i < tripStopOffsets[trip + 1]; i++) {
+                    builder.stopTime(stopSequences[i], stopTimeStops[i], arrivalTimes[i], departureTimes[i]);
+                }
+            }
+        }
+        return builder;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public ServiceActivityIndex services() {
+        return services;
+    }
+
+    public int tripCount() {
+        return tripIds.length;
+    }
+
+    public int stopTimeCount() {
+        return stopSequences.length;
+    }
+
+    /**
+     * Route the trip belonged to when the snapshot was built, or null.
+     */
+    public String routeOfTrip(long tripId) {
+        Integer trip = tripIndex.get(tripId);
+        return trip == null ? null : routeIds[tripRoutes[trip]];
+    }
+
+    public List<RouteDto> routesForDate(LocalDate date) {
+        return routesRunning(services.activeOn(date));
+    }
+
+    public List<RouteDto> routesForWeekday(DayOfWeek dayOfWeek) {
+        return routesRunning(services.activeOn(dayOfWeek));
+    }
+
+    public List<TripScheduleDto> routeSchedule(String routeId, LocalDate date) {
+        int route = Arrays.binarySearch(routeIds, routeId);
+        if (route < 0) {
+            return List.of();
+        }
+        BitSet active = services.activeOn(date);
+        List<TripScheduleDto> schedule = new ArrayList<>();
+        for (int trip = routeTripFrom[route]; trip < routeTripTo[route]; trip++) {
+            if (isActive(active, trip)) {
+                schedule.add(tripSchedule(trip));
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * Next {@code limit} departures at the stop from {@code from} (local time in {@code zone}), or null when the
+     * stop is unknown. Trips of the previous service day still running after midnight and of the next service
+     * day are included, so boards keep working around midnight.
+     */
+    public List<DepartureDto> departures(String stopId, LocalDateTime from, ZoneId zone, int limit) {
+        int stop = stopIndexOf(stopId);
+        if (stop < 0) {
+            return null;
+        }
+        DepartureIndex index = departureIndex();
+        LocalDate date = from.toLocalDate();
+        int second = from.toLocalTime().toSecondOfDay();
+        int firstGroup = index.firstGroup(stop);
+        int groups = index.endGroup(stop) - firstGroup;
+        int[] cursors = new int[groups * 3];
+        int[] ends = new int[cursors.length];
+        int[] dayShifts = new int[cursors.length];
+        int open = 0;
+        for (int day = -1; day <= 1; day++) {
+            BitSet active = services.activeOn(date.plusDays(day));
+            int shift = day * 86_400;
+            for (int group = firstGroup; group < firstGroup + groups; group++) {
+                if (!active.get(index.groupService(group))) {
+                    continue;
+                }
+                int cursor = index.lowerBound(group, Math.max(0, second - shift));
+                if (cursor < index.groupEnd(group)) {
+                    cursors[open] = cursor;
+                    ends[open] = index.groupEnd(group);
+                    dayShifts[open] = shift;
+                    open++;
+                }
+            }
+        }
+
+        List<DepartureDto> board = new ArrayList<>(Math.min(limit, 64));
+        while (board.size() < limit && open > 0) {
+            int next = 0;
+            for (int c = 1; c < open; c++) {
+                if (index.departure(cursors[c]) + dayShifts[c] < index.departure(cursors[next]) + dayShifts[next]) {
+                    next = c;
+                }
+            }
+            board.add(departure(index, cursors[next], date.plusDays(dayShifts[next] / 86_400), zone));
+            if (++cursors[next] == ends[next]) {
+                open--;
+                cursors[next] = cursors[open];
+                ends[next] = ends[open];
+                dayShifts[next] = dayShifts[open];
+            }
+        }
+        return board;
+    }
+
+    private DepartureDto departure(DepartureIndex index, int entry, LocalDate serviceDate, ZoneId zone) {
+        int stopTime = index.stopTime(entry);
+        int trip = index.tripOf(stopTime);
+        int lastStop = stopTimeStops[tripStopOffsets[trip + 1] - 1];
+        int departureTime = departureTimes[stopTime];
+        return new DepartureDto(tripIds[trip], routeIds[tripRoutes[trip]], stopNames[lastStop],
+            stopIds[stopTimeStops[stopTime]], stopSequences[stopTime], serviceDate, departureTime,
+            serviceDate.atStartOfDay(zone).plusSeconds(departureTime).toOffsetDateTime());
+    }
+
+    /**
+     * Built on first use, so snapshots that never serve a departure board do not pay for it.
+     */
+    private DepartureIndex departureIndex() {
+        DepartureIndex index = departureIndex;
+        if (index == null) {
+            index = new DepartureIndex(stopIds.length, tripServices, tripStopOffsets, stopTimeStops,
+                departureTimes);
+            departureIndex = index;
+        }
+        return index;
+    }
+
+    RaptorTimetable raptorTimetable() {
+        RaptorTimetable timetable = raptorTimetable;
+        if (timetable == null) {
+            timetable = new RaptorTimetable(stopIds.length, tripRoutes, tripStopOffsets, stopTimeStops,
+                arrivalTimes, departureTimes);
+            raptorTimetable = timetable;
+        }
+        return timetable;
+    }
+
+    /**
+     * Dense index of the stop, or -1.
+     */
+    int stopIndexOf(String stopId) {
+        Map<String, Integer> index = stopIndex;
+        if (index == null) {
+            index = new HashMap<>(stopIds.length * 2);
+            for (int stop = 0; stop < stopIds.length; stop++) {
+                index.put(stopIds[stop], stop);
+            }
+            stopIndex = index;
+        }
+        Integer stop = index.get(stopId);
+        return stop == null ? -1 : stop;
+    }
+
+    int stopCount() {
+        return stopIds.length;
+    }
+
+    String stopId(int stop) {
+        return stopIds[stop];
+    }
+
+    String stopName(int stop) {
+        return stopNames[stop];
+    }
+
+    long tripId(int trip) {
+        return tripIds[trip];
+    }
+
+    String tripRoute(int trip) {
+        return routeIds[tripRoutes[trip]];
+    }
+
+    int tripService(int trip) {
+        return tripServices[trip];
+    }
+
+    private TripScheduleDto tripSchedule(int trip) {
+        int from = tripStopOffsets[trip];
+        int to = tripStopOffsets[trip + 1];
+        List<TripStopDto> stops = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            int stop = stopTimeStops[i];
+            stops.add(new TripStopDto(stopSequences[i], stopIds[stop], stopNames[stop], arrivalTimes[i],
+                departureTimes[i]));
+        }
+        return new TripScheduleDto(tripIds[trip], routeIds[tripRoutes[trip]], tripStartTimes[trip], stops);
+    }
+
+    private List<RouteDto> routesRunning(BitSet active) {
+        List<RouteDto> routes = new ArrayList<>();
+        for (int route = 0; route < routeIds.length; route++) {
+            for (int trip = routeTripFrom[route]; trip < routeTripTo[route]; trip++) {
+                if (isActive(active, trip)) {
+                    routes.add(new RouteDto(routeIds[route]));
+                    break;
+                }
+            }
+        }
+        return routes;
+    }
+
+    private boolean isActive(BitSet activeServices, int trip) {
+        int service = tripServices[trip];
+        return service >= 0 && activeServices.get(service);
+    }
+
+    /**
+     * Collects routes, trips and stop times in the order they are read. Routes may come in any order but each
+     * route's trips must arrive together, sorted by start time, each followed by its stop times in sequence.
+     */
+    static final class Builder {
+
+        private final ServiceActivityIndex services;
+        private String[] stopIds;
+        private String[] stopNames;
+        private int stopCount;
+        private final Map<String, Integer> stopIndex;
+
+        private final List<String> routes = new ArrayList<>();
+        private final List<Integer> routeStarts = new ArrayList<>();
+
+        private long[] tripIds;
+        private int[] tripServices;
+        private OffsetDateTime[] tripStartTimes;
+        private int[] tripStopOffsets;
+        private int tripCount;
+
+        private int[] stopSequences;
+        private int[] stopTimeStops;
+        private int[] arrivalTimes;
+        private int[] departureTimes;
+        private int stopTimeCount;
+
+        Builder(ServiceActivityIndex services, String[] stopIds, String[] stopNames, int expectedTrips,
+                int expectedStopTimes) {
+            this.services = services;
+            this.stopIds = stopIds;
+            this.stopNames = stopNames;
+            this.stopCount = stopIds.length;
+            this.stopIndex = new HashMap<>(stopIds.length * 2);
+            for (int stop = 0; stop < stopIds.length; stop++) {
+                stopIndex.put(stopIds[stop], stop);
+            }
+            int trips = Math.max(16, expectedTrips);
+            int stopTimes = Math.max(16, expectedStopTimes);
+            this.tripIds = new long[trips];
+            this.tripServices = new int[trips];
+            this.tripStartTimes = new OffsetDateTime[trips];
+            this.tripStopOffsets = new int[trips + 1];
+            this.stopSequences = new int[stopTimes];
+            this.stopTimeStops = new int[stopTimes];
+            this.arrivalTimes = new int[stopTimes];
+            this.departureTimes = new int[stopTimes];
+        }
+
+        ServiceActivityIndex services() {
+            return services;
+        }
+
+        /**
+         * Index of the stop, registering it when it was not known yet.
+         */
+        int stop(String stopId, String stopName) {
+            Integer stop = stopIndex.get(stopId);
+            if (stop != null) {
+                return stop;
+            }
+            if (stopCount == stopIds.length) {
+                stopIds = Arrays.copyOf(stopIds, Math.max(16, stopCount * 2));
+                stopNames = Arrays.copyOf(stopNames, stopIds.length);
+            }
+            stopIds[stopCount] = stopId;
+            stopNames[stopCount] = stopName;
+            stopIndex.put(stopId, stopCount);
+            return stopCount++;
+        }
+
+        void route(String routeId) {
+            routes.add(routeId);
+            routeStarts.add(tripCount);
+        }
+
+        void trip(long tripId, int serviceSlot, OffsetDateTime startTime) {
+            if (tripCount == tripIds.length) {
+                int capacity = tripCount * 2;
+                tripIds = Arrays.copyOf(tripIds, capacity);
+                tripServices = Arrays.copyOf(tripServices, capacity);
+                tripStartTimes = Arrays.copyOf(tripStartTimes, capacity);
+                tripStopOffsets = Arrays.copyOf(tripStopOffsets, capacity + 1);
+            }
+            tripIds[tripCount] = tripId;
+            tripServices[tripCount] = serviceSlot;
+            tripStartTimes[tripCount] = startTime;
+            tripCount++;
+            tripStopOffsets[tripCount] = stopTimeCount;
+        }
+
+        void stopTime(int stopSequence, int stop, int arrivalTime, int departureTime) {
+            if (stopTimeCount == stopSequences.length) {
+                int capacity = stopTimeCount * 2;
+                stopSequences = Arrays.copyOf(stopSequences, capacity);
+                stopTimeStops = Arrays.copyOf(stopTimeStops, capacity);
+                arrivalTimes = Arrays.copyOf(arrivalTimes, capacity);
+                departureTimes = Arrays.copyOf(departureTimes, capacity);
+            }
+            stopSequences[stopTimeCount] = stopSequence;
+            stopTimeStops[stopTimeCount] = stop;
+            arrivalTimes[stopTimeCount] = arrivalTime;
+            departureTimes[stopTimeCount] = departureTime;
+            stopTimeCount++;
+            tripStopOffsets[tripCount] = stopTimeCount;
+        }
+
+        TimetableSnapshot build(long version) {
+            int routeCount = routes.size();
+            Integer[] order = new Integer[routeCount];
+            for (int r = 0; r < routeCount; r++) {
+                order[r] = r;
+            }
+            Arrays.sort(order, (a, b) -> routes.get(a).compareTo(routes.get(b)));
+            String[] routeIds = new String[routeCount];
+            int[] routeTripFrom = new int[routeCount];
+            int[] routeTripTo = new int[routeCount];
+            int[] tripRoutes = new int[tripCount];
+            for (int r = 0; r < routeCount; r++) {
+                int added = order[r];
+                routeIds[r] = routes.get(added);
+                routeTripFrom[r] = routeStarts.get(added);
+                routeTripTo[r] = added + 1 < routeCount ? routeStarts.get(added + 1) : tripCount;
+                Arrays.fill(tripRoutes, routeTripFrom[r], routeTripTo[r], r);
+            }
+            Map<Long, Integer> tripIndex = new HashMap<>(tripCount * 2);
+            for (int trip = 0; trip < tripCount; trip++) {
+                tripIndex.put(tripIds[trip], trip);
+            }
+            return new TimetableSnapshot(version, services,
+                Arrays.copyOf(stopIds, stopCount), Arrays.copyOf(stopNames, stopCount),
+                routeIds, routeTripFrom, routeTripTo,
+                Arrays.copyOf(tripIds, tripCount), tripRoutes, Arrays.copyOf(tripServices, tripCount),
+                Arrays.copyOf(tripStartTimes, tripCount), Arrays.copyOf(tripStopOffsets, tripCount + 1), tripIndex,
+                Arrays.copyOf(stopSequences, stopTimeCount), Arrays.copyOf(stopTimeStops, stopTimeCount),
+                Arrays.copyOf(arrivalTimes, stopTimeCount), Arrays.copyOf(departureTimes, stopTimeCount));
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.bebraradar.service;
+
+import org.bebraradar.entity.CalendarDate;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads calendars, calendar dates, stops and the route schedules inside one repeatable-read transaction and
+ * packs them into a {@link TimetableSnapshot}. Trips, stop times and stop names come from one join query that is
+ * also used to reload single routes.
+ */
+@Service
+public class TimetableSnapshotLoader {
+
+    private static final int FETCH_SIZE = 5000;
+    private static final String ROUTE_SCHEDULE_SELECT = "select t.route_id, t.trip_id, t.service_id, t.start_time, "
+        + "st.stop_sequence, st.stop_id, s.stop_name, st.arrival_time, st.departure_time "
+        + "from trips t "
+        + "left join stop_times st on st.trip_id = t.trip_id "
+        + "left join stops s on s.stop_id = st.stop_id";
+    private static final String ROUTE_SCHEDULE_ORDER = " order by t.route_id, t.start_time, t.trip_id, st.stop_sequence";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+
+    public TimetableSnapshotLoader(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    public TimetableSnapshot load(long version) {
+        return snapshotTransaction.execute(status -> read(version));
+    }
+
+    private TimetableSnapshot read(long version) {
+        ServiceActivityIndex services = ServiceActivityIndex.of(readServices(null));
+        List<String> stopIds = new ArrayList<>();
+        List<String> stopNames = new ArrayList<>();
+        jdbcTemplate.query("select stop_id, stop_name from stops", (RowCallbackHandler) rs -> {
+            stopIds.add(rs.getString(1));
+            stopNames.add(rs.getString(2));
+        });
+        TimetableSnapshot.Builder builder = new TimetableSnapshot.Builder(services,
+            stopIds.toArray(new String[0]), stopNames.toArray(new String[0]), count("trips"), count("stop_times"));
+        readRoutes(builder, null);
+        return builder.build(version);
+    }
+
+    /**
+     * Copy of {@code current} with the trips of the given routes read again; a trip that moved to another route
+     * must have both routes listed.
+     */
+    public TimetableSnapshot reloadRoutes(TimetableSnapshot current, long version, Collection<String> routeIds) {
+        return snapshotTransaction.execute(status -> {
+            TimetableSnapshot.Builder builder = current.rebuildWithout(routeIds);
+            readRoutes(builder, routeIds);
+            return builder.build(version);
+        });
+    }
+
+    public Set<String> routesOfTrips(Collection<Long> tripIds) {
+        return new HashSet<>(jdbcTemplate.queryForList("select distinct route_id from trips where trip_id = any(?)",
+            String.class, (Object) tripIds.toArray(new Long[0])));
+    }
+
+    /**
+     * Streams trips with their stop times and stop names, route by route, straight into the builder with a
+     * single query.
+     */
+    private void readRoutes(TimetableSnapshot.Builder builder, Collection<String> routeIds) {
+        String filter = routeIds == null ? "" : " where t.route_id = any(?)";
+        Object[] parameters = routeIds == null ? new Object[0] : new Object[]{routeIds.toArray(new String[0])};
+        ServiceActivityIndex services = builder.services();
+        String[] currentRoute = {null};
+        long[] currentTrip = {Long.MIN_VALUE};
+        jdbcTemplate.query(ROUTE_SCHEDULE_SELECT + filter + ROUTE_SCHEDULE_ORDER, (RowCallbackHandler) rs -> {
+            String routeId = rs.getString(1);
+            long tripId = rs.getLong(2);
+            if (!routeId.equals(currentRoute[0])) {
+                builder.route(routeId);
+                currentRoute[0] = routeId;
+            }
+            if (tripId != currentTrip[0]) {
+                builder.trip(tripId, services.slotOf(rs.getString(3)), rs.getObject(4, OffsetDateTime.class));
+                currentTrip[0] = tripId;
+            }
+            String stopId = rs.getString(6);
+            if (stopId != null) {
+                builder.stopTime(rs.getInt(5), builder.stop(stopId, rs.getString(7)), rs.getInt(8), rs.getInt(9));
+            }
+        }, parameters);
+    }
+
+    /**
+     * Reloads only the given services (calendar row and calendar_dates) into a copy of {@code current}.
+     */
+    public ServiceActivityIndex reloadServices(ServiceActivityIndex current, Collection<String> serviceIds) {
+        List<ServiceActivityIndex.ServiceDays> services = snapshotTransaction.execute(status ->
+            readServices(serviceIds));
+        return current.with(serviceIds, services);
+    }
+
+    private List<ServiceActivityIndex.ServiceDays> readServices(Collection<String> serviceIds) {
+        String filter = serviceIds == null ? "" : " where service_id = any(?)";
+        Object[] parameters = serviceIds == null ? new Object[0] : new Object[]{serviceIds.toArray(new String[0])};
+        Map<String, List<Long>> added = new HashMap<>();
+        Map<String, List<Long>> removed = new HashMap<>();
+        jdbcTemplate.query("select service_id, date, exception_type from calendar_dates" + filter
+            + " order by service_id, date", (RowCallbackHandler) rs -> {
+            Map<String, List<Long>> target = rs.getInt(3) == CalendarDate.SERVICE_ADDED ? added : removed;
+            target.computeIfAbsent(rs.getString(1), id -> new ArrayList<>())
+                .add(rs.getObject(2, LocalDate.class).toEpochDay());
+        }, parameters);
+        return jdbcTemplate.query("select service_id, monday, tuesday, wednesday, thursday, friday, saturday, "
+            + "sunday, start_date, end_date from calendar" + filter, (rs, rowNum) -> {
+            String serviceId = rs.getString(1);
+            int weekdays = 0;
+            for (int day = 0; day < 7; day++) {
+                if (rs.getBoolean(2 + day)) {
+                    weekdays |= 1 << day;
+                }
+            }
+            return new ServiceActivityIndex.ServiceDays(serviceId, weekdays,
+                rs.getObject(9, LocalDate.class).toEpochDay(),
+                rs.getObject(10, LocalDate.class).toEpochDay(),
+                toArray(added.get(serviceId)), toArray(removed.get(serviceId)));
+        }, parameters);
+    }
+
+    private static long[] toArray(List<Long> days) {
+        return days == null ? new long[0] : days.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private int count(String table) {
+        Integer count = jdbcTemplate.queryForObject("select count(*) from " + table, Integer.class);
+        return count == null ? 0 : count;
+    }
+}
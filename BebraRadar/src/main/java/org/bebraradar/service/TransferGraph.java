@@ -0,0 +1,235 @@
+package org.bebraradar.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Walking transfers between stops at most {@code max-distance} apart, kept in memory and in
+ * {@code stop_transfers}. Stops are bucketed into a grid of cells one max-distance high, so candidates for a stop
+ * come from the neighbouring cells only and haversine distances are computed for those pairs alone. Changing a
+ * stop through {@code /stops} recomputes just that stop's transfers; a periodic rebuild picks up stops written to
+ * the database directly.
+ */
+@Service
+public class TransferGraph {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferGraph.class);
+
+    private static final String INSERT_TRANSFER =
+        "insert into stop_transfers (from_stop_id, to_stop_id, distance_m, walk_seconds) values (?, ?, ?, ?)";
+
+    public record Transfer(String toStopId, double distanceMeters, int walkSeconds) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final double maxDistance;
+    private final double walkingSpeed;
+    private final double cellDegrees;
+
+    // guarded by this
+    private final Map<String, double[]> positions = new HashMap<>();
+    private final Map<Long, Set<String>> cells = new HashMap<>();
+    private boolean persisted;
+
+    private final Map<String, List<Transfer>> transfers = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+
+    public TransferGraph(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${bebraradar.transfers.max-distance:400}") double maxDistance,
+                         @Value("${bebraradar.transfers.walking-speed:1.3}") double walkingSpeed) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxDistance = maxDistance;
+        this.walkingSpeed = walkingSpeed;
+        this.cellDegrees = maxDistance / GeoMath.METERS_PER_DEGREE;
+    }
+
+    /**
+     * Transfers from the stop, shortest walk first.
+     */
+    public List<Transfer> transfersFrom(String stopId) {
+        return transfers.getOrDefault(stopId, List.of());
+    }
+
+    /**
+     * Bumped on every change, so derived structures know when to rebuild.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    @WarmUpListener
+    public void warmUp() {
+        rebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${bebraradar.transfers.rebuild-interval:1h}",
+        initialDelayString = "${bebraradar.transfers.rebuild-interval:1h}")
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        positions.clear();
+        cells.clear();
+        jdbcTemplate.query("select stop_id, stop_lat, stop_lon from stops "
+            + "where stop_lat is not null and stop_lon is not null", (RowCallbackHandler) rs ->
+            place(rs.getString(1), rs.getDouble(2), rs.getDouble(3)));
+        Map<String, List<Transfer>> computed = new HashMap<>();
+        int pairs = 0;
+        for (String stopId : positions.keySet()) {
+            List<Transfer> found = neighbours(stopId);
+            if (!found.isEmpty()) {
+                computed.put(stopId, found);
+                pairs += found.size();
+            }
+        }
+        if (persisted && computed.equals(transfers)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from stop_transfers");
+            List<Object[]> rows = new ArrayList<>();
+            computed.forEach((from, list) -> list.forEach(transfer -> rows.add(values(from, transfer))));
+            jdbcTemplate.batchUpdate(INSERT_TRANSFER, rows);
+        });
+        transfers.keySet().retainAll(computed.keySet());
+        transfers.putAll(computed);
+        persisted = true;
+        version.incrementAndGet();
+        log.info("Transfer graph built for {} stops with {} transfers in {} ms", positions.size(), pairs,
+            (System.nanoTime() - started) / 1_000_000);
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.kind() == EntityChangedEvent.Kind.STOP) {
+            update((String) event.id());
+        }
+    }
+
+    /**
+     * Re-reads one stop and recomputes the transfers from and to it.
+     */
+    synchronized void update(String stopId) {
+        double[] previous = positions.remove(stopId);
+        if (previous != null) {
+            Set<String> cell = cells.get(cellKey(row(previous[0]), column(previous[1])));
+            cell.remove(stopId);
+        }
+        jdbcTemplate.query("select stop_lat, stop_lon from stops where stop_id = ? "
+            + "and stop_lat is not null and stop_lon is not null", (RowCallbackHandler) rs ->
+            place(stopId, rs.getDouble(1), rs.getDouble(2)), stopId);
+
+        List<Transfer> found = positions.containsKey(stopId) ? neighbours(stopId) : List.of();
+        Set<String> affected = new HashSet<>();
+        transfersFrom(stopId).forEach(transfer -> affected.add(transfer.toStopId()));
+        found.forEach(transfer -> affected.add(transfer.toStopId()));
+        if (affected.isEmpty() && !transfers.containsKey(stopId)) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from stop_transfers where from_stop_id = ? or to_stop_id = ?", stopId,
+                stopId);
+            List<Object[]> rows = new ArrayList<>(found.size() * 2);
+            for (Transfer transfer : found) {
+                rows.add(values(stopId, transfer));
+                rows.add(values(transfer.toStopId(), reverse(stopId, transfer)));
+            }
+            jdbcTemplate.batchUpdate(INSERT_TRANSFER, rows);
+        });
+
+        Map<String, Transfer> reversed = new HashMap<>();
+        found.forEach(transfer -> reversed.put(transfer.toStopId(), reverse(stopId, transfer)));
+        for (String other : affected) {
+            List<Transfer> list = new ArrayList<>(transfersFrom(other));
+            list.removeIf(transfer -> transfer.toStopId().equals(stopId));
+            if (reversed.containsKey(other)) {
+                list.add(reversed.get(other));
+                list.sort(Comparator.comparingInt(Transfer::walkSeconds));
+            }
+            publish(other, list);
+        }
+        publish(stopId, found);
+        version.incrementAndGet();
+    }
+
+    private void publish(String stopId, List<Transfer> list) {
+        if (list.isEmpty()) {
+            transfers.remove(stopId);
+        } else {
+            transfers.put(stopId, List.copyOf(list));
+        }
+    }
+
+    private void place(String stopId, double latitude, double longitude) {
+        positions.put(stopId, new double[]{latitude, longitude});
+        cells.computeIfAbsent(cellKey(row(latitude), column(longitude)), key -> new HashSet<>()).add(stopId);
+    }
+
+    private List<Transfer> neighbours(String stopId) {
+        double[] position = positions.get(stopId);
+        int row = row(position[0]);
+        int column = column(position[1]);
+        // a degree of longitude shrinks with latitude, so more columns are needed to cover max-distance
+        int columns = (int) Math.ceil(GeoMath.longitudeSpan(position[0], maxDistance) / cellDegrees);
+        List<Transfer> found = new ArrayList<>();
+        for (int r = row - 1; r <= row + 1; r++) {
+            for (int c = column - columns; c <= column + columns; c++) {
+                Set<String> cell = cells.get(cellKey(r, c));
+                if (cell == null) {
+                    continue;
+                }
+                for (String other : cell) {
+                    if (other.equals(stopId)) {
+                        continue;
+                    }
+                    double[] target = positions.get(other);
+                    double distance = GeoMath.haversine(position[0], position[1], target[0], target[1]);
+                    if (distance <= maxDistance) {
+                        found.add(new Transfer(other, distance, (int) Math.ceil(distance / walkingSpeed)));
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingInt(Transfer::walkSeconds));
+        return found;
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor(latitude / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor(longitude / cellDegrees);
+    }
+
+    private static long cellKey(int row, int column) {
+        return (long) row << 32 | (column & 0xffffffffL);
+    }
+
+    private static Transfer reverse(String fromStopId, Transfer transfer) {
+        return new Transfer(fromStopId, transfer.distanceMeters(), transfer.walkSeconds());
+    }
+
+    private static Object[] values(String fromStopId, Transfer transfer) {
+        return new Object[]{fromStopId, transfer.toStopId(), transfer.distanceMeters(), transfer.walkSeconds()};
+    }
+}
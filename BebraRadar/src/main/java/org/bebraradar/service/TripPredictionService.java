@@ -0,0 +1,421 @@
+package org.bebraradar.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.bebraradar.dto.StopPredictionDto;
+import org.bebraradar.dto.TripPredictionDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Arrival and departure predictions for the stops ahead of a vehicle, made from its position along the trip's shape,
+ * the scheduled stop times and the speeds recently driven between stops. Every {@link VehicleMovedEvent} replaces
+ * the position of its vehicle and teaches the speed of the stop-to-stop segments it covered. When several vehicles
+ * are on a trip, as when passengers' positions were clustered into more than one, predictions follow a reported
+ * vehicle over an inferred one and otherwise the one seen longest. They are computed on the first read after a
+ * vehicle of the trip moved and served from memory until the next move. Stop
+ * layouts are loaded once per trip and cached until the trip, its stop times, stops or shape change; the TTL
+ * covers rows written to the database directly.
+ */
+@Service
+public class TripPredictionService {
+
+    private static final String LAYOUT_SQL = """
+        select t.shape_id, t.service_id, st.stop_sequence, st.stop_id, s.stop_name, s.stop_lat, s.stop_lon,
+               st.arrival_time, st.departure_time
+        from trips t
+        join stop_times st on st.trip_id = t.trip_id
+        join stops s on s.stop_id = st.stop_id
+        where t.trip_id = ?
+        order by st.stop_sequence
+        """;
+
+    // a vehicle crawling through a jam must not push arrivals out to infinity
+    private static final double MIN_SPEED_MPS = 0.5;
+
+    private record SegmentKey(String fromStopId, String toStopId) {
+    }
+
+    /**
+     * @param observedAt epoch seconds of the position that taught the speed
+     */
+    private record SegmentSpeed(double speedMps, long observedAt) {
+    }
+
+    /**
+     * Latest position of a vehicle on a trip.
+     *
+     * @param firstSeenMicros when the vehicle was first seen on the trip
+     */
+    private record Sighting(LiveVehicleState vehicle, long firstSeenMicros) {
+    }
+
+    /**
+     * Vehicles seen on a trip by number, and the predictions made from the preferred one, null until the first read.
+     */
+    private record TripState(Map<String, Sighting> vehicles, TripPredictionDto prediction) {
+
+        TripState withoutPrediction() {
+            return prediction == null ? this : new TripState(vehicles, null);
+        }
+    }
+
+    private final TimetableService timetableService;
+    private final ShapeGeometryService shapeGeometryService;
+    private final LiveVehicleStore vehicleStore;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final double smoothing;
+    private final long speedMaxAgeSeconds;
+    private final long positionMaxAgeSeconds;
+    private final long maxObservationGapSeconds;
+    private final double maxSpeed;
+    private final double defaultSpeed;
+    private final double stopRadius;
+    private final String inferredPrefix;
+    private final Cache<Long, TripStopLayout> layouts;
+    private final Map<SegmentKey, SegmentSpeed> speeds = new ConcurrentHashMap<>();
+    private final Map<Long, TripState> trips = new ConcurrentHashMap<>();
+
+    public TripPredictionService(TimetableService timetableService,
+                                 ShapeGeometryService shapeGeometryService,
+                                 LiveVehicleStore vehicleStore,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${bebraradar.predictions.speed-smoothing:0.3}") double smoothing,
+                                 @Value("${bebraradar.predictions.speed-max-age:30m}") Duration speedMaxAge,
+                                 @Value("${bebraradar.predictions.position-max-age:30m}") Duration positionMaxAge,
+                                 @Value("${bebraradar.predictions.max-observation-gap:2m}") Duration maxObservationGap,
+                                 @Value("${bebraradar.predictions.max-speed:25}") double maxSpeed,
+                                 @Value("${bebraradar.predictions.default-speed:8}") double defaultSpeed,
+                                 @Value("${bebraradar.predictions.stop-radius:30}") double stopRadius,
+                                 @Value("${bebraradar.predictions.layout-cache.max-size:10000}") long maxLayouts,
+                                 @Value("${bebraradar.predictions.layout-cache.ttl:1h}") Duration layoutTtl,
+                                 @Value("${bebraradar.vehicles.inference.vehicle-prefix:inferred-}")
+                                 String inferredPrefix) {
+        this.timetableService = timetableService;
+        this.shapeGeometryService = shapeGeometryService;
+        this.vehicleStore = vehicleStore;
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = Clock.systemUTC();
+        this.smoothing = smoothing;
+        this.speedMaxAgeSeconds = speedMaxAge.toSeconds();
+        this.positionMaxAgeSeconds = positionMaxAge.toSeconds();
+        this.maxObservationGapSeconds = maxObservationGap.toSeconds();
+        this.maxSpeed = maxSpeed;
+        this.defaultSpeed = defaultSpeed;
+        this.stopRadius = stopRadius;
+        this.inferredPrefix = inferredPrefix;
+        this.layouts = Caffeine.newBuilder()
+            .maximumSize(maxLayouts)
+            .expireAfterWrite(layoutTtl)
+            .build();
+    }
+
+    @EventListener
+    public void onVehicleMoved(VehicleMovedEvent event) {
+        LiveVehicleState current = event.current();
+        if (Double.isNaN(current.latitude()) || Double.isNaN(current.longitude())) {
+            return;
+        }
+        LiveVehicleState previous = event.previous();
+        if (previous != null && previous.tripId() != current.tripId()) {
+            trips.computeIfPresent(previous.tripId(), (id, state) -> without(state, previous.vehicleNo()));
+        }
+        trips.compute(current.tripId(), (id, state) -> {
+            Map<String, Sighting> vehicles = state == null ? new HashMap<>() : new HashMap<>(state.vehicles());
+            Sighting known = vehicles.get(current.vehicleNo());
+            if (known != null && known.vehicle().timestampMicros() > current.timestampMicros()) {
+                return state;
+            }
+            long firstSeen = known == null ? current.timestampMicros() : known.firstSeenMicros();
+            vehicles.put(current.vehicleNo(), new Sighting(current, firstSeen));
+            return new TripState(Map.copyOf(vehicles), null);
+        });
+        learn(previous, current);
+    }
+
+    /**
+     * Predictions for the trip, or null when no recent position of it is known or its stops cannot be placed on
+     * a shape.
+     */
+    public TripPredictionDto predictions(long tripId) {
+        TripState state = trips.get(tripId);
+        LiveVehicleState vehicle = state == null ? null : preferred(tripId, state);
+        if (vehicle == null) {
+            return null;
+        }
+        TripPredictionDto cached = state.prediction();
+        if (cached != null && cached.vehicleNo().equals(vehicle.vehicleNo())) {
+            return cached;
+        }
+        TripPredictionDto prediction = predict(vehicle);
+        if (prediction != null) {
+            trips.replace(tripId, state, new TripState(state.vehicles(), prediction));
+        }
+        return prediction;
+    }
+
+    /**
+     * The vehicle to predict from: reported before inferred, then the one seen on the trip the longest. Vehicles
+     * that were deleted or moved on to another trip since do not count.
+     */
+    private LiveVehicleState preferred(long tripId, TripState state) {
+        Sighting best = null;
+        for (Sighting sighting : state.vehicles().values()) {
+            String vehicleNo = sighting.vehicle().vehicleNo();
+            if (vehicleStore.get(vehicleNo).filter(stored -> stored.tripId() == tripId).isEmpty()) {
+                continue;
+            }
+            if (best == null || compare(sighting, best) < 0) {
+                best = sighting;
+            }
+        }
+        return best == null ? null : best.vehicle();
+    }
+
+    private int compare(Sighting a, Sighting b) {
+        boolean aInferred = a.vehicle().vehicleNo().startsWith(inferredPrefix);
+        boolean bInferred = b.vehicle().vehicleNo().startsWith(inferredPrefix);
+        if (aInferred != bInferred) {
+            return aInferred ? 1 : -1;
+        }
+        int byAge = Long.compare(a.firstSeenMicros(), b.firstSeenMicros());
+        return byAge != 0 ? byAge : a.vehicle().vehicleNo().compareTo(b.vehicle().vehicleNo());
+    }
+
+    /**
+     * Layouts are cached per trip; stops and shapes are shared between trips, so changing one drops them all.
+     * Predictions are made again on the next read, as are all of them when a calendar may have moved service days.
+     */
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        switch (event.kind()) {
+            case TRIP, STOP_TIME -> {
+                Long tripId = (Long) event.id();
+                layouts.invalidate(tripId);
+                trips.computeIfPresent(tripId, (id, state) -> state.withoutPrediction());
+            }
+            case STOP, SHAPE, SHAPE_POINT -> {
+                layouts.invalidateAll();
+                trips.replaceAll((id, state) -> state.withoutPrediction());
+            }
+            case CALENDAR, CALENDAR_DATE -> trips.replaceAll((id, state) -> state.withoutPrediction());
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * Forgets positions of vehicles that stopped reporting and speeds nobody has driven lately.
+     */
+    @Scheduled(fixedDelayString = "${bebraradar.predictions.cleanup-interval:1m}")
+    public void evictStale() {
+        long now = clock.instant().getEpochSecond();
+        for (Long tripId : trips.keySet()) {
+            trips.computeIfPresent(tripId, (id, state) -> {
+                TripState kept = state;
+                for (Sighting sighting : state.vehicles().values()) {
+                    if (now - sighting.vehicle().timestampMicros() / 1_000_000 > positionMaxAgeSeconds) {
+                        kept = kept == null ? null : without(kept, sighting.vehicle().vehicleNo());
+                    }
+                }
+                return kept;
+            });
+        }
+        speeds.values().removeIf(speed -> now - speed.observedAt() > speedMaxAgeSeconds);
+    }
+
+    /**
+     * The state without the vehicle, or null when it was the last one.
+     */
+    private static TripState without(TripState state, String vehicleNo) {
+        if (!state.vehicles().containsKey(vehicleNo)) {
+            return state;
+        }
+        Map<String, Sighting> vehicles = new HashMap<>(state.vehicles());
+        vehicles.remove(vehicleNo);
+        return vehicles.isEmpty() ? null : new TripState(Map.copyOf(vehicles), null);
+    }
+
+    /**
+     * Turns the progress between two positions of a vehicle into a speed for every stop-to-stop segment it
+     * covered. Moving backwards is GPS noise and staying by one stop is dwelling, which the schedule accounts for.
+     */
+    private void learn(LiveVehicleState previous, LiveVehicleState current) {
+        if (previous == null || previous.tripId() != current.tripId()
+            || Double.isNaN(previous.latitude()) || Double.isNaN(previous.longitude())) {
+            return;
+        }
+        double elapsed = (current.timestampMicros() - previous.timestampMicros()) / 1e6;
+        if (elapsed <= 0 || elapsed > maxObservationGapSeconds) {
+            return;
+        }
+        TripStopLayout layout = layout(current.tripId());
+        ShapeMatcher matcher = layout.size() < 2 ? null : shapeGeometryService.matcher(layout.shapeId());
+        if (matcher == null) {
+            return;
+        }
+        double from = matcher.match(previous.latitude(), previous.longitude()).distanceAlong();
+        double to = matcher.match(current.latitude(), current.longitude()).distanceAlong();
+        if (to <= from) {
+            return;
+        }
+        int first = layout.nextStop(from);
+        for (int stop = Math.max(0, first - 1); stop <= first && stop < layout.size(); stop++) {
+            double distance = layout.distance(stop);
+            if (Math.abs(from - distance) <= stopRadius && Math.abs(to - distance) <= stopRadius) {
+                return;
+            }
+        }
+        SegmentSpeed observed = new SegmentSpeed(Math.min(maxSpeed, (to - from) / elapsed),
+            current.timestampMicros() / 1_000_000);
+        // segment i runs from stop i - 1 to stop i
+        for (int i = Math.max(1, first); i < layout.size() && layout.distance(i - 1) < to; i++) {
+            speeds.merge(new SegmentKey(layout.stopId(i - 1), layout.stopId(i)), observed, this::blend);
+        }
+    }
+
+    private SegmentSpeed blend(SegmentSpeed known, SegmentSpeed observed) {
+        if (observed.observedAt() - known.observedAt() > speedMaxAgeSeconds) {
+            return observed;
+        }
+        double speed = known.speedMps() + smoothing * (observed.speedMps() - known.speedMps());
+        return new SegmentSpeed(speed, Math.max(known.observedAt(), observed.observedAt()));
+    }
+
+    private TripPredictionDto predict(LiveVehicleState vehicle) {
+        TripStopLayout layout = layout(vehicle.tripId());
+        ShapeMatcher matcher = layout.size() == 0 ? null : shapeGeometryService.matcher(layout.shapeId());
+        if (matcher == null) {
+            return null;
+        }
+        ZoneId zone = timetableService.zone();
+        double position = matcher.match(vehicle.latitude(), vehicle.longitude()).distanceAlong();
+        double now = vehicle.timestampMicros() / 1e6;
+        double scheduled = layout.scheduledAt(position);
+        LocalDate serviceDate = serviceDate(layout, zone, now, scheduled);
+        long midnight = serviceDate.atStartOfDay(zone).toEpochSecond();
+
+        int next = layout.nextStop(position);
+        List<StopPredictionDto> stops = new ArrayList<>(layout.size() - next);
+        double time = now;
+        double at = position;
+        for (int i = next; i < layout.size(); i++) {
+            double arrival = time + Math.max(0, layout.distance(i) - at) / speed(layout, i, now);
+            long scheduledArrival = midnight + layout.arrival(i);
+            long scheduledDeparture = midnight + layout.departure(i);
+            // a vehicle dwells as long as planned and does not leave before its scheduled departure
+            double departure = Math.max(arrival + layout.departure(i) - layout.arrival(i), scheduledDeparture);
+            long predictedArrival = Math.round(arrival);
+            long predictedDeparture = Math.round(departure);
+            stops.add(new StopPredictionDto(layout.stopSequence(i), layout.stopId(i), layout.stopName(i),
+                toDateTime(scheduledArrival, zone), toDateTime(scheduledDeparture, zone),
+                toDateTime(predictedArrival, zone), toDateTime(predictedDeparture, zone),
+                predictedArrival - scheduledArrival, predictedDeparture - scheduledDeparture));
+            time = departure;
+            at = layout.distance(i);
+        }
+        return new TripPredictionDto(vehicle.tripId(), vehicle.vehicleNo(), serviceDate,
+            Timestamps.fromMicros(vehicle.timestampMicros()), position, Math.round(now - midnight - scheduled),
+            stops);
+    }
+
+    /**
+     * Speed towards stop {@code stop}: the recently driven speed of the segment from the stop before, else the
+     * scheduled one, else {@code default-speed}.
+     */
+    private double speed(TripStopLayout layout, int stop, double now) {
+        if (stop == 0) {
+            return defaultSpeed;
+        }
+        SegmentSpeed learned = speeds.get(new SegmentKey(layout.stopId(stop - 1), layout.stopId(stop)));
+        if (learned != null && now - learned.observedAt() <= speedMaxAgeSeconds) {
+            return Math.max(MIN_SPEED_MPS, learned.speedMps());
+        }
+        double length = layout.distance(stop) - layout.distance(stop - 1);
+        int runtime = layout.arrival(stop) - layout.departure(stop - 1);
+        return length > 0 && runtime > 0 ? Math.max(MIN_SPEED_MPS, length / runtime) : defaultSpeed;
+    }
+
+    /**
+     * The service day around {@code now} on which the trip runs and whose schedule is closest to the vehicle.
+     * Stop times may pass midnight, so the day before is a candidate too; when the calendar has the trip on none
+     * of the days, the closest schedule wins regardless.
+     */
+    private LocalDate serviceDate(TripStopLayout layout, ZoneId zone, double now, double scheduled) {
+        ServiceActivityIndex services = timetableService.snapshot().services();
+        int slot = layout.serviceId() == null ? -1 : services.slotOf(layout.serviceId());
+        LocalDate today = Instant.ofEpochSecond((long) now).atZone(zone).toLocalDate();
+        LocalDate best = today;
+        double bestGap = Double.POSITIVE_INFINITY;
+        boolean bestActive = false;
+        for (int day = -1; day <= 1; day++) {
+            LocalDate date = today.plusDays(day);
+            boolean active = slot >= 0 && services.activeOn(date).get(slot);
+            double gap = Math.abs(now - date.atStartOfDay(zone).toEpochSecond() - scheduled);
+            if (active && !bestActive || active == bestActive && gap < bestGap) {
+                best = date;
+                bestGap = gap;
+                bestActive = active;
+            }
+        }
+        return best;
+    }
+
+    private TripStopLayout layout(long tripId) {
+        return layouts.get(tripId, this::loadLayout);
+    }
+
+    /**
+     * Trips without stop times or a known shape get an empty layout, so they are not looked up on every position.
+     */
+    private TripStopLayout loadLayout(long tripId) {
+        List<Object[]> rows = jdbcTemplate.query(LAYOUT_SQL, (rs, rowNum) -> new Object[]{
+            rs.getString(1), rs.getString(2), rs.getInt(3), rs.getString(4), rs.getString(5),
+            rs.getObject(6, Double.class), rs.getObject(7, Double.class), rs.getInt(8), rs.getInt(9)}, tripId);
+        String shapeId = rows.isEmpty() ? null : (String) rows.get(0)[0];
+        ShapeMatcher matcher = shapeId == null ? null : shapeGeometryService.matcher(shapeId);
+        if (matcher == null) {
+            return TripStopLayout.EMPTY;
+        }
+        int n = rows.size();
+        int[] sequences = new int[n];
+        String[] stopIds = new String[n];
+        String[] stopNames = new String[n];
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        int[] arrivals = new int[n];
+        int[] departures = new int[n];
+        for (int i = 0; i < n; i++) {
+            Object[] row = rows.get(i);
+            sequences[i] = (Integer) row[2];
+            stopIds[i] = (String) row[3];
+            stopNames[i] = (String) row[4];
+            latitudes[i] = LiveVehicleState.toPrimitive((Double) row[5]);
+            longitudes[i] = LiveVehicleState.toPrimitive((Double) row[6]);
+            arrivals[i] = (Integer) row[7];
+            departures[i] = (Integer) row[8];
+        }
+        return TripStopLayout.project(shapeId, (String) rows.get(0)[1], sequences, stopIds, stopNames, latitudes,
+            longitudes, arrivals, departures, matcher);
+    }
+
+    private static OffsetDateTime toDateTime(long epochSecond, ZoneId zone) {
+        return Instant.ofEpochSecond(epochSecond).atZone(zone).toOffsetDateTime();
+    }
+}
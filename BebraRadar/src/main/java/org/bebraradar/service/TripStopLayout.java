@@ -0,0 +1,129 @@
+package org.bebraradar.service;
+
+import java.util.Arrays;
+
+/**
+ * Stops of one trip in sequence, with their scheduled arrival and departure (seconds from midnight of the service
+ * day, as in {@code stop_times}) and their distance along the trip's shape. Stops are projected in order, each on
+ * the segment of the stop before it or later, so a shape passing the same place twice keeps them apart; a stop
+ * without coordinates gets the distance of the stop before it.
+ */
+final class TripStopLayout {
+
+    static final TripStopLayout EMPTY = new TripStopLayout(null, null, new int[0], new String[0], new String[0],
+        new int[0], new int[0], new double[0]);
+
+    private final String shapeId;
+    private final String serviceId;
+    private final int[] stopSequences;
+    private final String[] stopIds;
+    private final String[] stopNames;
+    private final int[] arrivals;
+    private final int[] departures;
+    private final double[] distances;
+
+    private TripStopLayout(String shapeId, String serviceId, int[] stopSequences, String[] stopIds,
+                           String[] stopNames, int[] arrivals, int[] departures, double[] distances) {
+        this.shapeId = shapeId;
+        this.serviceId = serviceId;
+        this.stopSequences = stopSequences;
+        this.stopIds = stopIds;
+        this.stopNames = stopNames;
+        this.arrivals = arrivals;
+        this.departures = departures;
+        this.distances = distances;
+    }
+
+    /**
+     * @param latitudes  stop latitudes, NaN when unknown
+     * @param longitudes stop longitudes, NaN when unknown
+     */
+    static TripStopLayout project(String shapeId, String serviceId, int[] stopSequences, String[] stopIds,
+                                  String[] stopNames, double[] latitudes, double[] longitudes, int[] arrivals,
+                                  int[] departures, ShapeMatcher matcher) {
+        int n = stopIds.length;
+        double[] distances = new double[n];
+        int segment = 0;
+        double previous = 0;
+        for (int i = 0; i < n; i++) {
+            double distance = previous;
+            if (!Double.isNaN(latitudes[i]) && !Double.isNaN(longitudes[i])) {
+                ShapeMatcher.Match match = matcher.matchFrom(latitudes[i], longitudes[i], segment);
+                if (match.segment() >= 0) {
+                    segment = match.segment();
+                    distance = Math.max(previous, match.distanceAlong());
+                }
+            }
+            distances[i] = distance;
+            previous = distance;
+        }
+        return new TripStopLayout(shapeId, serviceId, stopSequences, stopIds, stopNames, arrivals, departures,
+            distances);
+    }
+
+    String shapeId() {
+        return shapeId;
+    }
+
+    String serviceId() {
+        return serviceId;
+    }
+
+    int size() {
+        return stopIds.length;
+    }
+
+    int stopSequence(int stop) {
+        return stopSequences[stop];
+    }
+
+    String stopId(int stop) {
+        return stopIds[stop];
+    }
+
+    String stopName(int stop) {
+        return stopNames[stop];
+    }
+
+    int arrival(int stop) {
+        return arrivals[stop];
+    }
+
+    int departure(int stop) {
+        return departures[stop];
+    }
+
+    double distance(int stop) {
+        return distances[stop];
+    }
+
+    /**
+     * Index of the first stop beyond {@code distanceAlong}, or {@link #size()} when the position is past the last.
+     */
+    int nextStop(double distanceAlong) {
+        int found = Arrays.binarySearch(distances, distanceAlong);
+        int i = found >= 0 ? found : -found - 1;
+        // stops projected onto the same distance appear as a run of equal values
+        while (i < distances.length && distances[i] <= distanceAlong) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Second of the service day at which the schedule passes {@code distanceAlong}: the departure from the first
+     * stop before the trip starts, the arrival at the last stop after it ends and linear in between.
+     */
+    double scheduledAt(double distanceAlong) {
+        int next = nextStop(distanceAlong);
+        if (next == 0) {
+            return departures[0];
+        }
+        if (next == distances.length) {
+            return arrivals[next - 1];
+        }
+        double length = distances[next] - distances[next - 1];
+        double t = length <= 0 ? 1 : (distanceAlong - distances[next - 1]) / length;
+        return departures[next - 1] + (arrivals[next] - departures[next - 1]) * t;
+    }
+}
@@ -0,0 +1,185 @@
+package org.bebraradar.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongToDoubleFunction;
+
+/**
+ * Inference state of one trip: passenger positions along the trip's shape waiting in open time bins, and the
+ * tracker that carries vehicles from one closed bin to the next. Passengers weigh in with their trust level, and
+ * each bin moves the level of every passenger clustered with others once towards their mean agreement with the
+ * vehicle their cluster was matched to. A vehicle is only reported again once its filtered position strays more than
+ * {@code emitTolerance} from where the last report would have put it by dead reckoning, or after
+ * {@code emitInterval} seconds; in between, {@link #estimates} serves predictions from the tracker. Not thread-safe;
+ * the owner synchronizes.
+ */
+final class TripVehicleInference {
+
+    /**
+     * A vehicle to report.
+     *
+     * @param timestamp     epoch seconds of the latest position in the cluster
+     * @param distanceAlong filtered position along the shape in meters
+     * @param velocity      meters per second along the shape
+     * @param spread        half the extent of the cluster in meters
+     */
+    record Vehicle(int trackId, long timestamp, double distanceAlong, double velocity, int users, double spread) {
+    }
+
+    /**
+     * A tracked vehicle predicted to some moment.
+     *
+     * @param standardDeviation uncertainty of {@code distanceAlong} in meters
+     */
+    record Estimate(int trackId, long updatedAt, double distanceAlong, double standardDeviation, double velocity) {
+    }
+
+    private final String shapeId;
+    private final long binSeconds;
+    private final double measurementVariance;
+    private final double emitTolerance;
+    private final long emitInterval;
+    private final AlongTrackClusterer clusterer;
+    private final VehicleTracker tracker;
+    private final UserTrustService trust;
+    private final LongToDoubleFunction weights;
+    // {time, position, velocity} of the last report per track
+    private final Map<Integer, double[]> reported = new HashMap<>();
+    // {sum of deviations, pings} per passenger in the bin being closed
+    private final Map<Long, double[]> deviations = new HashMap<>();
+    private double[] variances = new double[4];
+    private long closedUntil = Long.MIN_VALUE;
+    private long lastActivity;
+
+    /**
+     * @param measurementNoise standard deviation of a single passenger position along the shape in meters
+     */
+    TripVehicleInference(String shapeId, long binSeconds, double measurementNoise, double emitTolerance,
+                         long emitInterval, AlongTrackClusterer clusterer, VehicleTracker tracker,
+                         UserTrustService trust) {
+        this.shapeId = shapeId;
+        this.binSeconds = binSeconds;
+        this.measurementVariance = measurementNoise * measurementNoise;
+        this.emitTolerance = emitTolerance;
+        this.emitInterval = emitInterval;
+        this.clusterer = clusterer;
+        this.tracker = tracker;
+        this.trust = trust;
+        this.weights = trust::trust;
+    }
+
+    /**
+     * Null when the trip has no shape, in which case its positions cannot be used.
+     */
+    String shapeId() {
+        return shapeId;
+    }
+
+    long lastActivity() {
+        return lastActivity;
+    }
+
+    void touch(long now) {
+        lastActivity = now;
+    }
+
+    /**
+     * @return false when the position falls into a bin that was already closed
+     */
+    boolean add(long timestamp, double distanceAlong, long user) {
+        if (timestamp < closedUntil) {
+            return false;
+        }
+        clusterer.add(timestamp, distanceAlong, user);
+        return true;
+    }
+
+    /**
+     * Closes every bin that ends at or before {@code until} (epoch seconds), oldest first, and returns the vehicles
+     * due for a report. Reported tracks the tracker has given up on are added to {@code dropped}.
+     */
+    List<Vehicle> close(long until, List<Integer> dropped) {
+        List<Vehicle> vehicles = new ArrayList<>();
+        while (!clusterer.isEmpty()) {
+            long start = Math.floorDiv(clusterer.oldestTimestamp(), binSeconds) * binSeconds;
+            if (start + binSeconds > until) {
+                break;
+            }
+            closedUntil = start + binSeconds;
+            int clusters = clusterer.close(start, closedUntil, weights);
+            long time = clusterer.binLatest();
+            if (variances.length < clusters) {
+                variances = new double[Math.max(clusters, variances.length * 2)];
+            }
+            for (int j = 0; j < clusters; j++) {
+                // a median of n equally trusted positions is about n times less noisy than one; the cluster extent
+                // adds model error
+                double spread = clusterer.spread(j);
+                variances[j] = (measurementVariance + spread * spread) / Math.max(1, clusterer.effectiveCount(j));
+            }
+            VehicleTracker.Track[] tracks = tracker.step(time, clusterer.centers(), variances, clusters);
+            for (int j = 0; j < clusters; j++) {
+                VehicleTracker.Track track = tracks[j];
+                // a passenger alone in a cluster only agrees with themselves
+                if (clusterer.userCount(j) > 1) {
+                    for (int m = clusterer.memberFrom(j); m < clusterer.memberTo(j); m++) {
+                        long user = clusterer.memberUser(m);
+                        if (user != AlongTrackClusterer.NO_USER) {
+                            double[] sum = deviations.computeIfAbsent(user, id -> new double[2]);
+                            sum[0] += Math.abs(clusterer.memberPosition(m) - track.position());
+                            sum[1]++;
+                        }
+                    }
+                }
+                if (due(track, time)) {
+                    reported.put(track.id(), new double[]{time, track.position(), track.velocity()});
+                    vehicles.add(new Vehicle(track.id(), time, track.position(), track.velocity(),
+                        clusterer.userCount(j), clusterer.spread(j)));
+                }
+            }
+            // one observation per passenger and bin, however often they pinged
+            deviations.forEach((user, sum) -> trust.observe(user, sum[0] / sum[1]));
+            deviations.clear();
+            if (reported.size() > tracker.tracks().size()) {
+                reported.keySet().removeIf(id -> {
+                    if (tracker.track(id) != null) {
+                        return false;
+                    }
+                    dropped.add(id);
+                    return true;
+                });
+            }
+        }
+        return vehicles;
+    }
+
+    /**
+     * Ids of the tracks reported so far and not dropped since.
+     */
+    List<Integer> reportedTracks() {
+        return new ArrayList<>(reported.keySet());
+    }
+
+    /**
+     * Every tracked vehicle predicted to {@code time} (epoch seconds).
+     */
+    List<Estimate> estimates(double time) {
+        List<Estimate> estimates = new ArrayList<>(tracker.tracks().size());
+        for (VehicleTracker.Track track : tracker.tracks()) {
+            estimates.add(new Estimate(track.id(), track.updatedAt(), track.positionAt(time),
+                Math.sqrt(tracker.positionVarianceAt(track, time)), track.velocity()));
+        }
+        return estimates;
+    }
+
+    private boolean due(VehicleTracker.Track track, long time) {
+        double[] last = reported.get(track.id());
+        if (last == null || time - last[0] >= emitInterval) {
+            return true;
+        }
+        double reckoned = last[1] + last[2] * (time - last[0]);
+        return Math.abs(track.position() - reckoned) > emitTolerance;
+    }
+}
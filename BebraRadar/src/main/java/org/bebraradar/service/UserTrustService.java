@@ -0,0 +1,149 @@
+package org.bebraradar.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory copy of {@code users.trust_level}, read when passenger positions are fused and learned online from how
+ * well each passenger agrees with the vehicle their cluster was matched to. Levels are {@link #preload preloaded}
+ * in one query per ingested batch, before any trip is locked, so reading them never waits on the database; learned
+ * levels are written back in batches every {@code flush-interval}. Changes made through {@code /users} reload the
+ * cached level.
+ */
+@Service
+public class UserTrustService {
+
+    private static final Logger log = LoggerFactory.getLogger(UserTrustService.class);
+
+    private static final String UPDATE_SQL = "update users set trust_level = ? where user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final double defaultTrust;
+    private final double learningRate;
+    private final double agreementScale;
+    private final Map<Long, Double> levels = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    private final Object writeLock = new Object();
+
+    public UserTrustService(JdbcTemplate jdbcTemplate,
+                            @Value("${bebraradar.users.trust.default:0.5}") double defaultTrust,
+                            @Value("${bebraradar.users.trust.learning-rate:0.05}") double learningRate,
+                            @Value("${bebraradar.users.trust.agreement-scale:50}") double agreementScale) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.defaultTrust = defaultTrust;
+        this.learningRate = learningRate;
+        this.agreementScale = agreementScale;
+    }
+
+    /**
+     * Caches the levels of the users that are not cached yet, with a single query; users that do not exist get the
+     * default level.
+     */
+    public void preload(Collection<Long> userIds) {
+        List<Long> missing = new ArrayList<>();
+        for (Long userId : userIds) {
+            if (userId != null && userId != AlongTrackClusterer.NO_USER && !levels.containsKey(userId)) {
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<Long, Double> loaded = load(missing);
+        for (Long userId : missing) {
+            levels.putIfAbsent(userId, loaded.getOrDefault(userId, defaultTrust));
+        }
+    }
+
+    /**
+     * Trust level of the user between 0 and 1; the default level for anonymous positions
+     * ({@link AlongTrackClusterer#NO_USER}) and users that were not preloaded.
+     */
+    public double trust(long userId) {
+        Double level = userId == AlongTrackClusterer.NO_USER ? null : levels.get(userId);
+        return level != null ? level : defaultTrust;
+    }
+
+    /**
+     * Moves the user's level towards their agreement with the consensus: 1 when their position was on the fused
+     * vehicle position, falling off as a Gaussian of the distance with {@code agreement-scale} meters.
+     */
+    public void observe(long userId, double deviationMeters) {
+        if (userId == AlongTrackClusterer.NO_USER) {
+            return;
+        }
+        double ratio = deviationMeters / agreementScale;
+        double agreement = Math.exp(-0.5 * ratio * ratio);
+        if (levels.computeIfPresent(userId, (id, level) ->
+            Math.max(0, Math.min(1, level + learningRate * (agreement - level)))) != null) {
+            dirty.add(userId);
+        }
+    }
+
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.kind() != EntityChangedEvent.Kind.USER) {
+            return;
+        }
+        Long userId = (Long) event.id();
+        synchronized (writeLock) {
+            dirty.remove(userId);
+            levels.remove(userId);
+            load(List.of(userId)).forEach(levels::put);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${bebraradar.users.trust.flush-interval:30s}")
+    public void flush() {
+        synchronized (writeLock) {
+            List<Object[]> pending = new ArrayList<>();
+            for (Iterator<Long> it = dirty.iterator(); it.hasNext(); ) {
+                Long userId = it.next();
+                it.remove();
+                Double level = levels.get(userId);
+                if (level != null) {
+                    pending.add(new Object[]{level, userId});
+                }
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            try {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, pending);
+            } catch (RuntimeException ex) {
+                pending.forEach(row -> dirty.add((Long) row[1]));
+                log.error("Failed to flush {} trust levels, will retry", pending.size(), ex);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private Map<Long, Double> load(Collection<Long> userIds) {
+        Map<Long, Double> found = new HashMap<>();
+        jdbcTemplate.query("select user_id, trust_level from users where user_id = any(?)", (RowCallbackHandler) rs -> {
+            double level = rs.getDouble(2);
+            found.put(rs.getLong(1), rs.wasNull() ? defaultTrust : Math.max(0, Math.min(1, level)));
+        }, (Object) userIds.toArray(new Long[0]));
+        return found;
+    }
+}
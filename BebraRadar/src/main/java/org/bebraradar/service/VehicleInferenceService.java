@@ -0,0 +1,316 @@
+package org.bebraradar.service;
+
+import org.bebraradar.dto.EventResponse;
+import org.bebraradar.dto.InferredVehicleDto;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Turns passenger geo events into vehicle positions as they are ingested. Each position is matched onto its trip's
+ * shape and put into a time bin of the trip; once a bin is complete its positions are clustered along the shape,
+ * weighted by the passengers' {@link UserTrustService trust levels}, and the clusters are tracked across bins, so
+ * every tracked cluster becomes a vehicle in {@link LiveVehicleStore} under {@code <vehicle-prefix><tripId>-<track>}.
+ * Vehicles are written again only when they stray from their dead-reckoned position; {@link #estimates} predicts
+ * them to any moment from the tracker state. Trips keep their state between bins and drop it when idle. A vehicle
+ * is deleted from the store once the tracker drops its track or its trip state is dropped. Vehicles left over from a
+ * previous run are deleted once the application is ready, since the tracks behind them are gone, and inference only
+ * starts after that.
+ */
+@Service
+public class VehicleInferenceService {
+
+    private static final Logger log = LoggerFactory.getLogger(VehicleInferenceService.class);
+
+    // distance along the shape used to derive the bearing of an inferred vehicle
+    private static final double BEARING_LOOKAHEAD_METERS = 10.0;
+
+    private final ShapeGeometryService shapeGeometryService;
+    private final LiveVehicleStore vehicleStore;
+    private final UserTrustService userTrustService;
+    private final JdbcTemplate jdbcTemplate;
+    private final Clock clock;
+    private final boolean enabled;
+    private final long binSeconds;
+    private final long latenessSeconds;
+    private final long idleSeconds;
+    private final double clusterGap;
+    private final int minUsers;
+    private final double maxCrossTrack;
+    private final double maxAccuracy;
+    private final double maxSpeed;
+    private final double gate;
+    private final double gateSigmas;
+    private final double processNoise;
+    private final double measurementNoise;
+    private final double emitTolerance;
+    private final long emitIntervalSeconds;
+    private final int trackTtlBins;
+    private final String vehiclePrefix;
+    private final Map<Long, TripVehicleInference> trips = new ConcurrentHashMap<>();
+    private volatile boolean started;
+
+    public VehicleInferenceService(ShapeGeometryService shapeGeometryService,
+                                   LiveVehicleStore vehicleStore,
+                                   UserTrustService userTrustService,
+                                   JdbcTemplate jdbcTemplate,
+                                   @Value("${bebraradar.vehicles.inference.enabled:true}") boolean enabled,
+                                   @Value("${bebraradar.vehicles.inference.bin:10s}") Duration bin,
+                                   @Value("${bebraradar.vehicles.inference.lateness:5s}") Duration lateness,
+                                   @Value("${bebraradar.vehicles.inference.idle-timeout:30m}") Duration idleTimeout,
+                                   @Value("${bebraradar.vehicles.inference.cluster-gap:80}") double clusterGap,
+                                   @Value("${bebraradar.vehicles.inference.min-users:3}") int minUsers,
+                                   @Value("${bebraradar.vehicles.inference.max-cross-track:80}") double maxCrossTrack,
+                                   @Value("${bebraradar.vehicles.inference.max-accuracy:80}") double maxAccuracy,
+                                   @Value("${bebraradar.vehicles.inference.max-speed:25}") double maxSpeed,
+                                   @Value("${bebraradar.vehicles.inference.gate:150}") double gate,
+                                   @Value("${bebraradar.vehicles.inference.gate-sigmas:3}") double gateSigmas,
+                                   @Value("${bebraradar.vehicles.inference.process-noise:1.0}") double processNoise,
+                                   @Value("${bebraradar.vehicles.inference.measurement-noise:15}") double measurementNoise,
+                                   @Value("${bebraradar.vehicles.inference.emit-tolerance:20}") double emitTolerance,
+                                   @Value("${bebraradar.vehicles.inference.emit-interval:30s}") Duration emitInterval,
+                                   @Value("${bebraradar.vehicles.inference.track-ttl-bins:6}") int trackTtlBins,
+                                   @Value("${bebraradar.vehicles.inference.vehicle-prefix:inferred-}") String vehiclePrefix) {
+        this.shapeGeometryService = shapeGeometryService;
+        this.vehicleStore = vehicleStore;
+        this.userTrustService = userTrustService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.clock = Clock.systemUTC();
+        this.enabled = enabled;
+        this.binSeconds = Math.max(1, bin.toSeconds());
+        this.latenessSeconds = lateness.toSeconds();
+        this.idleSeconds = idleTimeout.toSeconds();
+        this.clusterGap = clusterGap;
+        this.minUsers = minUsers;
+        this.maxCrossTrack = maxCrossTrack;
+        this.maxAccuracy = maxAccuracy;
+        this.maxSpeed = maxSpeed;
+        this.gate = gate;
+        this.gateSigmas = gateSigmas;
+        this.processNoise = processNoise;
+        this.measurementNoise = measurementNoise;
+        this.emitTolerance = emitTolerance;
+        this.emitIntervalSeconds = emitInterval.toSeconds();
+        this.trackTtlBins = trackTtlBins;
+        this.vehiclePrefix = vehiclePrefix;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEventsAccepted(EventsAcceptedEvent accepted) {
+        if (!enabled || !started || accepted.table() != EventTable.GEOLOCATION) {
+            return;
+        }
+        // nothing below may wait on the database while a trip is locked
+        userTrustService.preload(accepted.events().stream().map(EventResponse::userId).toList());
+        openMissing(accepted.events().stream().map(EventResponse::tripId).collect(Collectors.toSet()));
+        long now = clock.instant().getEpochSecond();
+        for (EventResponse event : accepted.events()) {
+            if (event.latitude() == null || event.longitude() == null
+                || event.gpsAccuracyMeters() != null && event.gpsAccuracyMeters() > maxAccuracy) {
+                continue;
+            }
+            TripVehicleInference trip = trips.get(event.tripId());
+            if (trip == null) {
+                // the trip changed since its state was opened above
+                continue;
+            }
+            synchronized (trip) {
+                trip.touch(now);
+                ShapeMatcher matcher = trip.shapeId() == null ? null : shapeGeometryService.matcher(trip.shapeId());
+                if (matcher == null) {
+                    continue;
+                }
+                ShapeMatcher.Match match = matcher.match(event.latitude(), event.longitude());
+                if (match.crossTrack() <= maxCrossTrack) {
+                    trip.add(event.timestamp().toEpochSecond(), match.distanceAlong(),
+                        event.userId() == null ? AlongTrackClusterer.NO_USER : event.userId());
+                }
+            }
+        }
+    }
+
+    /**
+     * A changed trip may point at another shape, so its state starts over.
+     */
+    @EventListener
+    public void onEntityChanged(EntityChangedEvent event) {
+        if (event.kind() != EntityChangedEvent.Kind.TRIP) {
+            return;
+        }
+        long tripId = (Long) event.id();
+        TripVehicleInference trip = trips.remove(tripId);
+        if (trip != null) {
+            List<Integer> tracks;
+            synchronized (trip) {
+                tracks = trip.reportedTracks();
+            }
+            retire(tripId, tracks);
+        }
+    }
+
+    /**
+     * Runs after the vehicles are loaded and before the first tick or event can publish a vehicle of this run.
+     */
+    @WarmUpListener
+    public void removeStaleVehicles() {
+        for (LiveVehicleState state : vehicleStore.all()) {
+            if (state.vehicleNo().startsWith(vehiclePrefix)) {
+                delete(state.vehicleNo());
+            }
+        }
+        started = true;
+    }
+
+    @Scheduled(fixedDelayString = "${bebraradar.vehicles.inference.tick-interval:2s}")
+    public void tick() {
+        if (!started) {
+            return;
+        }
+        long now = clock.instant().getEpochSecond();
+        for (Map.Entry<Long, TripVehicleInference> entry : trips.entrySet()) {
+            long tripId = entry.getKey();
+            TripVehicleInference trip = entry.getValue();
+            List<TripVehicleInference.Vehicle> vehicles;
+            List<Integer> dropped = new ArrayList<>();
+            synchronized (trip) {
+                vehicles = trip.close(now - latenessSeconds, dropped);
+                if (now - trip.lastActivity() > idleSeconds && trips.remove(tripId, trip)) {
+                    dropped.addAll(trip.reportedTracks());
+                }
+            }
+            if (!vehicles.isEmpty()) {
+                publish(tripId, trip.shapeId(), vehicles);
+            }
+            retire(tripId, dropped);
+        }
+    }
+
+    /**
+     * Vehicles currently tracked on the trip, predicted to {@code at}; empty when none are.
+     */
+    public List<InferredVehicleDto> estimates(long tripId, Instant at) {
+        TripVehicleInference trip = trips.get(tripId);
+        if (trip == null || trip.shapeId() == null) {
+            return List.of();
+        }
+        ShapeMatcher matcher = shapeGeometryService.matcher(trip.shapeId());
+        if (matcher == null) {
+            return List.of();
+        }
+        double time = at.getEpochSecond() + at.getNano() / 1e9;
+        List<TripVehicleInference.Estimate> estimates;
+        synchronized (trip) {
+            estimates = trip.estimates(time);
+        }
+        List<InferredVehicleDto> result = new ArrayList<>(estimates.size());
+        for (TripVehicleInference.Estimate estimate : estimates) {
+            double distanceAlong = Math.max(0, Math.min(matcher.length(), estimate.distanceAlong()));
+            double[] position = matcher.positionAt(distanceAlong);
+            result.add(new InferredVehicleDto(vehiclePrefix + tripId + "-" + estimate.trackId(), tripId,
+                at.atOffset(ZoneOffset.UTC), Timestamps.fromMicros(estimate.updatedAt() * 1_000_000L),
+                distanceAlong, estimate.standardDeviation(), position[0], position[1], Math.abs(estimate.velocity()),
+                bearing(matcher, distanceAlong, estimate.velocity())));
+        }
+        result.sort(Comparator.comparingDouble(InferredVehicleDto::distanceAlong));
+        return result;
+    }
+
+    /**
+     * Opens the state of the trips that have none, looking their shapes up in one query outside of any map
+     * operation; a trip that is not found gets a state without a shape.
+     */
+    private void openMissing(Set<Long> tripIds) {
+        List<Long> missing = tripIds.stream().filter(tripId -> !trips.containsKey(tripId)).toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+        Map<Long, String> shapes = new HashMap<>();
+        jdbcTemplate.query("select trip_id, shape_id from trips where trip_id = any(?)",
+            (RowCallbackHandler) rs -> shapes.put(rs.getLong(1), rs.getString(2)),
+            (Object) missing.toArray(new Long[0]));
+        for (Long tripId : missing) {
+            trips.putIfAbsent(tripId, new TripVehicleInference(shapes.get(tripId), binSeconds, measurementNoise,
+                emitTolerance, emitIntervalSeconds, new AlongTrackClusterer(clusterGap, minUsers),
+                new VehicleTracker(maxSpeed, gate, gateSigmas, processNoise, trackTtlBins), userTrustService));
+        }
+    }
+
+    private void publish(long tripId, String shapeId, List<TripVehicleInference.Vehicle> vehicles) {
+        ShapeMatcher matcher = shapeGeometryService.matcher(shapeId);
+        if (matcher == null) {
+            return;
+        }
+        // a bin can only be closed after the previous one, so the latest vehicle per track comes last
+        for (TripVehicleInference.Vehicle vehicle : vehicles) {
+            String vehicleNo = vehiclePrefix + tripId + "-" + vehicle.trackId();
+            double distanceAlong = Math.max(0, Math.min(matcher.length(), vehicle.distanceAlong()));
+            double[] position = matcher.positionAt(distanceAlong);
+            double bearing = bearing(matcher, distanceAlong, vehicle.velocity());
+            long micros = vehicle.timestamp() * 1_000_000L;
+            LiveVehicleState current = vehicleStore.get(vehicleNo).orElse(null);
+            LiveVehicleState state = new LiveVehicleState(vehicleNo, tripId, micros,
+                current == null ? micros : current.lastStopTimestampMicros(), position[0], position[1],
+                Math.abs(vehicle.velocity()), bearing, vehicle.spread());
+            if (current != null && vehicleStore.update(state)) {
+                continue;
+            }
+            try {
+                vehicleStore.insert(state);
+            } catch (DataAccessException ex) {
+                log.warn("Could not store inferred vehicle {}: {}", vehicleNo, ex.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Deletes the vehicles of tracks that are no longer followed, so they do not stay behind frozen in place.
+     */
+    private void retire(long tripId, List<Integer> tracks) {
+        for (int trackId : tracks) {
+            delete(vehiclePrefix + tripId + "-" + trackId);
+        }
+    }
+
+    private void delete(String vehicleNo) {
+        if (!vehicleStore.contains(vehicleNo)) {
+            return;
+        }
+        try {
+            vehicleStore.delete(vehicleNo);
+        } catch (DataAccessException ex) {
+            log.warn("Could not delete inferred vehicle {}: {}", vehicleNo, ex.getMessage());
+        }
+    }
+
+    /**
+     * Direction of travel at {@code distanceAlong}, following the shape forwards or backwards with the velocity.
+     */
+    private static double bearing(ShapeMatcher matcher, double distanceAlong, double velocity) {
+        double ahead = Math.min(matcher.length(), distanceAlong + BEARING_LOOKAHEAD_METERS);
+        double behind = Math.max(0, ahead - 2 * BEARING_LOOKAHEAD_METERS);
+        double[] from = matcher.positionAt(behind);
+        double[] to = matcher.positionAt(ahead);
+        return velocity < 0 ? GeoMath.bearing(to[0], to[1], from[0], from[1])
+            : GeoMath.bearing(from[0], from[1], to[0], to[1]);
+    }
+}
@@ -0,0 +1,8 @@
+package org.bebraradar.service;
+
+/**
+ * Published by {@link LiveVehicleStore} after a vehicle was stored with a new state; {@code previous} is null for a
+ * vehicle that was not known before.
+ */
+public record VehicleMovedEvent(LiveVehicleState previous, LiveVehicleState current) {
+}
@@ -0,0 +1,275 @@
+package org.bebraradar.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Follows passenger clusters of one trip from bin to bin so that they keep a stable vehicle id. Every track is a
+ * constant-velocity Kalman filter along the shape, so between updates it gives a predicted position together with
+ * its uncertainty. A cluster may update a track when its innovation is within {@code gateSigmas} standard
+ * deviations and no farther than {@code gate} plus what the vehicle could have driven at {@code maxSpeed}.
+ * Candidate pairs come from a sweep over tracks sorted by predicted position and clusters sorted along the shape,
+ * and are assigned greedily by normalized innovation. A track that misses {@code ttlBins} bins in which other
+ * clusters were seen is dropped.
+ */
+final class VehicleTracker {
+
+    static final class Track {
+
+        private final int id;
+        private double position;
+        private double velocity;
+        // covariance of (position, velocity)
+        private double p00;
+        private double p01;
+        private double p11;
+        private long updatedAt;
+        private int alive;
+
+        private Track(int id) {
+            this.id = id;
+        }
+
+        int id() {
+            return id;
+        }
+
+        double velocity() {
+            return velocity;
+        }
+
+        long updatedAt() {
+            return updatedAt;
+        }
+
+        /**
+         * Filtered position at the last update.
+         */
+        double position() {
+            return position;
+        }
+
+        /**
+         * Position predicted for {@code time} (epoch seconds), assuming constant velocity since the last update.
+         */
+        double positionAt(double time) {
+            return position + velocity * (time - updatedAt);
+        }
+    }
+
+    private final double maxSpeed;
+    private final double gate;
+    private final double gateSigmas;
+    private final double processNoise;
+    private final int ttlBins;
+    private final List<Track> tracks = new ArrayList<>();
+    private int nextId = 1;
+
+    // scratch reused between steps
+    private Track[] sorted = new Track[4];
+    private double[] predicted = new double[4];
+    private double[] predictedVariance = new double[4];
+    private double[] radius = new double[4];
+    private boolean[] trackTaken = new boolean[4];
+    private long[] pairs = new long[16];
+    private int[] pairTrack = new int[16];
+    private int[] pairCluster = new int[16];
+
+    /**
+     * @param processNoise standard deviation of the acceleration noise in m/s²
+     */
+    VehicleTracker(double maxSpeed, double gate, double gateSigmas, double processNoise, int ttlBins) {
+        this.maxSpeed = maxSpeed;
+        this.gate = gate;
+        this.gateSigmas = gateSigmas;
+        this.processNoise = processNoise;
+        this.ttlBins = ttlBins;
+    }
+
+    /**
+     * Assigns the clusters seen at {@code time} (epoch seconds) to tracks, opening new tracks for the ones nothing
+     * matched.
+     *
+     * @param centers   cluster positions along the shape in meters, ascending; the first {@code count} are used
+     * @param variances measurement variance of each cluster position in m²
+     * @return the track of each cluster
+     */
+    Track[] step(long time, double[] centers, double[] variances, int count) {
+        int trackCount = tracks.size();
+        ensureTrackCapacity(trackCount);
+        double widest = 0;
+        for (int i = 0; i < trackCount; i++) {
+            Track track = tracks.get(i);
+            double elapsed = Math.max(0, time - track.updatedAt);
+            sorted[i] = track;
+            predicted[i] = track.positionAt(time);
+            predictedVariance[i] = predictedPositionVariance(track, elapsed);
+            radius[i] = gate + maxSpeed * elapsed;
+            widest = Math.max(widest, radius[i]);
+        }
+        sortByPrediction(trackCount);
+
+        // sweep: clusters ascend, so the first track that can still be in range only moves forward
+        int pairCount = 0;
+        int first = 0;
+        for (int j = 0; j < count; j++) {
+            double center = centers[j];
+            while (first < trackCount && predicted[first] < center - widest) {
+                first++;
+            }
+            for (int i = first; i < trackCount && predicted[i] <= center + widest; i++) {
+                double innovation = center - predicted[i];
+                double normalized = innovation * innovation / (predictedVariance[i] + variances[j]);
+                if (Math.abs(innovation) <= radius[i] && normalized <= gateSigmas * gateSigmas) {
+                    ensurePairCapacity(pairCount);
+                    // non-negative floats order like their bits, so the cost sorts in the high half
+                    pairs[pairCount] = (long) Float.floatToIntBits((float) normalized) << 32 | pairCount;
+                    pairTrack[pairCount] = i;
+                    pairCluster[pairCount] = j;
+                    pairCount++;
+                }
+            }
+        }
+        Arrays.sort(pairs, 0, pairCount);
+
+        Track[] assigned = new Track[count];
+        Arrays.fill(trackTaken, 0, trackCount, false);
+        for (int p = 0; p < pairCount; p++) {
+            int pair = (int) pairs[p];
+            int i = pairTrack[pair];
+            int j = pairCluster[pair];
+            if (trackTaken[i] || assigned[j] != null) {
+                continue;
+            }
+            trackTaken[i] = true;
+            assigned[j] = sorted[i];
+            update(sorted[i], time, centers[j], variances[j]);
+        }
+        for (int j = 0; j < count; j++) {
+            if (assigned[j] == null) {
+                assigned[j] = open(time, centers[j], variances[j]);
+            }
+        }
+        if (count > 0) {
+            for (Iterator<Track> it = tracks.iterator(); it.hasNext(); ) {
+                Track track = it.next();
+                if (track.updatedAt < time && --track.alive <= 0) {
+                    it.remove();
+                }
+            }
+        }
+        return assigned;
+    }
+
+    Track track(int id) {
+        for (Track track : tracks) {
+            if (track.id == id) {
+                return track;
+            }
+        }
+        return null;
+    }
+
+    List<Track> tracks() {
+        return tracks;
+    }
+
+    /**
+     * Variance of the position predicted for {@code time} (epoch seconds).
+     */
+    double positionVarianceAt(Track track, double time) {
+        return predictedPositionVariance(track, Math.max(0, time - track.updatedAt));
+    }
+
+    private Track open(long time, double center, double variance) {
+        Track track = new Track(nextId++);
+        track.position = center;
+        track.p00 = variance;
+        // nothing is known about the speed yet beyond its bound
+        track.p11 = maxSpeed * maxSpeed / 4;
+        track.updatedAt = time;
+        track.alive = ttlBins;
+        tracks.add(track);
+        return track;
+    }
+
+    /**
+     * Predicts the track to {@code time} under white-noise acceleration and corrects it with the measured position.
+     */
+    private void update(Track track, long time, double measured, double variance) {
+        double dt = Math.max(0, time - track.updatedAt);
+        double q = processNoise * processNoise;
+        double p00 = predictedPositionVariance(track, dt);
+        double p01 = track.p01 + dt * track.p11 + q * dt * dt / 2;
+        double p11 = track.p11 + q * dt;
+        double position = track.position + track.velocity * dt;
+
+        double innovationVariance = p00 + variance;
+        double gainPosition = p00 / innovationVariance;
+        double gainVelocity = p01 / innovationVariance;
+        double innovation = measured - position;
+        track.position = position + gainPosition * innovation;
+        track.velocity = Math.max(-maxSpeed, Math.min(maxSpeed, track.velocity + gainVelocity * innovation));
+        track.p00 = (1 - gainPosition) * p00;
+        track.p01 = (1 - gainPosition) * p01;
+        track.p11 = p11 - gainVelocity * p01;
+        track.updatedAt = time;
+        track.alive = ttlBins;
+    }
+
+    private double predictedPositionVariance(Track track, double dt) {
+        double q = processNoise * processNoise;
+        return track.p00 + 2 * dt * track.p01 + dt * dt * track.p11 + q * dt * dt * dt / 3;
+    }
+
+    /**
+     * Insertion sort of the scratch arrays by predicted position. Tracks rarely overtake each other between bins
+     * and the list keeps the resulting order, so this is close to linear.
+     */
+    private void sortByPrediction(int trackCount) {
+        for (int i = 1; i < trackCount; i++) {
+            Track track = sorted[i];
+            double position = predicted[i];
+            double variance = predictedVariance[i];
+            double reach = radius[i];
+            int j = i - 1;
+            while (j >= 0 && predicted[j] > position) {
+                sorted[j + 1] = sorted[j];
+                predicted[j + 1] = predicted[j];
+                predictedVariance[j + 1] = predictedVariance[j];
+                radius[j + 1] = radius[j];
+                j--;
+            }
+            sorted[j + 1] = track;
+            predicted[j + 1] = position;
+            predictedVariance[j + 1] = variance;
+            radius[j + 1] = reach;
+        }
+        for (int i = 0; i < trackCount; i++) {
+            tracks.set(i, sorted[i]);
+        }
+    }
+
+    private void ensureTrackCapacity(int trackCount) {
+        if (trackCount <= sorted.length) {
+            return;
+        }
+        int capacity = Math.max(trackCount, sorted.length * 2);
+        sorted = new Track[capacity];
+        predicted = new double[capacity];
+        predictedVariance = new double[capacity];
+        radius = new double[capacity];
+        trackTaken = new boolean[capacity];
+    }
+
+    private void ensurePairCapacity(int pairCount) {
+        if (pairCount < pairs.length) {
+            return;
+        }
+        pairs = Arrays.copyOf(pairs, pairs.length * 2);
+        pairTrack = Arrays.copyOf(pairTrack, pairTrack.length * 2);
+        pairCluster = Arrays.copyOf(pairCluster, pairCluster.length * 2);
+    }
+}
@@ -0,0 +1,19 @@
+package org.bebraradar.service;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the annotated method once the application is ready, to fill caches and prepare tables before the first
+ * request. Skipped under the {@code cli} profile, which only needs the beans of a one-off command.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@EventListener(value = ApplicationReadyEvent.class, condition = "!@environment.matchesProfiles('cli')")
+public @interface WarmUpListener {
+}
@@ -0,0 +1,157 @@
+package org.bebraradar.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Timer;
+import org.bebraradar.dto.BatchIngestResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Bounded buffer drained by a dedicated writer thread. A batch is flushed once it reaches {@code flushSize}
+ * elements or {@code flushInterval} has passed since its first element arrived.
+ */
+public class WriteBehindQueue<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(WriteBehindQueue.class);
+
+    private final String name;
+    private final BlockingQueue<T> queue;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+    private final Function<List<T>, BatchIngestResponse> sink;
+    private final Timer flushTimer;
+    private final Counter writtenCounter;
+    private final Counter queueFullCounter;
+    private final Counter rejectedCounter;
+    private final Counter failedCounter;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public WriteBehindQueue(String name, int capacity, int flushSize, Duration flushInterval,
+                            Function<List<T>, BatchIngestResponse> sink, MeterRegistry registry) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+        this.sink = sink;
+        registry.gauge("bebraradar.ingest.queue.depth", List.of(Tag.of("queue", name)),
+            queue, BlockingQueue::size);
+        this.flushTimer = Timer.builder("bebraradar.ingest.flush.latency").tag("queue", name).register(registry);
+        this.writtenCounter = Counter.builder("bebraradar.ingest.written").tag("queue", name).register(registry);
+        this.queueFullCounter = dropCounter(registry, "queue_full");
+        this.rejectedCounter = dropCounter(registry, "rejected");
+        this.failedCounter = dropCounter(registry, "write_failed");
+        this.writer = new Thread(this::drainLoop, "write-behind-" + name);
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    public boolean offer(T element) {
+        if (running && queue.offer(element)) {
+            return true;
+        }
+        queueFullCounter.increment();
+        return false;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /**
+     * Stops accepting elements; the writer flushes what is queued and exits.
+     */
+    public void shutdown() {
+        running = false;
+    }
+
+    /**
+     * Waits for the writer to finish flushing, at most until {@code deadlineNanos} on the {@link System#nanoTime()}
+     * clock, so several queues can share one deadline.
+     *
+     * @return whether the writer finished
+     */
+    public boolean awaitTermination(long deadlineNanos) throws InterruptedException {
+        long remaining = deadlineNanos - System.nanoTime();
+        if (remaining > 0) {
+            writer.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+        }
+        return !writer.isAlive();
+    }
+
+    private void drainLoop() {
+        List<T> batch = new ArrayList<>(flushSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                T first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < flushSize) {
+                    queue.drainTo(batch, flushSize - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= flushSize || remaining <= 0) {
+                        break;
+                    }
+                    T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException ex) {
+                // every blocking poll would throw from now on, so flush the rest without waiting and exit
+                Thread.currentThread().interrupt();
+                running = false;
+                do {
+                    queue.drainTo(batch, flushSize - batch.size());
+                    if (!batch.isEmpty()) {
+                        flush(batch);
+                        batch.clear();
+                    }
+                } while (!queue.isEmpty());
+                return;
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<T> batch) {
+        long start = System.nanoTime();
+        try {
+            BatchIngestResponse response = sink.apply(List.copyOf(batch));
+            writtenCounter.increment(response.accepted());
+            if (response.rejected() > 0) {
+                rejectedCounter.increment(response.rejected());
+                log.warn("Write-behind queue {} rejected {} of {} events", name, response.rejected(), batch.size());
+            }
+        } catch (RuntimeException ex) {
+            failedCounter.increment(batch.size());
+            log.error("Write-behind queue {} failed to flush {} events", name, batch.size(), ex);
+        } finally {
+            flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Counter dropCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("bebraradar.ingest.dropped")
+            .tag("queue", name)
+            .tag("reason", reason)
+            .register(registry);
+    }
+}
@@ -0,0 +1,150 @@
+package org.bebraradar.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AlongTrackClustererTest {
+
+    private static final long BIN = 30;
+
+    @Test
+    void splitsOnGapsAndDropsClustersOfTooFewUsers() {
+        AlongTrackClusterer clusterer = new AlongTrackClusterer(50, 2);
+        clusterer.add(1, 120, 3);
+        clusterer.add(2, 100, 1);
+        clusterer.add(5, 1000, 6);
+        clusterer.add(3, 505, 5);
+        clusterer.add(4, 110, 2);
+        clusterer.add(6, 480, 4);
+
+        int count = clusterer.close(0, BIN, user -> 1);
+
+        assertEquals(2, count);
+        assertEquals(110, clusterer.center(0));
+        assertEquals(10, clusterer.spread(0));
+        assertEquals(3, clusterer.userCount(0));
+        assertEquals(3, clusterer.effectiveCount(0), 1e-9);
+        assertEquals(492.5, clusterer.center(1));
+        assertEquals(12.5, clusterer.spread(1));
+        assertEquals(2, clusterer.userCount(1));
+        assertEquals(List.of(1L, 2L, 3L), members(clusterer, 0));
+        assertEquals(6, clusterer.binLatest());
+        assertTrue(clusterer.isEmpty());
+    }
+
+    @Test
+    void keepsPositionsOutsideTheBinInTheWindow() {
+        AlongTrackClusterer clusterer = new AlongTrackClusterer(50, 1);
+        clusterer.add(10, 100, 1);
+        clusterer.add(40, 200, 1);
+        clusterer.add(35, 210, 2);
+
+        assertEquals(1, clusterer.close(0, BIN, user -> 1));
+        assertEquals(100, clusterer.center(0));
+        assertFalse(clusterer.isEmpty());
+        assertEquals(35, clusterer.oldestTimestamp());
+
+        assertEquals(1, clusterer.close(BIN, 2 * BIN, user -> 1));
+        assertEquals(205, clusterer.center(0));
+        assertEquals(2, clusterer.userCount(0));
+        assertTrue(clusterer.isEmpty());
+    }
+
+    @Test
+    void countsAPassengerPingingSeveralTimesOnce() {
+        AlongTrackClusterer clusterer = new AlongTrackClusterer(50, 2);
+        for (int i = 0; i < 4; i++) {
+            clusterer.add(i, 100 + i * 10, 7);
+        }
+        clusterer.add(5, 150, AlongTrackClusterer.NO_USER);
+        clusterer.add(6, 160, AlongTrackClusterer.NO_USER);
+
+        assertEquals(0, clusterer.close(0, BIN, user -> 1));
+    }
+
+    @Test
+    void trustedUsersPullTheWeightedMedian() {
+        AlongTrackClusterer clusterer = new AlongTrackClusterer(50, 2);
+        clusterer.add(1, 100, 1);
+        clusterer.add(2, 110, 2);
+        clusterer.add(3, 140, 3);
+
+        assertEquals(1, clusterer.close(0, BIN, user -> user == 3 ? 4 : 1));
+        assertEquals(140, clusterer.center(0));
+        // weights 1, 1, 4: 36 / 18
+        assertEquals(2, clusterer.effectiveCount(0), 1e-9);
+    }
+
+    @Test
+    void matchesASortAndScanOnRandomBins() {
+        Random random = new Random(29);
+        AlongTrackClusterer clusterer = new AlongTrackClusterer(40, 2);
+        for (int bin = 0; bin < 200; bin++) {
+            int n = random.nextInt(300);
+            double[][] points = new double[n][];
+            for (int i = 0; i < n; i++) {
+                double position = random.nextDouble() * 20_000;
+                long user = random.nextInt(50);
+                points[i] = new double[]{position, user};
+                clusterer.add(bin * BIN + random.nextInt((int) BIN), position, user);
+            }
+
+            int count = clusterer.close(bin * BIN, (bin + 1) * BIN, user -> 1);
+
+            List<double[]> expected = scan(points, 40, 2);
+            assertEquals(expected.size(), count);
+            for (int c = 0; c < count; c++) {
+                assertEquals(expected.get(c)[0], clusterer.center(c), 1e-9);
+                assertEquals(expected.get(c)[1], clusterer.spread(c), 1e-9);
+                assertEquals(expected.get(c)[2], clusterer.userCount(c));
+                assertEquals(clusterer.center(c), clusterer.centers()[c]);
+            }
+            assertTrue(clusterer.isEmpty());
+        }
+    }
+
+    private static List<Long> members(AlongTrackClusterer clusterer, int cluster) {
+        List<Long> users = new ArrayList<>();
+        for (int m = clusterer.memberFrom(cluster); m < clusterer.memberTo(cluster); m++) {
+            users.add(clusterer.memberUser(m));
+        }
+        return users;
+    }
+
+    /**
+     * Center, spread and distinct users of each run of sorted positions no more than {@code gap} apart.
+     */
+    private static List<double[]> scan(double[][] points, double gap, int minUsers) {
+        double[][] sorted = points.clone();
+        Arrays.sort(sorted, (a, b) -> Double.compare(a[0], b[0]));
+        List<double[]> clusters = new ArrayList<>();
+        int first = 0;
+        for (int k = 1; k <= sorted.length; k++) {
+            if (k < sorted.length && sorted[k][0] - sorted[k - 1][0] <= gap) {
+                continue;
+            }
+            Set<Double> users = new HashSet<>();
+            for (int m = first; m < k; m++) {
+                users.add(sorted[m][1]);
+            }
+            if (users.size() >= minUsers) {
+                int n = k - first;
+                int mid = first + n / 2;
+                double median = n % 2 == 1 ? sorted[mid][0] : (sorted[mid - 1][0] + sorted[mid][0]) / 2;
+                clusters.add(new double[]{median, (sorted[k - 1][0] - sorted[first][0]) / 2, users.size()});
+            }
+            first = k;
+        }
+        return clusters;
+    }
+}
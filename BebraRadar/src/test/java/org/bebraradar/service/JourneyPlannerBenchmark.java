@@ -0,0 +1,101 @@
+package org.bebraradar.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * RAPTOR on a synthetic regional network: a 40 x 40 grid of stops with a line along every row and column in both
+ * directions, a trip every 5 minutes from 05:00 to 24:00 and 2 minutes between stops (160 patterns, about 36k
+ * trips and 1.4M stop times). Run with {@code mvn test -Dtest=JourneyPlannerBenchmark -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class JourneyPlannerBenchmark {
+
+    private static final int GRID = 40;
+    private static final int HEADWAY = 300;
+    private static final int HOP = 120;
+    private static final int QUERIES = 2000;
+
+    @Test
+    void randomQueries() {
+        TimetableSnapshot snapshot = gridNetwork();
+        JourneyPlanner planner = new JourneyPlanner(null, new StubTransferGraph(), 4, Duration.ofSeconds(60));
+        LocalDate date = LocalDate.of(2025, 3, 3);
+        long started = System.nanoTime();
+        snapshot.raptorTimetable();
+        System.out.printf("RAPTOR timetable for %d trips, %d stop times built in %d ms%n", snapshot.tripCount(),
+            snapshot.stopTimeCount(), (System.nanoTime() - started) / 1_000_000);
+
+        Random random = new Random(42);
+        for (int warmUp = 0; warmUp < 500; warmUp++) {
+            query(planner, snapshot, random, date);
+        }
+        long[] nanos = new long[QUERIES];
+        int journeys = 0;
+        for (int q = 0; q < QUERIES; q++) {
+            long start = System.nanoTime();
+            List<?> result = query(planner, snapshot, random, date);
+            nanos[q] = System.nanoTime() - start;
+            journeys += result.size();
+        }
+        Arrays.sort(nanos);
+        System.out.printf("%d queries, %d journeys: p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+            QUERIES, journeys, nanos[QUERIES / 2] / 1e6, nanos[QUERIES * 9 / 10] / 1e6,
+            nanos[QUERIES * 99 / 100] / 1e6, nanos[QUERIES - 1] / 1e6);
+        assertFalse(journeys < QUERIES, "every query should find a journey");
+    }
+
+    private static List<?> query(JourneyPlanner planner, TimetableSnapshot snapshot, Random random, LocalDate date) {
+        int from = random.nextInt(GRID * GRID);
+        int to = random.nextInt(GRID * GRID - 1);
+        if (to >= from) {
+            to++;
+        }
+        LocalDateTime departAfter = date.atTime(6 + random.nextInt(14), random.nextInt(60));
+        return planner.plan(snapshot, from, to, departAfter, ZoneOffset.UTC);
+    }
+
+    private static TimetableSnapshot gridNetwork() {
+        ServiceActivityIndex services = ServiceActivityIndex.of(List.of(new ServiceActivityIndex.ServiceDays(
+            "DAILY", 0x7f, LocalDate.of(2025, 1, 1).toEpochDay(), LocalDate.of(2025, 12, 31).toEpochDay(),
+            new long[0], new long[0])));
+        String[] stopIds = new String[GRID * GRID];
+        String[] stopNames = new String[stopIds.length];
+        for (int stop = 0; stop < stopIds.length; stop++) {
+            stopIds[stop] = "G" + stop;
+            stopNames[stop] = "Grid " + stop / GRID + "/" + stop % GRID;
+        }
+        int tripsPerLine = (24 - 5) * 3600 / HEADWAY;
+        TimetableSnapshot.Builder builder = new TimetableSnapshot.Builder(services, stopIds, stopNames,
+            4 * GRID * tripsPerLine, 4 * GRID * tripsPerLine * GRID);
+        long tripId = 1;
+        OffsetDateTime day = OffsetDateTime.of(2025, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+        for (int line = 0; line < GRID; line++) {
+            for (int direction = 0; direction < 4; direction++) {
+                builder.route("L" + line + "-" + direction);
+                for (int t = 0; t < tripsPerLine; t++) {
+                    int start = 5 * 3600 + t * HEADWAY;
+                    builder.trip(tripId++, 0, day.plusSeconds(start));
+                    for (int i = 0; i < GRID; i++) {
+                        int step = direction % 2 == 0 ? i : GRID - 1 - i;
+                        int stop = direction < 2 ? line * GRID + step : step * GRID + line;
+                        int time = start + i * HOP;
+                        builder.stopTime(i + 1, stop, time, time + 20);
+                    }
+                }
+            }
+        }
+        return builder.build(1);
+    }
+}
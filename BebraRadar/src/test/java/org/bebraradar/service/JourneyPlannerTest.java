@@ -0,0 +1,136 @@
+package org.bebraradar.service;
+
+import org.bebraradar.dto.JourneyDto;
+import org.bebraradar.dto.JourneyLegDto;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * RAPTOR on a network small enough to check by hand:
+ * <pre>
+ *   R1  A 08:00 -> B 08:10 -> C 08:20
+ *   R2  B 08:15 -> D 08:25
+ *   R3  A 08:05 -> D 08:50
+ *   R4  B 08:10:30 -> E 08:25, B 08:12 -> E 08:30
+ *   walk C <-> W 2 min
+ * </pre>
+ * with a minimum transfer time of one minute.
+ */
+class JourneyPlannerTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 3);
+
+    private final TimetableSnapshot snapshot = network();
+    private final JourneyPlanner planner = new JourneyPlanner(null,
+        new StubTransferGraph().walk("C", "W", 150, 120), 4, Duration.ofSeconds(60));
+
+    @Test
+    void changesVehiclesWhenNoTripGoesThrough() {
+        List<JourneyDto> journeys = plan("A", "E", "07:55");
+
+        assertEquals(1, journeys.size());
+        JourneyDto journey = journeys.get(0);
+        assertEquals(1, journey.transfers());
+        assertEquals(at("08:00"), journey.departure());
+        // 30 s at B are too short for the 08:10:30 departure
+        assertEquals(at("08:30"), journey.arrival());
+        assertEquals(2, journey.legs().size());
+        assertLeg(journey.legs().get(0), "TRANSIT", "R1", "A", "08:00", "B", "08:10");
+        assertLeg(journey.legs().get(1), "TRANSIT", "R4", "B", "08:12", "E", "08:30");
+    }
+
+    @Test
+    void returnsFastestJourneyForEachNumberOfTransfers() {
+        List<JourneyDto> journeys = plan("A", "D", "07:55");
+
+        assertEquals(2, journeys.size());
+        JourneyDto direct = journeys.get(0);
+        assertEquals(0, direct.transfers());
+        assertEquals(at("08:50"), direct.arrival());
+        assertLeg(direct.legs().get(0), "TRANSIT", "R3", "A", "08:05", "D", "08:50");
+
+        JourneyDto faster = journeys.get(1);
+        assertEquals(1, faster.transfers());
+        assertEquals(at("08:25"), faster.arrival());
+        assertEquals(25 * 60, faster.durationSeconds());
+        assertLeg(faster.legs().get(0), "TRANSIT", "R1", "A", "08:00", "B", "08:10");
+        assertLeg(faster.legs().get(1), "TRANSIT", "R2", "B", "08:15", "D", "08:25");
+    }
+
+    @Test
+    void walksToStopsWithoutService() {
+        List<JourneyDto> journeys = plan("A", "W", "07:55");
+
+        assertEquals(1, journeys.size());
+        JourneyDto journey = journeys.get(0);
+        assertEquals(0, journey.transfers());
+        assertEquals(at("08:22"), journey.arrival());
+        assertEquals(2, journey.legs().size());
+        assertLeg(journey.legs().get(0), "TRANSIT", "R1", "A", "08:00", "C", "08:20");
+        JourneyLegDto walk = journey.legs().get(1);
+        assertLeg(walk, "WALK", null, "C", "08:20", "W", "08:22");
+        assertNull(walk.tripId());
+    }
+
+    @Test
+    void findsNothingAfterTheLastTrip() {
+        assertEquals(List.of(), plan("A", "D", "09:00"));
+    }
+
+    private List<JourneyDto> plan(String from, String to, String departAfter) {
+        return planner.plan(snapshot, snapshot.stopIndexOf(from), snapshot.stopIndexOf(to),
+            LocalDateTime.of(DATE, LocalTime.parse(departAfter)), ZoneOffset.UTC);
+    }
+
+    private static void assertLeg(JourneyLegDto leg, String mode, String routeId, String from, String departure,
+                                  String to, String arrival) {
+        assertEquals(mode, leg.mode());
+        assertEquals(routeId, leg.routeId());
+        assertEquals(from, leg.fromStopId());
+        assertEquals(at(departure), leg.departure());
+        assertEquals(to, leg.toStopId());
+        assertEquals(at(arrival), leg.arrival());
+    }
+
+    private static OffsetDateTime at(String time) {
+        return OffsetDateTime.of(DATE, LocalTime.parse(time), ZoneOffset.UTC);
+    }
+
+    private static TimetableSnapshot network() {
+        ServiceActivityIndex services = ServiceActivityIndex.of(List.of(new ServiceActivityIndex.ServiceDays(
+            "DAILY", 0x7f, LocalDate.of(2025, 1, 1).toEpochDay(), LocalDate.of(2025, 12, 31).toEpochDay(),
+            new long[0], new long[0])));
+        String[] stopIds = {"A", "B", "C", "D", "E", "W"};
+        TimetableSnapshot.Builder builder = new TimetableSnapshot.Builder(services, stopIds, stopIds, 8, 16);
+        route(builder, "R1", 1, new String[]{"A", "B", "C"}, "08:00", "08:10", "08:20");
+        route(builder, "R2", 2, new String[]{"B", "D"}, "08:15", "08:25");
+        route(builder, "R3", 3, new String[]{"A", "D"}, "08:05", "08:50");
+        route(builder, "R4", 4, new String[]{"B", "E"}, "08:10:30", "08:25");
+        trip(builder, 5, new String[]{"B", "E"}, "08:12", "08:30");
+        return builder.build(1);
+    }
+
+    private static void route(TimetableSnapshot.Builder builder, String routeId, long tripId, String[] stops,
+                              String... times) {
+        builder.route(routeId);
+        trip(builder, tripId, stops, times);
+    }
+
+    private static void trip(TimetableSnapshot.Builder builder, long tripId, String[] stops, String... times) {
+        builder.trip(tripId, 0, OffsetDateTime.of(DATE, LocalTime.parse(times[0]), ZoneOffset.UTC));
+        for (int i = 0; i < stops.length; i++) {
+            int time = LocalTime.parse(times[i]).toSecondOfDay();
+            builder.stopTime(i + 1, builder.stop(stops[i], stops[i]), time, time);
+        }
+    }
+}
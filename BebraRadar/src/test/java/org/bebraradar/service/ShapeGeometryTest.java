@@ -0,0 +1,119 @@
+package org.bebraradar.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ShapeGeometryTest {
+
+    @Test
+    void encodesTheGoogleReferencePolyline() {
+        // example from the encoded polyline algorithm format documentation
+        ShapeGeometry geometry = new ShapeGeometry(new double[]{38.5, 40.7, 43.252},
+            new double[]{-120.2, -120.95, -126.453}, 1);
+
+        assertEquals("_p~iF~ps|U_ulLnnqC_mqNvxq`@", geometry.fullPolyline());
+        assertEquals(geometry.fullPolyline(), geometry.polyline(ShapeGeometry.MAX_ZOOM));
+    }
+
+    @Test
+    void fullPolylineRoundTripsAtFiveDecimals() {
+        Random random = new Random(3);
+        int n = 500;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        for (int i = 0; i < n; i++) {
+            latitudes[i] = 50 + random.nextGaussian();
+            longitudes[i] = 19.9 - random.nextGaussian();
+        }
+
+        List<double[]> decoded = decode(new ShapeGeometry(latitudes, longitudes, 1).fullPolyline());
+
+        assertEquals(n, decoded.size());
+        for (int i = 0; i < n; i++) {
+            assertArrayEquals(new double[]{latitudes[i], longitudes[i]}, decoded.get(i), 0.5e-5);
+        }
+    }
+
+    @Test
+    void dropsPointsOnAStraightLineAndKeepsEndpoints() {
+        double[] latitudes = new double[11];
+        double[] longitudes = new double[11];
+        for (int i = 0; i <= 10; i++) {
+            latitudes[i] = 50 + i * 0.001;
+            longitudes[i] = 20;
+        }
+
+        ShapeGeometry geometry = new ShapeGeometry(latitudes, longitudes, 1);
+
+        assertEquals(11, geometry.pointCount());
+        assertEquals(2, geometry.pointCount(ShapeGeometry.MAX_ZOOM));
+        List<double[]> decoded = decode(geometry.polyline(ShapeGeometry.MAX_ZOOM));
+        assertArrayEquals(new double[]{50, 20}, decoded.get(0), 1e-9);
+        assertArrayEquals(new double[]{50.01, 20}, decoded.get(1), 1e-9);
+    }
+
+    @Test
+    void keepsMorePointsAtHigherZoom() {
+        Random random = new Random(5);
+        int n = 2000;
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        double latitude = 50;
+        double longitude = 20;
+        for (int i = 0; i < n; i++) {
+            latitude += (random.nextDouble() - 0.3) * 1e-3;
+            longitude += (random.nextDouble() - 0.5) * 1e-3;
+            latitudes[i] = latitude;
+            longitudes[i] = longitude;
+        }
+
+        ShapeGeometry geometry = new ShapeGeometry(latitudes, longitudes, 1);
+
+        assertEquals(2, geometry.pointCount(0));
+        for (int zoom = 1; zoom <= ShapeGeometry.MAX_ZOOM; zoom++) {
+            assertTrue(geometry.pointCount(zoom) >= geometry.pointCount(zoom - 1));
+            List<double[]> decoded = decode(geometry.polyline(zoom));
+            assertEquals(geometry.pointCount(zoom), decoded.size());
+            assertArrayEquals(new double[]{latitudes[0], longitudes[0]}, decoded.get(0), 0.5e-5);
+            assertArrayEquals(new double[]{latitudes[n - 1], longitudes[n - 1]}, decoded.get(decoded.size() - 1),
+                0.5e-5);
+        }
+        assertTrue(geometry.pointCount(ShapeGeometry.MAX_ZOOM) > geometry.pointCount(12));
+    }
+
+    private static List<double[]> decode(String polyline) {
+        List<double[]> points = new ArrayList<>();
+        int index = 0;
+        long latitude = 0;
+        long longitude = 0;
+        while (index < polyline.length()) {
+            long[] value = new long[1];
+            index = decodeValue(polyline, index, value);
+            latitude += value[0];
+            index = decodeValue(polyline, index, value);
+            longitude += value[0];
+            points.add(new double[]{latitude / 1e5, longitude / 1e5});
+        }
+        return points;
+    }
+
+    private static int decodeValue(String polyline, int index, long[] value) {
+        long result = 0;
+        int shift = 0;
+        int chunk;
+        do {
+            chunk = polyline.charAt(index++) - 63;
+            result |= (long) (chunk & 0x1f) << shift;
+            shift += 5;
+        } while (chunk >= 0x20);
+        value[0] = (result & 1) != 0 ? ~(result >> 1) : result >> 1;
+        return index;
+    }
+}
@@ -0,0 +1,177 @@
+package org.bebraradar.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The bounding box tree against a projection onto every segment.
+ */
+class ShapeMatcherTest {
+
+    @Test
+    void matchesTheNearestSegmentOfAScan() {
+        Random random = new Random(17);
+        double[][] shape = zigzag(random, 3000);
+        ShapeMatcher matcher = new ShapeMatcher(shape[0], shape[1]);
+
+        for (int q = 0; q < 2000; q++) {
+            double latitude = 50.0 + random.nextDouble() * 0.2;
+            double longitude = 19.8 + random.nextDouble() * 0.4;
+            ShapeMatcher.Match expected = scan(shape, latitude, longitude, 0);
+            ShapeMatcher.Match match = matcher.match(latitude, longitude);
+            // a position nearest to a vertex is as near to both of its segments
+            assertEquals(expected.distanceAlong(), match.distanceAlong(), 1e-6);
+            assertEquals(expected.crossTrack(), match.crossTrack(), 1e-6);
+        }
+    }
+
+    @Test
+    void matchAllAgreesWithMatch() {
+        Random random = new Random(19);
+        double[][] shape = zigzag(random, 500);
+        ShapeMatcher matcher = new ShapeMatcher(shape[0], shape[1]);
+        int count = 200;
+        double[] latitudes = new double[count];
+        double[] longitudes = new double[count];
+        for (int i = 0; i < count; i++) {
+            latitudes[i] = 50.0 + random.nextDouble() * 0.2;
+            longitudes[i] = 19.8 + random.nextDouble() * 0.4;
+        }
+        double[] distanceAlong = new double[count];
+        double[] crossTrack = new double[count];
+        int[] segment = new int[count];
+
+        matcher.matchAll(latitudes, longitudes, count, distanceAlong, crossTrack, segment);
+
+        for (int i = 0; i < count; i++) {
+            ShapeMatcher.Match match = matcher.match(latitudes[i], longitudes[i]);
+            assertEquals(match.segment(), segment[i]);
+            assertEquals(match.distanceAlong(), distanceAlong[i], 1e-9);
+            assertEquals(match.crossTrack(), crossTrack[i], 1e-9);
+        }
+    }
+
+    @Test
+    void matchFromSkipsTheWayOutOnAnOutAndBackShape() {
+        // east along one street, back along a parallel one 20 m to the north
+        int half = 100;
+        double[] latitudes = new double[2 * half];
+        double[] longitudes = new double[2 * half];
+        for (int i = 0; i < half; i++) {
+            latitudes[i] = 50.0;
+            longitudes[i] = 20.0 + i * 1e-4;
+            latitudes[2 * half - 1 - i] = 50.0 + 20 / GeoMath.METERS_PER_DEGREE;
+            longitudes[2 * half - 1 - i] = 20.0 + i * 1e-4;
+        }
+        double[][] shape = {latitudes, longitudes};
+        ShapeMatcher matcher = new ShapeMatcher(latitudes, longitudes);
+        double latitude = 50.0 + 8 / GeoMath.METERS_PER_DEGREE;
+        double longitude = 20.0 + 40.5e-4;
+
+        ShapeMatcher.Match out = matcher.match(latitude, longitude);
+        ShapeMatcher.Match back = matcher.matchFrom(latitude, longitude, half);
+
+        assertMatch(scan(shape, latitude, longitude, 0), out);
+        assertMatch(scan(shape, latitude, longitude, half), back);
+        assertTrue(out.segment() < half - 1);
+        assertTrue(back.segment() >= half);
+        assertTrue(back.distanceAlong() > matcher.length() / 2);
+    }
+
+    @Test
+    void positionAtFollowsTheShape() {
+        Random random = new Random(23);
+        double[][] shape = zigzag(random, 200);
+        ShapeMatcher matcher = new ShapeMatcher(shape[0], shape[1]);
+
+        assertArrayEquals(new double[]{shape[0][0], shape[1][0]}, matcher.positionAt(-5), 0);
+        assertArrayEquals(new double[]{shape[0][199], shape[1][199]}, matcher.positionAt(1e9), 0);
+        for (int q = 0; q < 200; q++) {
+            double distance = random.nextDouble() * matcher.length();
+            double[] position = matcher.positionAt(distance);
+            ShapeMatcher.Match match = matcher.match(position[0], position[1]);
+            assertEquals(0, match.crossTrack(), 0.01);
+        }
+    }
+
+    @Test
+    void shapesWithoutSegmentsMatchNothing() {
+        ShapeMatcher single = new ShapeMatcher(new double[]{50}, new double[]{20});
+        ShapeMatcher empty = new ShapeMatcher(new double[0], new double[0]);
+
+        assertEquals(new ShapeMatcher.Match(0, Double.POSITIVE_INFINITY, -1), single.match(50, 20));
+        assertEquals(new ShapeMatcher.Match(0, Double.POSITIVE_INFINITY, -1), empty.match(50, 20));
+        assertEquals(0, empty.length());
+        assertNull(empty.positionAt(10));
+        assertArrayEquals(new double[]{50, 20}, single.positionAt(10), 0);
+    }
+
+    private static void assertMatch(ShapeMatcher.Match expected, ShapeMatcher.Match actual) {
+        assertEquals(expected.segment(), actual.segment());
+        assertEquals(expected.distanceAlong(), actual.distanceAlong(), 1e-6);
+        assertEquals(expected.crossTrack(), actual.crossTrack(), 1e-6);
+    }
+
+    /**
+     * A random walk that turns often, so that many bounding boxes overlap.
+     */
+    private static double[][] zigzag(Random random, int n) {
+        double[] latitudes = new double[n];
+        double[] longitudes = new double[n];
+        double latitude = 50.1;
+        double longitude = 20.0;
+        for (int i = 0; i < n; i++) {
+            latitude = Math.max(50.0, Math.min(50.2, latitude + (random.nextDouble() - 0.5) * 4e-3));
+            longitude = Math.max(19.8, Math.min(20.2, longitude + (random.nextDouble() - 0.5) * 6e-3));
+            latitudes[i] = latitude;
+            longitudes[i] = longitude;
+        }
+        return new double[][]{latitudes, longitudes};
+    }
+
+    /**
+     * Projects onto every segment from {@code firstSegment} on, on the same local plane as the matcher.
+     */
+    private static ShapeMatcher.Match scan(double[][] shape, double latitude, double longitude, int firstSegment) {
+        double[] latitudes = shape[0];
+        double[] longitudes = shape[1];
+        double scale = Math.cos(Math.toRadians(latitudes[0])) * GeoMath.METERS_PER_DEGREE;
+        double px = longitude * scale;
+        double py = latitude * GeoMath.METERS_PER_DEGREE;
+        double best = Double.POSITIVE_INFINITY;
+        int bestSegment = -1;
+        double bestT = 0;
+        for (int i = firstSegment; i + 1 < latitudes.length; i++) {
+            double ax = longitudes[i] * scale;
+            double ay = latitudes[i] * GeoMath.METERS_PER_DEGREE;
+            double dx = longitudes[i + 1] * scale - ax;
+            double dy = latitudes[i + 1] * GeoMath.METERS_PER_DEGREE - ay;
+            double lengthSquared = dx * dx + dy * dy;
+            double t = lengthSquared == 0 ? 0 : ((px - ax) * dx + (py - ay) * dy) / lengthSquared;
+            t = Math.max(0, Math.min(1, t));
+            double ex = px - (ax + t * dx);
+            double ey = py - (ay + t * dy);
+            if (ex * ex + ey * ey < best) {
+                best = ex * ex + ey * ey;
+                bestSegment = i;
+                bestT = t;
+            }
+        }
+        double along = 0;
+        for (int i = 0; i < bestSegment; i++) {
+            along += GeoMath.haversine(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1]);
+        }
+        int i = bestSegment;
+        along += bestT * GeoMath.haversine(latitudes[i], longitudes[i], latitudes[i + 1], longitudes[i + 1]);
+        double crossTrack = GeoMath.haversine(latitude, longitude,
+            latitudes[i] + (latitudes[i + 1] - latitudes[i]) * bestT,
+            longitudes[i] + (longitudes[i + 1] - longitudes[i]) * bestT);
+        return new ShapeMatcher.Match(along, crossTrack, bestSegment);
+    }
+}
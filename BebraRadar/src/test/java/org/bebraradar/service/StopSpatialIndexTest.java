@@ -0,0 +1,153 @@
+package org.bebraradar.service;
+
+import org.bebraradar.dto.NearbyStopDto;
+import org.bebraradar.dto.StopDto;
+import org.bebraradar.entity.Stop;
+import org.bebraradar.repository.StopRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The k-d tree against a scan of every stop, on random stops around a city plus a few on either side of the
+ * antimeridian.
+ */
+class StopSpatialIndexTest {
+
+    private final Map<String, Stop> table = new HashMap<>();
+    private StopSpatialIndex index;
+
+    @BeforeEach
+    void setUp() {
+        StopRepository repository = mock(StopRepository.class);
+        when(repository.findById(anyString()))
+            .thenAnswer(call -> Optional.ofNullable(table.get(call.<String>getArgument(0))));
+        index = new StopSpatialIndex(new JdbcTemplate(), repository);
+        Random random = new Random(7);
+        for (int i = 0; i < 2000; i++) {
+            put(new Stop("S" + i, "Stop " + i, 50.0 + random.nextDouble() * 0.2, 19.8 + random.nextDouble() * 0.3));
+        }
+        for (int i = 0; i < 20; i++) {
+            double longitude = i % 2 == 0 ? 179.9 + random.nextDouble() * 0.1 : -180.0 + random.nextDouble() * 0.1;
+            put(new Stop("X" + i, "Dateline " + i, -16.5 + random.nextDouble() * 0.2, longitude));
+        }
+        put(new Stop("NOWHERE", "Without coordinates", null, null));
+    }
+
+    @Test
+    void boxSearchFindsExactlyTheStopsInside() {
+        Random random = new Random(11);
+        for (int q = 0; q < 300; q++) {
+            double minLat = 50.0 + random.nextDouble() * 0.2;
+            double minLon = 19.8 + random.nextDouble() * 0.3;
+            double maxLat = minLat + random.nextDouble() * 0.05;
+            double maxLon = minLon + random.nextDouble() * 0.05;
+            assertEquals(scanBox(minLat, minLon, maxLat, maxLon),
+                ids(index.withinBox(minLat, minLon, maxLat, maxLon)));
+        }
+    }
+
+    @Test
+    void boxSearchAcrossTheAntimeridian() {
+        Set<String> found = ids(index.withinBox(-17.0, 179.95, -16.0, -179.95));
+
+        Set<String> expected = new HashSet<>(scanBox(-17.0, 179.95, -16.0, 180.0));
+        expected.addAll(scanBox(-17.0, -180.0, -16.0, -179.95));
+        assertFalse(expected.isEmpty());
+        assertEquals(expected, found);
+    }
+
+    @Test
+    void nearestMatchesAScanOrderedByDistance() {
+        Random random = new Random(13);
+        for (int q = 0; q < 300; q++) {
+            double latitude = 50.0 + random.nextDouble() * 0.2;
+            double longitude = 19.8 + random.nextDouble() * 0.3;
+            double radius = 100 + random.nextDouble() * 900;
+            int limit = 1 + random.nextInt(10);
+
+            List<NearbyStopDto> found = index.nearest(latitude, longitude, radius, limit);
+
+            List<String> expected = table.values().stream()
+                .filter(stop -> stop.getLatitude() != null)
+                .filter(stop -> distance(stop, latitude, longitude) <= radius)
+                .sorted(Comparator.comparingDouble(stop -> distance(stop, latitude, longitude)))
+                .limit(limit)
+                .map(Stop::getId)
+                .toList();
+            assertEquals(expected, found.stream().map(NearbyStopDto::id).toList());
+            for (NearbyStopDto stop : found) {
+                assertEquals(distance(table.get(stop.id()), latitude, longitude), stop.distanceMeters(), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    void nearestAcrossTheAntimeridian() {
+        List<NearbyStopDto> found = index.nearest(-16.4, 179.99, 20_000, 50);
+
+        Set<String> expected = table.values().stream()
+            .filter(stop -> stop.getLatitude() != null && distance(stop, -16.4, 179.99) <= 20_000)
+            .map(Stop::getId)
+            .collect(Collectors.toSet());
+        assertEquals(20, expected.size());
+        assertEquals(expected, ids(found));
+    }
+
+    @Test
+    void changedAndRemovedStopsAreFollowed() {
+        Stop moved = table.get("S1");
+        put(new Stop("S1", moved.getName(), 10.0, 10.0));
+        table.remove("S2");
+        index.onEntityChanged(new EntityChangedEvent(EntityChangedEvent.Kind.STOP, "S2"));
+
+        assertEquals(Set.of("S1"), ids(index.withinBox(9.9, 9.9, 10.1, 10.1)));
+        assertFalse(ids(index.withinBox(49.0, 19.0, 51.0, 21.0)).contains("S2"));
+        assertEquals(scanBox(49.0, 19.0, 51.0, 21.0), ids(index.withinBox(49.0, 19.0, 51.0, 21.0)));
+    }
+
+    private void put(Stop stop) {
+        table.put(stop.getId(), stop);
+        index.onEntityChanged(new EntityChangedEvent(EntityChangedEvent.Kind.STOP, stop.getId()));
+    }
+
+    private Set<String> scanBox(double minLat, double minLon, double maxLat, double maxLon) {
+        return table.values().stream()
+            .filter(stop -> stop.getLatitude() != null)
+            .filter(stop -> stop.getLatitude() >= minLat && stop.getLatitude() <= maxLat
+                && stop.getLongitude() >= minLon && stop.getLongitude() <= maxLon)
+            .map(Stop::getId)
+            .collect(Collectors.toSet());
+    }
+
+    private static double distance(Stop stop, double latitude, double longitude) {
+        return GeoMath.haversine(latitude, longitude, stop.getLatitude(), stop.getLongitude());
+    }
+
+    private static Set<String> ids(List<?> stops) {
+        List<String> ids = new ArrayList<>();
+        for (Object stop : stops) {
+            ids.add(stop instanceof StopDto dto ? dto.id() : ((NearbyStopDto) stop).id());
+        }
+        Set<String> unique = Set.copyOf(ids);
+        assertEquals(ids.size(), unique.size(), "a stop was reported twice");
+        return unique;
+    }
+}
@@ -0,0 +1,44 @@
+package org.bebraradar.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transfer graph with fixed transfers and no database behind it; without any it is an empty graph.
+ */
+class StubTransferGraph extends TransferGraph {
+
+    private final Map<String, List<Transfer>> transfers = new HashMap<>();
+
+    StubTransferGraph() {
+        // never connected: the stub does not rebuild
+        super(new JdbcTemplate(), null, 400, 1.3);
+    }
+
+    /**
+     * Adds a walk in both directions.
+     */
+    StubTransferGraph walk(String fromStopId, String toStopId, double distanceMeters, int walkSeconds) {
+        add(fromStopId, new Transfer(toStopId, distanceMeters, walkSeconds));
+        add(toStopId, new Transfer(fromStopId, distanceMeters, walkSeconds));
+        return this;
+    }
+
+    @Override
+    public List<Transfer> transfersFrom(String stopId) {
+        return transfers.getOrDefault(stopId, List.of());
+    }
+
+    @Override
+    public long version() {
+        return 0;
+    }
+
+    private void add(String fromStopId, Transfer transfer) {
+        transfers.computeIfAbsent(fromStopId, id -> new ArrayList<>()).add(transfer);
+    }
+}
@@ -0,0 +1,91 @@
+package org.bebraradar.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VehicleTrackerTest {
+
+    private static final double NOISE = 15;
+
+    private final VehicleTracker tracker = new VehicleTracker(25, 100, 3, 0.5, 3);
+
+    @Test
+    void followsTwoVehiclesWithStableIdsAndLearnsTheirSpeed() {
+        Random random = new Random(31);
+        double[] variances = {NOISE * NOISE, NOISE * NOISE};
+        VehicleTracker.Track[] first = tracker.step(0, new double[]{0, 3000}, variances, 2);
+        assertNotEquals(first[0].id(), first[1].id());
+
+        for (long time = 30; time <= 600; time += 30) {
+            double[] centers = {10 * time + random.nextGaussian() * NOISE,
+                3000 + 6 * time + random.nextGaussian() * NOISE};
+            VehicleTracker.Track[] tracks = tracker.step(time, centers, variances, 2);
+
+            assertSame(first[0], tracks[0]);
+            assertSame(first[1], tracks[1]);
+        }
+
+        assertEquals(2, tracker.tracks().size());
+        assertEquals(10, first[0].velocity(), 0.5);
+        assertEquals(6, first[1].velocity(), 0.5);
+        assertEquals(6000, first[0].position(), 3 * NOISE);
+        assertEquals(6000 + 10 * 30, first[0].positionAt(630), 3 * NOISE + 15);
+        assertTrue(tracker.positionVarianceAt(first[0], 630) > tracker.positionVarianceAt(first[0], 600));
+    }
+
+    @Test
+    void keepsIdsWhenAFasterVehicleOvertakes() {
+        double[] variances = {NOISE * NOISE, NOISE * NOISE};
+        VehicleTracker.Track[] first = tracker.step(0, new double[]{0, 1500}, variances, 2);
+        int fast = first[0].id();
+        int slow = first[1].id();
+        // settle the speeds while they are far apart
+        for (long time = 30; time <= 150; time += 30) {
+            tracker.step(time, new double[]{12 * time, 1500 + 8 * time}, variances, 2);
+        }
+
+        for (long time = 180; time <= 600; time += 30) {
+            double a = 12 * time;
+            double b = 1500 + 8 * time;
+            double[] centers = a <= b ? new double[]{a, b} : new double[]{b, a};
+            VehicleTracker.Track[] tracks = tracker.step(time, centers, variances, 2);
+            assertEquals(a <= b ? fast : slow, tracks[0].id());
+            assertEquals(a <= b ? slow : fast, tracks[1].id());
+        }
+    }
+
+    @Test
+    void opensANewTrackForAClusterOutOfReach() {
+        double[] variance = {NOISE * NOISE};
+        VehicleTracker.Track first = tracker.step(0, new double[]{1000}, variance, 1)[0];
+
+        // 30 s at 25 m/s plus the 100 m gate reach 1850 m at most
+        VehicleTracker.Track jumped = tracker.step(30, new double[]{3000}, variance, 1)[0];
+
+        assertNotEquals(first.id(), jumped.id());
+        assertEquals(2, tracker.tracks().size());
+    }
+
+    @Test
+    void dropsTracksMissingForTtlBins() {
+        double[] variance = {NOISE * NOISE};
+        VehicleTracker.Track lost = tracker.step(0, new double[]{0}, variance, 1)[0];
+        VehicleTracker.Track other = tracker.step(30, new double[]{10_000}, variance, 1)[0];
+        tracker.step(60, new double[0], new double[0], 0);
+        assertNotNull(tracker.track(lost.id()));
+
+        tracker.step(90, new double[]{10_000}, variance, 1);
+        tracker.step(120, new double[]{10_000}, variance, 1);
+
+        assertNull(tracker.track(lost.id()));
+        assertSame(other, tracker.track(other.id()));
+    }
+}
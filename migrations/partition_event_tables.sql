@@ -0,0 +1,67 @@
+-- Converts realtime event tables created by an older schema.sql into daily range partitions on ts (UTC).
+-- Run once with the application stopped:
+--   psql -v ON_ERROR_STOP=1 -d hackyeach -f migrations/partition_event_tables.sql
+-- Tables that are already partitioned are left alone. Existing rows are copied into one partition per day that has data.
+
+BEGIN;
+
+ALTER TABLE exact_trip_event_geo_location ADD COLUMN IF NOT EXISTS event_key TEXT;
+ALTER TABLE exact_trip_event_timetable ADD COLUMN IF NOT EXISTS event_key TEXT;
+ALTER TABLE exact_trip_anomaly ADD COLUMN IF NOT EXISTS event_key TEXT;
+
+DO $$
+DECLARE
+  t         TEXT;
+  legacy    TEXT;
+  seq       TEXT;
+  d         DATE;
+BEGIN
+  FOREACH t IN ARRAY ARRAY['exact_trip_event_geo_location', 'exact_trip_event_timetable', 'exact_trip_anomaly'] LOOP
+    IF (SELECT relkind FROM pg_class WHERE oid = to_regclass(t)) = 'p' THEN
+      RAISE NOTICE '% is already partitioned', t;
+      CONTINUE;
+    END IF;
+
+    legacy := t || '_legacy';
+    seq := pg_get_serial_sequence(t, 'event_id');
+    EXECUTE format('ALTER TABLE %I RENAME TO %I', t, legacy);
+    EXECUTE format('ALTER TABLE %I RENAME CONSTRAINT %I TO %I', legacy, t || '_pkey', legacy || '_pkey');
+    EXECUTE format('CREATE TABLE %I (LIKE %I INCLUDING DEFAULTS, PRIMARY KEY (event_id, ts)) PARTITION BY RANGE (ts)',
+                   t, legacy);
+    EXECUTE format('ALTER SEQUENCE %s OWNED BY %I.event_id', seq, t);
+    EXECUTE format('ALTER TABLE %I ADD FOREIGN KEY (trip_id) REFERENCES trips(trip_id) ON DELETE CASCADE', t);
+    EXECUTE format('ALTER TABLE %I ADD FOREIGN KEY (vehicle_no) REFERENCES vehicle_positions_current(vehicle_no)', t);
+    EXECUTE format('ALTER TABLE %I ADD FOREIGN KEY (user_id) REFERENCES users(user_id)', t);
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I DEFAULT', t || '_default', t);
+
+    FOR d IN EXECUTE format('SELECT DISTINCT (ts AT TIME ZONE ''UTC'')::date FROM %I', legacy) LOOP
+      EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                     t || '_p' || to_char(d, 'YYYYMMDD'), t,
+                     d::timestamp AT TIME ZONE 'UTC', (d + 1)::timestamp AT TIME ZONE 'UTC');
+    END LOOP;
+
+    EXECUTE format('INSERT INTO %I SELECT * FROM %I', t, legacy);
+    EXECUTE format('DROP TABLE %I', legacy);
+  END LOOP;
+END
+$$;
+
+CREATE INDEX IF NOT EXISTS ete_geo_ts_idx          ON exact_trip_event_geo_location(ts DESC, event_id DESC);
+CREATE INDEX IF NOT EXISTS ete_geo_trip_ts_idx     ON exact_trip_event_geo_location(trip_id, ts DESC);
+CREATE INDEX IF NOT EXISTS ete_geo_user_ts_idx     ON exact_trip_event_geo_location(user_id, ts DESC);
+CREATE INDEX IF NOT EXISTS ete_geo_vehicle_ts_idx  ON exact_trip_event_geo_location(vehicle_no, ts DESC);
+CREATE UNIQUE INDEX IF NOT EXISTS ete_geo_event_key_idx ON exact_trip_event_geo_location(event_key, ts);
+
+CREATE INDEX IF NOT EXISTS ete_tt_ts_idx           ON exact_trip_event_timetable(ts DESC, event_id DESC);
+CREATE INDEX IF NOT EXISTS ete_tt_trip_ts_idx      ON exact_trip_event_timetable(trip_id, ts DESC);
+CREATE INDEX IF NOT EXISTS ete_tt_user_ts_idx      ON exact_trip_event_timetable(user_id, ts DESC);
+CREATE INDEX IF NOT EXISTS ete_tt_vehicle_ts_idx   ON exact_trip_event_timetable(vehicle_no, ts DESC);
+CREATE UNIQUE INDEX IF NOT EXISTS ete_tt_event_key_idx  ON exact_trip_event_timetable(event_key, ts);
+
+CREATE INDEX IF NOT EXISTS eta_ts_idx              ON exact_trip_anomaly(ts DESC, event_id DESC);
+CREATE INDEX IF NOT EXISTS eta_trip_ts_idx         ON exact_trip_anomaly(trip_id, ts DESC);
+CREATE INDEX IF NOT EXISTS eta_user_ts_idx         ON exact_trip_anomaly(user_id, ts DESC);
+CREATE INDEX IF NOT EXISTS eta_vehicle_ts_idx      ON exact_trip_anomaly(vehicle_no, ts DESC);
+CREATE UNIQUE INDEX IF NOT EXISTS eta_event_key_idx       ON exact_trip_anomaly(event_key, ts);
+
+COMMIT;
@@ -49,6 +49,23 @@ CREATE TABLE calendar (
 ALTER TABLE trips
   ADD COLUMN service_id TEXT NOT NULL REFERENCES calendar(service_id);
 
+-- walking transfers between stops within bebraradar.transfers.max-distance, derived from stop coordinates
+CREATE TABLE stop_transfers (
+  from_stop_id  TEXT   NOT NULL REFERENCES stops(stop_id) ON DELETE CASCADE,
+  to_stop_id    TEXT   NOT NULL REFERENCES stops(stop_id) ON DELETE CASCADE,
+  distance_m    DOUBLE PRECISION NOT NULL,
+  walk_seconds  INT    NOT NULL,
+  PRIMARY KEY (from_stop_id, to_stop_id)
+);
+
+-- GTFS calendar_dates: 1 = service added on that date, 2 = service removed
+CREATE TABLE calendar_dates (
+  service_id      TEXT     NOT NULL REFERENCES calendar(service_id) ON DELETE CASCADE,
+  date            DATE     NOT NULL,
+  exception_type  SMALLINT NOT NULL CHECK (exception_type IN (1, 2)),
+  PRIMARY KEY (service_id, date)
+);
+
 -- =======================
 -- Users
 -- =======================
@@ -78,11 +95,13 @@ CREATE INDEX vpc_trip_ts_idx ON vehicle_positions_current(trip_id, ts DESC);
 
 -- =======================
 -- Realtime events (разделённые таблицы) + ссылка на vehicle_no
+-- Партиционированы по дням (ts, UTC). Будущие партиции создаёт и старые удаляет
+-- EventPartitionManager; строки вне готовых партиций попадают в *_default.
 -- =======================
 
 -- 1) Геособытия (live / single-time)
 CREATE TABLE exact_trip_event_geo_location (
-  event_id        BIGSERIAL PRIMARY KEY,
+  event_id        BIGSERIAL,
   trip_id         BIGINT NOT NULL REFERENCES trips(trip_id) ON DELETE CASCADE,
   vehicle_no      TEXT REFERENCES vehicle_positions_current(vehicle_no),
   user_id         BIGINT REFERENCES users(user_id),
@@ -90,16 +109,24 @@ CREATE TABLE exact_trip_event_geo_location (
   lat             DOUBLE PRECISION,
   lon             DOUBLE PRECISION,
   gps_accuracy_m  DOUBLE PRECISION,
-  type            TEXT  -- 'live' | 'single_time'
-);
+  type            TEXT,  -- 'live' | 'single_time'
+  event_key       TEXT,  -- ключ идемпотентности (клиентский или хеш)
+  PRIMARY KEY (event_id, ts)
+) PARTITION BY RANGE (ts);
 
+CREATE TABLE exact_trip_event_geo_location_default PARTITION OF exact_trip_event_geo_location DEFAULT;
+
+CREATE INDEX ete_geo_ts_idx          ON exact_trip_event_geo_location(ts DESC, event_id DESC);
 CREATE INDEX ete_geo_trip_ts_idx     ON exact_trip_event_geo_location(trip_id, ts DESC);
 CREATE INDEX ete_geo_user_ts_idx     ON exact_trip_event_geo_location(user_id, ts DESC);
 CREATE INDEX ete_geo_vehicle_ts_idx  ON exact_trip_event_geo_location(vehicle_no, ts DESC);
+-- уникальность ключа только в паре с ts (индекс секционированной таблицы обязан включать ключ секционирования);
+-- повтор с тем же event_key и другим ts отсекает приложение, проверяя ключ по всем секциям
+CREATE UNIQUE INDEX ete_geo_event_key_idx ON exact_trip_event_geo_location(event_key, ts);
 
 -- 2) Табличные события (arrival / departure)
 CREATE TABLE exact_trip_event_timetable (
-  event_id        BIGSERIAL PRIMARY KEY,
+  event_id        BIGSERIAL,
   trip_id         BIGINT NOT NULL REFERENCES trips(trip_id) ON DELETE CASCADE,
   vehicle_no      TEXT REFERENCES vehicle_positions_current(vehicle_no),
   user_id         BIGINT REFERENCES users(user_id),
@@ -108,16 +135,22 @@ CREATE TABLE exact_trip_event_timetable (
   lon             DOUBLE PRECISION,
   gps_accuracy_m  DOUBLE PRECISION,
   type            TEXT,             -- 'arrival' | 'departure'
-  time            TIMESTAMPTZ       -- время, указанное пользователем/табло
-);
+  time            TIMESTAMPTZ,      -- время, указанное пользователем/табло
+  event_key       TEXT,
+  PRIMARY KEY (event_id, ts)
+) PARTITION BY RANGE (ts);
+
+CREATE TABLE exact_trip_event_timetable_default PARTITION OF exact_trip_event_timetable DEFAULT;
 
+CREATE INDEX ete_tt_ts_idx           ON exact_trip_event_timetable(ts DESC, event_id DESC);
 CREATE INDEX ete_tt_trip_ts_idx      ON exact_trip_event_timetable(trip_id, ts DESC);
 CREATE INDEX ete_tt_user_ts_idx      ON exact_trip_event_timetable(user_id, ts DESC);
 CREATE INDEX ete_tt_vehicle_ts_idx   ON exact_trip_event_timetable(vehicle_no, ts DESC);
+CREATE UNIQUE INDEX ete_tt_event_key_idx  ON exact_trip_event_timetable(event_key, ts);
 
 -- 3) Аномалии (traffic_jam / stop / ...)
 CREATE TABLE exact_trip_anomaly (
-  event_id         BIGSERIAL PRIMARY KEY,
+  event_id         BIGSERIAL,
   trip_id          BIGINT NOT NULL REFERENCES trips(trip_id) ON DELETE CASCADE,
   vehicle_no       TEXT REFERENCES vehicle_positions_current(vehicle_no),
   user_id          BIGINT REFERENCES users(user_id),
@@ -126,12 +159,18 @@ CREATE TABLE exact_trip_anomaly (
   lon              DOUBLE PRECISION,
   gps_accuracy_m   DOUBLE PRECISION,
   type             TEXT,                   -- 'traffic_jam' | 'stop' | ...
-  estimated_delay  DOUBLE PRECISION        -- мин
-);
+  estimated_delay  DOUBLE PRECISION,       -- мин
+  event_key        TEXT,
+  PRIMARY KEY (event_id, ts)
+) PARTITION BY RANGE (ts);
+
+CREATE TABLE exact_trip_anomaly_default PARTITION OF exact_trip_anomaly DEFAULT;
 
+CREATE INDEX eta_ts_idx              ON exact_trip_anomaly(ts DESC, event_id DESC);
 CREATE INDEX eta_trip_ts_idx         ON exact_trip_anomaly(trip_id, ts DESC);
 CREATE INDEX eta_user_ts_idx         ON exact_trip_anomaly(user_id, ts DESC);
 CREATE INDEX eta_vehicle_ts_idx      ON exact_trip_anomaly(vehicle_no, ts DESC);
+CREATE UNIQUE INDEX eta_event_key_idx       ON exact_trip_anomaly(event_key, ts);
 
 -- =======================
 -- GTFS shapes (exactly like GTFS) + connections